@@ -0,0 +1,80 @@
+package dev.bradhandy.testing.reflection.benchmarks;
+
+/**
+ * Object under test for the benchmarks. Every private method has a public counterpart calling it
+ * directly, which serves as the baseline for the proxied calls.
+ *
+ * @author bhandy
+ */
+public class BenchmarkTarget {
+
+  private int counter;
+
+  private static int staticMethod(int value) {
+    return value + 1;
+  }
+
+  public static int callStaticMethod(int value) {
+    return staticMethod(value);
+  }
+
+  private int noArguments() {
+    return ++counter;
+  }
+
+  private String objectArgument(String value) {
+    return value;
+  }
+
+  private int primitiveArgument(int value) {
+    return value + counter;
+  }
+
+  private long primitiveArguments(int first, long second) {
+    return first + second;
+  }
+
+  private double manyArguments(String first, int second, long third, double fourth) {
+    return first.length() + second + third + fourth;
+  }
+
+  public int callNoArguments() {
+    return noArguments();
+  }
+
+  public String callObjectArgument(String value) {
+    return objectArgument(value);
+  }
+
+  public int callPrimitiveArgument(int value) {
+    return primitiveArgument(value);
+  }
+
+  public long callPrimitiveArguments(int first, long second) {
+    return primitiveArguments(first, second);
+  }
+
+  public double callManyArguments(String first, int second, long third, double fourth) {
+    return manyArguments(first, second, third, fourth);
+  }
+
+  /** Interface exposing the private instance methods of {@link BenchmarkTarget}. */
+  public interface TargetMethods {
+
+    int noArguments();
+
+    String objectArgument(String value);
+
+    int primitiveArgument(int value);
+
+    long primitiveArguments(int first, long second);
+
+    double manyArguments(String first, int second, long third, double fourth);
+  }
+
+  /** Interface exposing the private static methods of {@link BenchmarkTarget}. */
+  public interface StaticTargetMethods {
+
+    int staticMethod(int value);
+  }
+}
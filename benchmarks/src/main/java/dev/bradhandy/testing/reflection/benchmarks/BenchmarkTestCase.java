@@ -0,0 +1,28 @@
+package dev.bradhandy.testing.reflection.benchmarks;
+
+import dev.bradhandy.testing.reflection.TestProxy;
+
+/**
+ * Stands in for a test class using {@code @TestProxy} parameters, for the benchmarks exercising the
+ * JUnit integrations.
+ *
+ * @author bhandy
+ */
+public class BenchmarkTestCase {
+
+  private final BenchmarkTarget objectUnderTest = new BenchmarkTarget();
+
+  private int result;
+
+  public void testWithProxy(@TestProxy("objectUnderTest") BenchmarkTarget.TargetMethods proxy) {
+    result = proxy.primitiveArgument(21);
+  }
+
+  public void testWithoutProxy() {
+    result = objectUnderTest.callPrimitiveArgument(21);
+  }
+
+  public int getResult() {
+    return result;
+  }
+}
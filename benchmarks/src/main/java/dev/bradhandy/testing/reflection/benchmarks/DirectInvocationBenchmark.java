@@ -0,0 +1,65 @@
+package dev.bradhandy.testing.reflection.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Baseline for {@link ProxyInvocationBenchmark}: the same private methods called directly from
+ * within {@link BenchmarkTarget}.
+ *
+ * @author bhandy
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DirectInvocationBenchmark {
+
+  private final BenchmarkTarget target = new BenchmarkTarget();
+
+  private String stringArgument = "value";
+  private int intArgument = 21;
+  private long longArgument = 21L;
+  private double doubleArgument = 0.5d;
+
+  @Benchmark
+  public int noArguments() {
+    return target.callNoArguments();
+  }
+
+  @Benchmark
+  public String objectArgument() {
+    return target.callObjectArgument(stringArgument);
+  }
+
+  @Benchmark
+  public int primitiveArgument() {
+    return target.callPrimitiveArgument(intArgument);
+  }
+
+  @Benchmark
+  public long primitiveArguments() {
+    return target.callPrimitiveArguments(intArgument, longArgument);
+  }
+
+  @Benchmark
+  public double manyArguments() {
+    return target.callManyArguments(stringArgument, intArgument, longArgument, doubleArgument);
+  }
+
+  @Benchmark
+  public int staticMethod() {
+    return BenchmarkTarget.callStaticMethod(intArgument);
+  }
+}
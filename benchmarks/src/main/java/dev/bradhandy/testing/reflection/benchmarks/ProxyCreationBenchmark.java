@@ -0,0 +1,96 @@
+package dev.bradhandy.testing.reflection.benchmarks;
+
+import dev.bradhandy.testing.reflection.ObjectUnderTestBuilder;
+import dev.bradhandy.testing.reflection.util.ProxyEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of creating proxies with {@link ObjectUnderTestBuilder}, both for the whole
+ * builder chain and for {@code build()} on a builder configured ahead of time.
+ *
+ * @author bhandy
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ProxyCreationBenchmark {
+
+  @Param({"REFLECTION_PROXY", "HIDDEN_CLASS"})
+  private ProxyEngine proxyEngine;
+
+  private final BenchmarkTarget target = new BenchmarkTarget();
+
+  private ObjectUnderTestBuilder usingBuilder;
+  private ObjectUnderTestBuilder suppliedByBuilder;
+  private ObjectUnderTestBuilder staticBuilder;
+
+  @Setup
+  public void createBuilders() {
+    usingBuilder =
+        ObjectUnderTestBuilder.using(target)
+            .proxiedWith(proxyEngine)
+            .conformingTo(BenchmarkTarget.TargetMethods.class);
+    suppliedByBuilder =
+        ObjectUnderTestBuilder.suppliedBy(BenchmarkTarget::new)
+            .proxiedWith(proxyEngine)
+            .conformingTo(BenchmarkTarget.TargetMethods.class);
+    staticBuilder =
+        ObjectUnderTestBuilder.using(BenchmarkTarget.class)
+            .proxiedWith(proxyEngine)
+            .conformingTo(BenchmarkTarget.StaticTargetMethods.class);
+  }
+
+  @Benchmark
+  public Object usingFullChain() {
+    return ObjectUnderTestBuilder.using(target)
+        .proxiedWith(proxyEngine)
+        .conformingTo(BenchmarkTarget.TargetMethods.class)
+        .build();
+  }
+
+  @Benchmark
+  public Object suppliedByFullChain() {
+    return ObjectUnderTestBuilder.suppliedBy(BenchmarkTarget::new)
+        .proxiedWith(proxyEngine)
+        .conformingTo(BenchmarkTarget.TargetMethods.class)
+        .build();
+  }
+
+  @Benchmark
+  public Object staticFullChain() {
+    return ObjectUnderTestBuilder.using(BenchmarkTarget.class)
+        .proxiedWith(proxyEngine)
+        .conformingTo(BenchmarkTarget.StaticTargetMethods.class)
+        .build();
+  }
+
+  @Benchmark
+  public Object usingBuild() {
+    return usingBuilder.build();
+  }
+
+  @Benchmark
+  public Object suppliedByBuild() {
+    return suppliedByBuilder.build();
+  }
+
+  @Benchmark
+  public Object staticBuild() {
+    return staticBuilder.build();
+  }
+}
@@ -0,0 +1,96 @@
+package dev.bradhandy.testing.reflection.benchmarks;
+
+import dev.bradhandy.testing.reflection.ObjectUnderTestBuilder;
+import dev.bradhandy.testing.reflection.util.InvocationStrategy;
+import dev.bradhandy.testing.reflection.util.ProxyEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures calls to private methods through proxies created by {@link ObjectUnderTestBuilder}.
+ * Compare with {@link DirectInvocationBenchmark} for the cost of the proxy.
+ *
+ * <p>The invocation strategy has no effect on {@link ProxyEngine#HIDDEN_CLASS} proxies, which call
+ * the target methods directly.
+ *
+ * @author bhandy
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ProxyInvocationBenchmark {
+
+  @Param({"REFLECTION_PROXY", "HIDDEN_CLASS"})
+  private ProxyEngine proxyEngine;
+
+  @Param({"REFLECTION", "METHOD_HANDLE"})
+  private InvocationStrategy invocationStrategy;
+
+  private BenchmarkTarget.TargetMethods proxy;
+  private BenchmarkTarget.StaticTargetMethods staticProxy;
+
+  private String stringArgument = "value";
+  private int intArgument = 21;
+  private long longArgument = 21L;
+  private double doubleArgument = 0.5d;
+
+  @Setup
+  public void createProxies() {
+    proxy =
+        ObjectUnderTestBuilder.using(new BenchmarkTarget())
+            .invokedWith(invocationStrategy)
+            .proxiedWith(proxyEngine)
+            .conformingTo(BenchmarkTarget.TargetMethods.class)
+            .build();
+    staticProxy =
+        ObjectUnderTestBuilder.using(BenchmarkTarget.class)
+            .invokedWith(invocationStrategy)
+            .proxiedWith(proxyEngine)
+            .conformingTo(BenchmarkTarget.StaticTargetMethods.class)
+            .build();
+  }
+
+  @Benchmark
+  public int noArguments() {
+    return proxy.noArguments();
+  }
+
+  @Benchmark
+  public String objectArgument() {
+    return proxy.objectArgument(stringArgument);
+  }
+
+  @Benchmark
+  public int primitiveArgument() {
+    return proxy.primitiveArgument(intArgument);
+  }
+
+  @Benchmark
+  public long primitiveArguments() {
+    return proxy.primitiveArguments(intArgument, longArgument);
+  }
+
+  @Benchmark
+  public double manyArguments() {
+    return proxy.manyArguments(stringArgument, intArgument, longArgument, doubleArgument);
+  }
+
+  @Benchmark
+  public int staticMethod() {
+    return staticProxy.staticMethod(intArgument);
+  }
+}
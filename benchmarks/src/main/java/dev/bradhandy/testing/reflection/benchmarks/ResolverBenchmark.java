@@ -0,0 +1,113 @@
+package dev.bradhandy.testing.reflection.benchmarks;
+
+import dev.bradhandy.testing.reflection.TestProxy;
+import dev.bradhandy.testing.reflection.extension.ObjectUnderTestProxyResolver;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Parameter;
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ObjectUnderTestProxyResolver#resolveParameter(ParameterContext,
+ * ExtensionContext)} from the annotated parameter to a usable proxy.
+ *
+ * <p>The contexts are minimal stubs answering only the calls made by the resolver. They are
+ * themselves proxies, which adds a small, constant cost to every resolution.
+ *
+ * @author bhandy
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ResolverBenchmark {
+
+  private final ObjectUnderTestProxyResolver resolver = new ObjectUnderTestProxyResolver();
+  private final BenchmarkTestCase testInstance = new BenchmarkTestCase();
+
+  private ParameterContext parameterContext;
+  private ExtensionContext extensionContext;
+
+  @Setup
+  public void createContexts() throws NoSuchMethodException {
+    Parameter parameter =
+        BenchmarkTestCase.class
+            .getMethod("testWithProxy", BenchmarkTarget.TargetMethods.class)
+            .getParameters()[0];
+    Optional<TestProxy> testProxy = Optional.of(parameter.getAnnotation(TestProxy.class));
+
+    parameterContext =
+        stub(
+            ParameterContext.class,
+            methodName -> {
+              switch (methodName) {
+                case "getParameter":
+                  return parameter;
+                case "findAnnotation":
+                  return testProxy;
+                case "isAnnotated":
+                  return true;
+                default:
+                  throw new UnsupportedOperationException(methodName);
+              }
+            });
+    extensionContext =
+        stub(
+            ExtensionContext.class,
+            methodName -> {
+              switch (methodName) {
+                case "getRequiredTestInstance":
+                  return testInstance;
+                case "getRequiredTestClass":
+                  return BenchmarkTestCase.class;
+                default:
+                  throw new UnsupportedOperationException(methodName);
+              }
+            });
+  }
+
+  @Benchmark
+  public boolean supportsParameter() {
+    return resolver.supportsParameter(parameterContext, extensionContext);
+  }
+
+  @Benchmark
+  public Object resolveParameter() {
+    return resolver.resolveParameter(parameterContext, extensionContext);
+  }
+
+  @Benchmark
+  public int resolveParameterAndInvoke() {
+    BenchmarkTarget.TargetMethods proxy =
+        (BenchmarkTarget.TargetMethods)
+            resolver.resolveParameter(parameterContext, extensionContext);
+    return proxy.primitiveArgument(21);
+  }
+
+  private static <T> T stub(Class<T> stubType, StubAnswer stubAnswer) {
+    return stubType.cast(
+        Proxy.newProxyInstance(
+            stubType.getClassLoader(),
+            new Class<?>[] {stubType},
+            (proxy, method, args) -> stubAnswer.answer(method.getName())));
+  }
+
+  private interface StubAnswer {
+    Object answer(String methodName);
+  }
+}
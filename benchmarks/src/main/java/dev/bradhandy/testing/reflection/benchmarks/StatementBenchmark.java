@@ -0,0 +1,58 @@
+package dev.bradhandy.testing.reflection.benchmarks;
+
+import dev.bradhandy.testing.reflection.runner.InvokeMethodWithParametersStatement;
+import org.junit.runners.model.FrameworkMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link InvokeMethodWithParametersStatement#evaluate()} for a test method with a
+ * {@code @TestProxy} parameter, compared to a test method without parameters.
+ *
+ * @author bhandy
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class StatementBenchmark {
+
+  private final BenchmarkTestCase testInstance = new BenchmarkTestCase();
+
+  private FrameworkMethod methodWithProxy;
+  private FrameworkMethod methodWithoutProxy;
+
+  @Setup
+  public void createFrameworkMethods() throws NoSuchMethodException {
+    methodWithProxy =
+        new FrameworkMethod(
+            BenchmarkTestCase.class.getMethod(
+                "testWithProxy", BenchmarkTarget.TargetMethods.class));
+    methodWithoutProxy =
+        new FrameworkMethod(BenchmarkTestCase.class.getMethod("testWithoutProxy"));
+  }
+
+  @Benchmark
+  public int evaluateWithProxy() throws Throwable {
+    new InvokeMethodWithParametersStatement(methodWithProxy, testInstance).evaluate();
+    return testInstance.getResult();
+  }
+
+  @Benchmark
+  public int evaluateWithoutProxy() throws Throwable {
+    new InvokeMethodWithParametersStatement(methodWithoutProxy, testInstance).evaluate();
+    return testInstance.getResult();
+  }
+}
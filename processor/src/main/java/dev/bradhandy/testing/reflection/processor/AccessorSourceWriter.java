@@ -0,0 +1,330 @@
+package dev.bradhandy.testing.reflection.processor;
+
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the source of the accessor for a single proxy interface and target class. The accessor is
+ * generated in the interface's package, and refers to the target class by name only, so the target
+ * class and its methods may be private.
+ *
+ * <p>Generated source cannot call private methods directly, so each target method is looked up
+ * once, when the accessor class is initialized, and held in a {@code static final} MethodHandle
+ * adapted to the exact type of the interface method. The JIT treats those handles as constants and
+ * inlines the target methods into the proxy's methods.
+ *
+ * @author bhandy
+ */
+final class AccessorSourceWriter {
+
+  private static final String INDENT = "  ";
+
+  private final Elements elements;
+  private final Types types;
+  private final TypeElement proxyInterface;
+  private final TypeElement targetClass;
+  private final Map<ExecutableElement, ExecutableElement> matchedMethods;
+  private final String packageName;
+  private final String simpleName;
+
+  AccessorSourceWriter(
+      Elements elements,
+      Types types,
+      TypeElement proxyInterface,
+      TypeElement targetClass,
+      Map<ExecutableElement, ExecutableElement> matchedMethods) {
+    this.elements = elements;
+    this.types = types;
+    this.proxyInterface = proxyInterface;
+    this.targetClass = targetClass;
+    this.matchedMethods = matchedMethods;
+
+    PackageElement interfacePackage = elements.getPackageOf(proxyInterface);
+    this.packageName =
+        interfacePackage.isUnnamed() ? "" : interfacePackage.getQualifiedName().toString();
+
+    // the same interface may expose several classes, so the name includes the target's binary
+    // name, with its package separators replaced.
+    String interfaceName = binaryName(proxyInterface).substring(prefixLength());
+    this.simpleName =
+        interfaceName.replace('$', '_')
+            + "$$"
+            + binaryName(targetClass).replace('.', '_').replace('$', '_')
+            + "$$ProxyAccessor";
+  }
+
+  /**
+   * The accessor is a top level class, so its qualified name is also the binary name registered as
+   * a service.
+   *
+   * @return The qualified name of the generated accessor.
+   */
+  String getQualifiedName() {
+    return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+  }
+
+  /** @return The source of the generated accessor. */
+  String write() {
+    List<ExecutableElement> interfaceMethods = new ArrayList<>(matchedMethods.keySet());
+    String interfaceName = sourceName(proxyInterface.asType());
+
+    StringBuilder source = new StringBuilder();
+    if (!packageName.isEmpty()) {
+      source.append("package ").append(packageName).append(";\n\n");
+    }
+    source
+        .append("@javax.annotation.processing.Generated(\"")
+        .append(ProxyAccessorProcessor.class.getName())
+        .append("\")\n")
+        .append("public final class ")
+        .append(simpleName)
+        .append(" implements ")
+        .append(ProxyAccessorProcessor.PROXY_ACCESSOR)
+        .append(" {\n\n");
+
+    line(source, 1, "private static final java.lang.Class<?> TARGET_CLASS =");
+    line(source, 3, "loadClass(\"" + binaryName(targetClass) + "\");");
+    for (int i = 0; i < interfaceMethods.size(); i++) {
+      writeMethodHandleField(source, i, interfaceMethods.get(i));
+    }
+    source.append('\n');
+
+    line(source, 1, "@java.lang.Override");
+    line(source, 1, "public java.lang.Class<?> getTargetClass() {");
+    line(source, 2, "return TARGET_CLASS;");
+    line(source, 1, "}\n");
+
+    line(source, 1, "@java.lang.Override");
+    line(source, 1, "public java.lang.Class<?> getProxyInterface() {");
+    line(source, 2, "return " + erasedSourceName(proxyInterface.asType()) + ".class;");
+    line(source, 1, "}\n");
+
+    line(source, 1, "@java.lang.Override");
+    line(source, 1, "public java.lang.Object newProxy(java.lang.Object objectUnderTest) {");
+    line(source, 2, "return new AccessorProxy(TARGET_CLASS.cast(objectUnderTest));");
+    line(source, 1, "}\n");
+
+    writeLookupMethods(source);
+    writeProxyClass(source, interfaceName, interfaceMethods);
+    source.append("}\n");
+    return source.toString();
+  }
+
+  private void writeMethodHandleField(
+      StringBuilder source, int index, ExecutableElement interfaceMethod) {
+    ExecutableElement targetMethod = matchedMethods.get(interfaceMethod);
+    TypeElement declaringClass = (TypeElement) targetMethod.getEnclosingElement();
+
+    String parameterClasses =
+        interfaceMethod.getParameters().stream()
+            .map(parameter -> erasedSourceName(parameter.asType()) + ".class")
+            .collect(Collectors.joining(", "));
+    String proxyType =
+        "java.lang.invoke.MethodType.methodType("
+            + erasedSourceName(interfaceMethod.getReturnType())
+            + ".class, java.lang.Object.class"
+            + (parameterClasses.isEmpty() ? "" : ", " + parameterClasses)
+            + ")";
+
+    line(source, 1, "private static final java.lang.invoke.MethodHandle METHOD_" + index + " =");
+    line(source, 3, "findMethod(");
+    line(source, 5, "loadClass(\"" + binaryName(declaringClass) + "\"),");
+    line(source, 5, "\"" + targetMethod.getSimpleName() + "\",");
+    line(source, 5, "new java.lang.Class<?>[] {" + parameterClasses + "},");
+    line(source, 5, proxyType + ");");
+  }
+
+  private void writeLookupMethods(StringBuilder source) {
+    line(source, 1, "private static java.lang.Class<?> loadClass(java.lang.String binaryName) {");
+    line(source, 2, "try {");
+    line(source, 3, "return java.lang.Class.forName(");
+    line(source, 5, "binaryName, false, " + simpleName + ".class.getClassLoader());");
+    line(source, 2, "} catch (java.lang.ClassNotFoundException e) {");
+    line(source, 3, "throw new java.lang.NoClassDefFoundError(e.getMessage());");
+    line(source, 2, "}");
+    line(source, 1, "}\n");
+
+    // the target method is looked up by its exact parameter types, which the processor checked,
+    // and adapted to take the object under test as an Object.
+    line(source, 1, "private static java.lang.invoke.MethodHandle findMethod(");
+    line(source, 3, "java.lang.Class<?> declaringClass,");
+    line(source, 3, "java.lang.String name,");
+    line(source, 3, "java.lang.Class<?>[] parameterTypes,");
+    line(source, 3, "java.lang.invoke.MethodType proxyType) {");
+    line(source, 2, "try {");
+    line(source, 3, "java.lang.reflect.Method method =");
+    line(source, 5, "declaringClass.getDeclaredMethod(name, parameterTypes);");
+    line(source, 3, "java.lang.invoke.MethodHandle methodHandle =");
+    line(source, 5, "java.lang.invoke.MethodHandles.privateLookupIn(");
+    line(source, 9, "declaringClass, java.lang.invoke.MethodHandles.lookup())");
+    line(source, 7, ".unreflect(method);");
+    line(source, 3, "if (java.lang.reflect.Modifier.isStatic(method.getModifiers())) {");
+    line(source, 4, "methodHandle =");
+    line(source, 6, "java.lang.invoke.MethodHandles.dropArguments(");
+    line(source, 8, "methodHandle, 0, java.lang.Object.class);");
+    line(source, 3, "}");
+    line(source, 3, "return methodHandle.asType(proxyType);");
+    line(source, 2, "} catch (java.lang.NoSuchMethodException e) {");
+    line(source, 3, "throw new java.lang.NoSuchMethodError(e.getMessage());");
+    line(source, 2, "} catch (java.lang.IllegalAccessException e) {");
+    line(source, 3, "throw new java.lang.IllegalAccessError(e.getMessage());");
+    line(source, 2, "}");
+    line(source, 1, "}\n");
+  }
+
+  private void writeProxyClass(
+      StringBuilder source, String interfaceName, List<ExecutableElement> interfaceMethods) {
+    line(
+        source, 1, "private static final class AccessorProxy implements " + interfaceName + " {\n");
+    line(source, 2, "private final java.lang.Object objectUnderTest;\n");
+    line(source, 2, "private AccessorProxy(java.lang.Object objectUnderTest) {");
+    line(source, 3, "this.objectUnderTest = objectUnderTest;");
+    line(source, 2, "}");
+
+    for (int i = 0; i < interfaceMethods.size(); i++) {
+      source.append('\n');
+      writeProxyMethod(source, i, interfaceMethods.get(i));
+    }
+
+    // reflection proxies forward these to the object under test as well.
+    source.append('\n');
+    line(source, 2, "@java.lang.Override");
+    line(source, 2, "public boolean equals(java.lang.Object other) {");
+    line(source, 3, "return objectUnderTest.equals(other);");
+    line(source, 2, "}\n");
+    line(source, 2, "@java.lang.Override");
+    line(source, 2, "public int hashCode() {");
+    line(source, 3, "return objectUnderTest.hashCode();");
+    line(source, 2, "}\n");
+    line(source, 2, "@java.lang.Override");
+    line(source, 2, "public java.lang.String toString() {");
+    line(source, 3, "return objectUnderTest.toString();");
+    line(source, 2, "}");
+    line(source, 1, "}");
+  }
+
+  private void writeProxyMethod(
+      StringBuilder source, int index, ExecutableElement interfaceMethod) {
+    List<? extends VariableElement> parameters = interfaceMethod.getParameters();
+    List<String> parameterDeclarations = new ArrayList<>();
+    List<String> arguments = new ArrayList<>();
+    arguments.add("objectUnderTest");
+    for (int i = 0; i < parameters.size(); i++) {
+      parameterDeclarations.add(sourceName(parameters.get(i).asType()) + " argument" + i);
+      arguments.add("argument" + i);
+    }
+
+    List<TypeMirror> declaredExceptions = declaredExceptions(interfaceMethod);
+    TypeMirror returnType = interfaceMethod.getReturnType();
+    String invocation = "METHOD_" + index + ".invokeExact(" + String.join(", ", arguments) + ");";
+
+    line(source, 2, "@java.lang.Override");
+    line(
+        source,
+        2,
+        "public "
+            + sourceName(returnType)
+            + " "
+            + interfaceMethod.getSimpleName()
+            + "("
+            + String.join(", ", parameterDeclarations)
+            + ")"
+            + (interfaceMethod.getThrownTypes().isEmpty()
+                ? ""
+                : " throws "
+                    + interfaceMethod.getThrownTypes().stream()
+                        .map(this::sourceName)
+                        .collect(Collectors.joining(", ")))
+            + " {");
+    line(source, 3, "try {");
+    if (returnType.getKind() == TypeKind.VOID) {
+      line(source, 4, invocation);
+    } else {
+      line(source, 4, "return (" + sourceName(returnType) + ") " + invocation);
+    }
+    line(source, 3, "} catch (java.lang.RuntimeException | java.lang.Error e) {");
+    line(source, 4, "throw e;");
+    boolean throwableDeclared = false;
+    for (TypeMirror declaredException : declaredExceptions) {
+      throwableDeclared |= isThrowable(declaredException);
+      line(source, 3, "} catch (" + sourceName(declaredException) + " e) {");
+      line(source, 4, "throw e;");
+    }
+    if (!throwableDeclared) {
+      line(source, 3, "} catch (java.lang.Throwable e) {");
+      line(source, 4, "throw new java.lang.reflect.UndeclaredThrowableException(e);");
+    }
+    line(source, 3, "}");
+    line(source, 2, "}");
+  }
+
+  // unchecked exceptions are already rethrown, and an exception whose superclass is also declared
+  // would be caught twice, so only the remaining checked exceptions get their own catch clause.
+  private List<TypeMirror> declaredExceptions(ExecutableElement interfaceMethod) {
+    TypeMirror runtimeException = typeOf("java.lang.RuntimeException");
+    TypeMirror error = typeOf("java.lang.Error");
+    List<? extends TypeMirror> thrownTypes = interfaceMethod.getThrownTypes();
+    List<TypeMirror> declaredExceptions = new ArrayList<>();
+    for (TypeMirror thrownType : thrownTypes) {
+      if (types.isSubtype(thrownType, runtimeException) || types.isSubtype(thrownType, error)) {
+        continue;
+      }
+      boolean coveredBySupertype =
+          thrownTypes.stream()
+              .anyMatch(
+                  otherType ->
+                      !types.isSameType(thrownType, otherType)
+                          && types.isSubtype(thrownType, otherType));
+      if (!coveredBySupertype
+          && declaredExceptions.stream().noneMatch(type -> types.isSameType(type, thrownType))) {
+        declaredExceptions.add(thrownType);
+      }
+    }
+
+    // catch clauses for supertypes of RuntimeException or Error must come last.
+    declaredExceptions.sort(
+        (first, second) -> Boolean.compare(isThrowable(first), isThrowable(second)));
+    return declaredExceptions;
+  }
+
+  private boolean isThrowable(TypeMirror type) {
+    return types.isSameType(type, typeOf("java.lang.Throwable"));
+  }
+
+  private TypeMirror typeOf(String qualifiedName) {
+    return elements.getTypeElement(qualifiedName).asType();
+  }
+
+  private String sourceName(TypeMirror type) {
+    return type.toString();
+  }
+
+  private String erasedSourceName(TypeMirror type) {
+    return types.erasure(type).toString();
+  }
+
+  private String binaryName(TypeElement type) {
+    return elements.getBinaryName(type).toString();
+  }
+
+  private int prefixLength() {
+    return packageName.isEmpty() ? 0 : packageName.length() + 1;
+  }
+
+  private static void line(StringBuilder source, int depth, String text) {
+    for (int i = 0; i < depth; i++) {
+      source.append(INDENT);
+    }
+    source.append(text).append('\n');
+  }
+}
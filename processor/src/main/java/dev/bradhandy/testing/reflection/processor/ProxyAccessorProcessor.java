@@ -0,0 +1,509 @@
+package dev.bradhandy.testing.reflection.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Checks proxy interfaces against the classes whose private methods they expose, and generates a
+ * {@code ProxyAccessor} for each pair. The interfaces are found in two places:
+ *
+ * <ul>
+ *   <li>parameters and fields annotated with {@code @TestProxy}, whose target is the type of the
+ *       test class field named by the annotation.
+ *   <li>interfaces annotated with {@code @ProxyTarget}, whose target is the annotation's value.
+ * </ul>
+ *
+ * <p>Every interface method must match a method of the target class, or of its superclasses and
+ * interfaces, with exactly the same parameter types and a compatible return type, the same way
+ * {@code MethodMatching.EXACT} matches them at runtime. Mismatches are reported as compile errors.
+ *
+ * <p>Accessors are only generated when the generated code can refer to the interface and its
+ * method signatures, and when no method relies on {@code @FieldAccess} or {@code
+ * @ConstructorAccess}. Other interfaces keep using reflection at runtime. The generated accessors
+ * are registered in {@code META-INF/services} once processing is over.
+ *
+ * @author bhandy
+ */
+public final class ProxyAccessorProcessor extends AbstractProcessor {
+
+  static final String TEST_PROXY = "dev.bradhandy.testing.reflection.TestProxy";
+  static final String PROXY_TARGET = "dev.bradhandy.testing.reflection.ProxyTarget";
+  static final String PROXY_ACCESSOR = "dev.bradhandy.testing.reflection.util.ProxyAccessor";
+
+  private static final String SERVICE_FILE = "META-INF/services/" + PROXY_ACCESSOR;
+  private static final Set<String> UNSUPPORTED_METHOD_ANNOTATIONS =
+      Set.of(
+          "dev.bradhandy.testing.reflection.FieldAccess",
+          "dev.bradhandy.testing.reflection.ConstructorAccess");
+
+  private final Set<String> processedPairs = new HashSet<>();
+  private final Set<String> generatedAccessors = new LinkedHashSet<>();
+
+  private Elements elements;
+  private Types types;
+  private Messager messager;
+
+  @Override
+  public synchronized void init(ProcessingEnvironment processingEnv) {
+    super.init(processingEnv);
+    this.elements = processingEnv.getElementUtils();
+    this.types = processingEnv.getTypeUtils();
+    this.messager = processingEnv.getMessager();
+  }
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    return Set.of(TEST_PROXY, PROXY_TARGET);
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    if (roundEnv.processingOver()) {
+      writeServiceFile();
+      return false;
+    }
+
+    for (TypeElement annotation : annotations) {
+      String annotationName = annotation.getQualifiedName().toString();
+      for (Element annotatedElement : roundEnv.getElementsAnnotatedWith(annotation)) {
+        if (TEST_PROXY.equals(annotationName)) {
+          processTestProxy((VariableElement) annotatedElement);
+        } else if (PROXY_TARGET.equals(annotationName)) {
+          processMarkedInterface((TypeElement) annotatedElement);
+        }
+      }
+    }
+
+    // the annotations are left unclaimed, since they are read again at runtime.
+    return false;
+  }
+
+  private void processTestProxy(VariableElement proxyElement) {
+    AnnotationMirror testProxy = annotationMirror(proxyElement, TEST_PROXY);
+    String fieldPath = (String) annotationValue(testProxy);
+    boolean proxyField = proxyElement.getKind() == ElementKind.FIELD;
+    TypeElement testClass =
+        (TypeElement)
+            (proxyField
+                ? proxyElement.getEnclosingElement()
+                : proxyElement.getEnclosingElement().getEnclosingElement());
+
+    // the runner and the extensions only read the first field from the test class itself. the
+    // rest of a dotted path is read from the declared type of each field, or its superclasses.
+    String[] fieldNames = fieldPath.split("\\.", -1);
+    VariableElement objectUnderTestField =
+        findField(testClass.getEnclosedElements(), fieldNames[0]);
+    if (objectUnderTestField == null) {
+      messager.printMessage(
+          Diagnostic.Kind.ERROR,
+          String.format("%s declares no field named \"%s\".", testClass, fieldNames[0]),
+          proxyElement,
+          testProxy);
+      return;
+    }
+    for (int i = 1; i < fieldNames.length; i++) {
+      TypeElement fieldType = asTypeElement(types.erasure(objectUnderTestField.asType()));
+      VariableElement nextField =
+          (fieldType != null)
+              ? findField(elements.getAllMembers(fieldType), fieldNames[i])
+              : null;
+      if (nextField == null) {
+        messager.printMessage(
+            Diagnostic.Kind.ERROR,
+            String.format(
+                "%s of %s is not declared by %s.",
+                fieldNames[i], fieldPath, types.erasure(objectUnderTestField.asType())),
+            proxyElement,
+            testProxy);
+        return;
+      }
+      objectUnderTestField = nextField;
+    }
+
+    TypeElement proxyInterface = asTypeElement(proxyElement.asType());
+    if (proxyInterface == null || proxyInterface.getKind() != ElementKind.INTERFACE) {
+      messager.printMessage(
+          Diagnostic.Kind.ERROR,
+          proxyField
+              ? String.format("@TestProxy field %s must be an interface.", proxyElement)
+              : "@TestProxy parameter type must be an interface.",
+          proxyElement);
+      return;
+    }
+
+    // the accessor is found by the exact class of the object under test, which is taken to be the
+    // field's type whenever that type can be instantiated.
+    TypeElement targetClass = asTypeElement(objectUnderTestField.asType());
+    if (targetClass == null
+        || targetClass.getKind() != ElementKind.CLASS
+        || targetClass.getModifiers().contains(Modifier.ABSTRACT)) {
+      return;
+    }
+
+    processPair(proxyInterface, targetClass, proxyElement);
+  }
+
+  private void processMarkedInterface(TypeElement proxyInterface) {
+    AnnotationMirror proxyTarget = annotationMirror(proxyInterface, PROXY_TARGET);
+    if (proxyInterface.getKind() != ElementKind.INTERFACE) {
+      messager.printMessage(
+          Diagnostic.Kind.ERROR,
+          "@ProxyTarget can only be applied to interfaces.",
+          proxyInterface,
+          proxyTarget);
+      return;
+    }
+
+    TypeElement targetClass = asTypeElement((TypeMirror) annotationValue(proxyTarget));
+    if (targetClass == null || targetClass.getKind() != ElementKind.CLASS) {
+      messager.printMessage(
+          Diagnostic.Kind.ERROR,
+          "@ProxyTarget must name a class.",
+          proxyInterface,
+          proxyTarget);
+      return;
+    }
+
+    processPair(proxyInterface, targetClass, proxyInterface);
+  }
+
+  private void processPair(
+      TypeElement proxyInterface, TypeElement targetClass, Element reportedElement) {
+    String pairKey = proxyInterface.getQualifiedName() + "->" + targetClass.getQualifiedName();
+    if (!processedPairs.add(pairKey)) {
+      return;
+    }
+
+    Map<ExecutableElement, ExecutableElement> matchedMethods = new LinkedHashMap<>();
+    boolean generatable = proxyInterface.getTypeParameters().isEmpty();
+    for (ExecutableElement interfaceMethod : interfaceMethods(proxyInterface)) {
+      if (hasUnsupportedAnnotation(interfaceMethod)) {
+        generatable = false;
+        continue;
+      }
+
+      ExecutableElement targetMethod = findTargetMethod(targetClass, interfaceMethod);
+      if (targetMethod == null) {
+        messager.printMessage(
+            Diagnostic.Kind.ERROR,
+            String.format(
+                "%s has no method matching %s of %s.",
+                targetClass.getQualifiedName(),
+                describe(interfaceMethod),
+                proxyInterface.getQualifiedName()),
+            reportedElement);
+        generatable = false;
+      } else if (!returnTypeCompatible(interfaceMethod, targetMethod)) {
+        messager.printMessage(
+            Diagnostic.Kind.ERROR,
+            String.format(
+                "%s of %s cannot return %s, the return type of %s.%s.",
+                describe(interfaceMethod),
+                proxyInterface.getQualifiedName(),
+                targetMethod.getReturnType(),
+                targetClass.getQualifiedName(),
+                describe(targetMethod)),
+            reportedElement);
+        generatable = false;
+      } else {
+        generatable &= isGeneratable(interfaceMethod);
+        matchedMethods.put(interfaceMethod, targetMethod);
+      }
+    }
+
+    if (generatable && isAccessible(proxyInterface)) {
+      writeAccessor(proxyInterface, targetClass, matchedMethods, reportedElement);
+    }
+  }
+
+  private static VariableElement findField(List<? extends Element> members, String fieldName) {
+    return ElementFilter.fieldsIn(members).stream()
+        .filter(field -> field.getSimpleName().contentEquals(fieldName))
+        .findFirst()
+        .orElse(null);
+  }
+
+  private List<ExecutableElement> interfaceMethods(TypeElement proxyInterface) {
+
+    // the same method may be inherited through more than one interface. it is only implemented
+    // once, keyed by the name and the erased parameter types.
+    Map<String, ExecutableElement> uniqueMethods = new LinkedHashMap<>();
+    for (ExecutableElement method :
+        ElementFilter.methodsIn(elements.getAllMembers(proxyInterface))) {
+      if (method.getEnclosingElement().getKind() != ElementKind.INTERFACE
+          || method.getModifiers().contains(Modifier.STATIC)
+          || method.getModifiers().contains(Modifier.PRIVATE)) {
+        continue;
+      }
+      uniqueMethods.putIfAbsent(erasedSignature(method), method);
+    }
+    return new ArrayList<>(uniqueMethods.values());
+  }
+
+  private ExecutableElement findTargetMethod(
+      TypeElement targetClass, ExecutableElement interfaceMethod) {
+    String signature = erasedSignature(interfaceMethod);
+
+    // the nearest class declaring the method wins, followed by the interfaces of every class.
+    List<TypeElement> interfaces = new ArrayList<>();
+    for (TypeElement type = targetClass; type != null; type = superclassOf(type)) {
+      if (type.getQualifiedName().contentEquals("java.lang.Object")) {
+        break;
+      }
+      ExecutableElement declaredMethod = findDeclaredMethod(type, signature, false);
+      if (declaredMethod != null) {
+        return declaredMethod;
+      }
+      interfaces.addAll(directInterfaces(type));
+    }
+
+    Set<TypeElement> visitedInterfaces = new HashSet<>();
+    Deque<TypeElement> pendingInterfaces = new ArrayDeque<>(interfaces);
+    while (!pendingInterfaces.isEmpty()) {
+      TypeElement interfaceType = pendingInterfaces.removeFirst();
+      if (!visitedInterfaces.add(interfaceType)) {
+        continue;
+      }
+      ExecutableElement declaredMethod = findDeclaredMethod(interfaceType, signature, true);
+      if (declaredMethod != null) {
+        return declaredMethod;
+      }
+      pendingInterfaces.addAll(directInterfaces(interfaceType));
+    }
+    return null;
+  }
+
+  private ExecutableElement findDeclaredMethod(
+      TypeElement type, String signature, boolean interfaceType) {
+    for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+      Set<Modifier> modifiers = method.getModifiers();
+      if (modifiers.contains(Modifier.ABSTRACT)
+          || (interfaceType && modifiers.contains(Modifier.STATIC))) {
+        continue;
+      }
+      if (erasedSignature(method).equals(signature)) {
+        return method;
+      }
+    }
+    return null;
+  }
+
+  private TypeElement superclassOf(TypeElement type) {
+    return asTypeElement(type.getSuperclass());
+  }
+
+  private List<TypeElement> directInterfaces(TypeElement type) {
+    return type.getInterfaces().stream()
+        .map(this::asTypeElement)
+        .filter(interfaceType -> interfaceType != null)
+        .collect(Collectors.toList());
+  }
+
+  // like the runtime bindings, a void interface method discards any result, and other results
+  // only have to be assignable once boxed.
+  private boolean returnTypeCompatible(
+      ExecutableElement interfaceMethod, ExecutableElement targetMethod) {
+    TypeMirror interfaceReturnType = interfaceMethod.getReturnType();
+    if (interfaceReturnType.getKind() == TypeKind.VOID) {
+      return true;
+    }
+
+    TypeMirror targetReturnType = targetMethod.getReturnType();
+    if (targetReturnType.getKind() == TypeKind.VOID) {
+      return false;
+    }
+    return types.isAssignable(
+        types.erasure(boxed(targetReturnType)), types.erasure(boxed(interfaceReturnType)));
+  }
+
+  private TypeMirror boxed(TypeMirror type) {
+    return type.getKind().isPrimitive()
+        ? types.boxedClass(types.getPrimitiveType(type.getKind())).asType()
+        : type;
+  }
+
+  private boolean hasUnsupportedAnnotation(ExecutableElement interfaceMethod) {
+    return interfaceMethod.getAnnotationMirrors().stream()
+        .map(mirror -> ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName())
+        .anyMatch(name -> UNSUPPORTED_METHOD_ANNOTATIONS.contains(name.toString()));
+  }
+
+  private boolean isGeneratable(ExecutableElement interfaceMethod) {
+    if (!interfaceMethod.getTypeParameters().isEmpty()) {
+      return false;
+    }
+    List<TypeMirror> signatureTypes = new ArrayList<>();
+    signatureTypes.add(interfaceMethod.getReturnType());
+    interfaceMethod.getParameters().forEach(parameter -> signatureTypes.add(parameter.asType()));
+    signatureTypes.addAll(interfaceMethod.getThrownTypes());
+    return signatureTypes.stream().allMatch(this::isAccessible);
+  }
+
+  private boolean isAccessible(TypeMirror type) {
+    TypeMirror erasedType = types.erasure(type);
+    if (erasedType.getKind() == TypeKind.ARRAY) {
+      return isAccessible(((ArrayType) erasedType).getComponentType());
+    }
+    if (erasedType.getKind() != TypeKind.DECLARED) {
+      return erasedType.getKind().isPrimitive() || erasedType.getKind() == TypeKind.VOID;
+    }
+    return isAccessible(asTypeElement(erasedType));
+  }
+
+  // the accessor is generated in the interface's package, so nothing on the way to the type may be
+  // private.
+  private boolean isAccessible(TypeElement type) {
+    for (Element element = type;
+        element.getKind() != ElementKind.PACKAGE;
+        element = element.getEnclosingElement()) {
+      if (element.getModifiers().contains(Modifier.PRIVATE)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void writeAccessor(
+      TypeElement proxyInterface,
+      TypeElement targetClass,
+      Map<ExecutableElement, ExecutableElement> matchedMethods,
+      Element reportedElement) {
+    AccessorSourceWriter sourceWriter =
+        new AccessorSourceWriter(elements, types, proxyInterface, targetClass, matchedMethods);
+    try (Writer sourceFileWriter =
+        processingEnv
+            .getFiler()
+            .createSourceFile(sourceWriter.getQualifiedName(), proxyInterface, reportedElement)
+            .openWriter()) {
+      sourceFileWriter.write(sourceWriter.write());
+      generatedAccessors.add(sourceWriter.getQualifiedName());
+    } catch (IOException e) {
+      messager.printMessage(
+          Diagnostic.Kind.WARNING,
+          String.format(
+              "Unable to generate %s, falling back to reflection: %s",
+              sourceWriter.getQualifiedName(), e.getMessage()),
+          reportedElement);
+    }
+  }
+
+  private void writeServiceFile() {
+    if (generatedAccessors.isEmpty()) {
+      return;
+    }
+
+    // accessors registered by an earlier, incremental compilation are kept.
+    Set<String> registeredAccessors = new LinkedHashSet<>();
+    try {
+      FileObject existingFile =
+          processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+      try (BufferedReader reader =
+          new BufferedReader(
+              new InputStreamReader(existingFile.openInputStream(), StandardCharsets.UTF_8))) {
+        reader.lines().map(String::trim).filter(line -> !line.isEmpty()).forEach(
+            registeredAccessors::add);
+      }
+    } catch (IOException | IllegalArgumentException e) {
+      // there is no earlier registration.
+    }
+    registeredAccessors.addAll(generatedAccessors);
+
+    try {
+      FileObject serviceFile =
+          processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+      try (Writer serviceWriter = serviceFile.openWriter()) {
+        for (String registeredAccessor : registeredAccessors) {
+          serviceWriter.write(registeredAccessor);
+          serviceWriter.write(System.lineSeparator());
+        }
+      }
+    } catch (IOException e) {
+      messager.printMessage(
+          Diagnostic.Kind.ERROR,
+          String.format("Unable to register the generated accessors: %s", e.getMessage()));
+    }
+  }
+
+  private String erasedSignature(ExecutableElement method) {
+    return method.getSimpleName()
+        + method.getParameters().stream()
+            .map(parameter -> types.erasure(parameter.asType()).toString())
+            .collect(Collectors.joining(",", "(", ")"));
+  }
+
+  private String describe(ExecutableElement method) {
+    return method.getSimpleName()
+        + method.getParameters().stream()
+            .map(parameter -> parameter.asType().toString())
+            .collect(Collectors.joining(", ", "(", ")"));
+  }
+
+  private TypeElement asTypeElement(TypeMirror type) {
+    if (type == null || type.getKind() != TypeKind.DECLARED) {
+      return null;
+    }
+    return (TypeElement) ((DeclaredType) type).asElement();
+  }
+
+  private static AnnotationMirror annotationMirror(Element element, String annotationName) {
+    for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+      TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+      if (annotationType.getQualifiedName().contentEquals(annotationName)) {
+        return mirror;
+      }
+    }
+    throw new IllegalStateException(
+        String.format("%s is not annotated with @%s.", element, annotationName));
+  }
+
+  private static Object annotationValue(AnnotationMirror mirror) {
+    for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value :
+        mirror.getElementValues().entrySet()) {
+      if (value.getKey().getSimpleName().contentEquals("value")) {
+        return value.getValue().getValue();
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,337 @@
+package dev.bradhandy.testing.reflection.processor;
+
+import dev.bradhandy.testing.reflection.ObjectUnderTestBuilder;
+import dev.bradhandy.testing.reflection.TestProxy;
+import dev.bradhandy.testing.reflection.util.ProxyEngine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProxyAccessorProcessorTest {
+
+  private static final String CALCULATOR =
+      "package sample;\n"
+          + "public class Calculator extends BaseCalculator {\n"
+          + "  private int total;\n"
+          + "  private int add(int amount) { total += amount; return total; }\n"
+          + "  private static long square(long value) { return value * value; }\n"
+          + "  private String describe(String prefix) throws java.io.IOException {\n"
+          + "    if (prefix == null) { throw new java.io.IOException(\"no prefix\"); }\n"
+          + "    return prefix + total;\n"
+          + "  }\n"
+          + "}\n";
+
+  private static final String BASE_CALCULATOR =
+      "package sample;\n"
+          + "class BaseCalculator {\n"
+          + "  private Integer origin() { return 7; }\n"
+          + "}\n";
+
+  @TempDir Path workingDirectory;
+
+  @Test
+  void proxyTargetInterfaceUsesGeneratedAccessor() throws Exception {
+    CompilationResult result =
+        compile(
+            source("sample/Calculator.java", CALCULATOR),
+            source("sample/BaseCalculator.java", BASE_CALCULATOR),
+            source(
+                "sample/CalculatorMethods.java",
+                "package sample;\n"
+                    + "@dev.bradhandy.testing.reflection.ProxyTarget(Calculator.class)\n"
+                    + "public interface CalculatorMethods {\n"
+                    + "  int add(int amount);\n"
+                    + "  long square(long value);\n"
+                    + "  Object describe(String prefix) throws java.io.IOException;\n"
+                    + "  Number origin();\n"
+                    + "}\n"));
+
+    assertThat(result.success).as(result.diagnostics.toString()).isTrue();
+    assertThat(result.serviceEntries())
+        .containsExactly("sample.CalculatorMethods$$sample_Calculator$$ProxyAccessor");
+
+    try (URLClassLoader classLoader = result.classLoader()) {
+      Class<?> calculatorClass = classLoader.loadClass("sample.Calculator");
+      Class<?> calculatorMethods = classLoader.loadClass("sample.CalculatorMethods");
+      Object proxy =
+          ObjectUnderTestBuilder.using(calculatorClass.getDeclaredConstructor().newInstance())
+              .proxiedWith(ProxyEngine.GENERATED_ACCESSOR)
+              .conformingTo(calculatorMethods)
+              .build();
+
+      assertThat(proxy.getClass().getName())
+          .startsWith("sample.CalculatorMethods$$sample_Calculator$$ProxyAccessor");
+      assertThat(invoke(proxy, "add", int.class, 3)).isEqualTo(3);
+      assertThat(invoke(proxy, "add", int.class, 4)).isEqualTo(7);
+      assertThat(invoke(proxy, "square", long.class, 5L)).isEqualTo(25L);
+      assertThat(invoke(proxy, "describe", String.class, "total=")).isEqualTo("total=7");
+      assertThat(invoke(proxy, "origin")).isEqualTo(7);
+    }
+  }
+
+  @Test
+  void testProxyParameterIsCheckedAgainstField() throws Exception {
+    CompilationResult result =
+        compile(
+            source("sample/Calculator.java", CALCULATOR),
+            source("sample/BaseCalculator.java", BASE_CALCULATOR),
+            source(
+                "sample/CalculatorTest.java",
+                "package sample;\n"
+                    + "import dev.bradhandy.testing.reflection.TestProxy;\n"
+                    + "public class CalculatorTest {\n"
+                    + "  private Calculator calculator = new Calculator();\n"
+                    + "  public void adds(@TestProxy(\"calculator\") Adder adder) {}\n"
+                    + "  public interface Adder {\n"
+                    + "    int add(int amount);\n"
+                    + "  }\n"
+                    + "}\n"));
+
+    assertThat(result.success).as(result.diagnostics.toString()).isTrue();
+    assertThat(result.serviceEntries())
+        .containsExactly("sample.CalculatorTest_Adder$$sample_Calculator$$ProxyAccessor");
+  }
+
+  @Test
+  void testProxyFieldIsCheckedAgainstField() throws Exception {
+    CompilationResult result =
+        compile(
+            source("sample/Calculator.java", CALCULATOR),
+            source("sample/BaseCalculator.java", BASE_CALCULATOR),
+            source(
+                "sample/CalculatorTest.java",
+                "package sample;\n"
+                    + "import dev.bradhandy.testing.reflection.TestProxy;\n"
+                    + "public class CalculatorTest {\n"
+                    + "  private Calculator calculator = new Calculator();\n"
+                    + "  @TestProxy(\"calculator\") private Squarer squarer;\n"
+                    + "  public interface Squarer {\n"
+                    + "    long square(long value);\n"
+                    + "  }\n"
+                    + "}\n"));
+
+    assertThat(result.success).as(result.diagnostics.toString()).isTrue();
+    assertThat(result.serviceEntries())
+        .containsExactly("sample.CalculatorTest_Squarer$$sample_Calculator$$ProxyAccessor");
+  }
+
+  @Test
+  void testProxyPathIsFollowedToObjectUnderTest() throws Exception {
+    CompilationResult result =
+        compile(
+            source("sample/Calculator.java", CALCULATOR),
+            source("sample/BaseCalculator.java", BASE_CALCULATOR),
+            source(
+                "sample/CalculatorTest.java",
+                "package sample;\n"
+                    + "import dev.bradhandy.testing.reflection.TestProxy;\n"
+                    + "public class CalculatorTest {\n"
+                    + "  private Fixture fixture = new Fixture();\n"
+                    + "  public void adds(@TestProxy(\"fixture.calculator\") Adder adder) {}\n"
+                    + "  public void missing(@TestProxy(\"fixture.missing\") Adder adder) {}\n"
+                    + "  static class Fixture {\n"
+                    + "    private Calculator calculator = new Calculator();\n"
+                    + "  }\n"
+                    + "  public interface Adder {\n"
+                    + "    int add(int amount);\n"
+                    + "  }\n"
+                    + "}\n"));
+
+    assertThat(result.success).isFalse();
+    assertThat(result.errors())
+        .containsExactly(
+            "missing of fixture.missing is not declared by sample.CalculatorTest.Fixture.");
+  }
+
+  @Test
+  void missingMethodIsReported() throws Exception {
+    CompilationResult result =
+        compile(
+            source("sample/Calculator.java", CALCULATOR),
+            source("sample/BaseCalculator.java", BASE_CALCULATOR),
+            source(
+                "sample/CalculatorMethods.java",
+                "package sample;\n"
+                    + "@dev.bradhandy.testing.reflection.ProxyTarget(Calculator.class)\n"
+                    + "public interface CalculatorMethods {\n"
+                    + "  int add(long amount);\n"
+                    + "  void subtract(int amount);\n"
+                    + "}\n"));
+
+    assertThat(result.success).isFalse();
+    assertThat(result.errors())
+        .containsExactlyInAnyOrder(
+            "sample.Calculator has no method matching add(long) of sample.CalculatorMethods.",
+            "sample.Calculator has no method matching subtract(int) of sample.CalculatorMethods.");
+  }
+
+  @Test
+  void incompatibleReturnTypeIsReported() throws Exception {
+    CompilationResult result =
+        compile(
+            source("sample/Calculator.java", CALCULATOR),
+            source("sample/BaseCalculator.java", BASE_CALCULATOR),
+            source(
+                "sample/CalculatorTest.java",
+                "package sample;\n"
+                    + "import dev.bradhandy.testing.reflection.TestProxy;\n"
+                    + "public class CalculatorTest {\n"
+                    + "  private Calculator calculator = new Calculator();\n"
+                    + "  public void adds(@TestProxy(\"calculator\") Adder adder) {}\n"
+                    + "  public interface Adder {\n"
+                    + "    String add(int amount);\n"
+                    + "  }\n"
+                    + "}\n"));
+
+    assertThat(result.success).isFalse();
+    assertThat(result.errors())
+        .containsExactly(
+            "add(int) of sample.CalculatorTest.Adder cannot return int, the return type of"
+                + " sample.Calculator.add(int).");
+  }
+
+  @Test
+  void privateInterfaceFallsBackToReflection() throws Exception {
+    CompilationResult result =
+        compile(
+            source("sample/Calculator.java", CALCULATOR),
+            source("sample/BaseCalculator.java", BASE_CALCULATOR),
+            source(
+                "sample/CalculatorTest.java",
+                "package sample;\n"
+                    + "import dev.bradhandy.testing.reflection.TestProxy;\n"
+                    + "public class CalculatorTest {\n"
+                    + "  private Calculator calculator = new Calculator();\n"
+                    + "  public void adds(@TestProxy(\"calculator\") Adder adder) {}\n"
+                    + "  private interface Adder {\n"
+                    + "    int add(int amount);\n"
+                    + "  }\n"
+                    + "}\n"));
+
+    assertThat(result.success).as(result.diagnostics.toString()).isTrue();
+    assertThat(result.serviceEntries()).isEmpty();
+  }
+
+  private static Object invoke(Object proxy, String methodName, Object... typesAndArguments)
+      throws Exception {
+    Class<?>[] parameterTypes = new Class<?>[typesAndArguments.length / 2];
+    Object[] arguments = new Object[typesAndArguments.length / 2];
+    for (int i = 0; i < parameterTypes.length; i++) {
+      parameterTypes[i] = (Class<?>) typesAndArguments[i * 2];
+      arguments[i] = typesAndArguments[i * 2 + 1];
+    }
+
+    // the proxy class is private, so its methods are called through the public interface.
+    Class<?> proxyInterface = proxy.getClass().getInterfaces()[0];
+    Method method = proxyInterface.getMethod(methodName, parameterTypes);
+    return method.invoke(proxy, arguments);
+  }
+
+  private Path source(String path, String content) throws IOException {
+    Path sourceFile = workingDirectory.resolve("src").resolve(path);
+    Files.createDirectories(sourceFile.getParent());
+    Files.write(sourceFile, content.getBytes(StandardCharsets.UTF_8));
+    return sourceFile;
+  }
+
+  private CompilationResult compile(Path... sourceFiles) throws Exception {
+    Path classesDirectory = Files.createDirectories(workingDirectory.resolve("classes"));
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+    // the sources only need the annotations, which are found next to TestProxy.
+    String classPath =
+        Paths.get(TestProxy.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+            .toString();
+    try (StandardJavaFileManager fileManager =
+        compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+      JavaCompiler.CompilationTask task =
+          compiler.getTask(
+              null,
+              fileManager,
+              diagnostics,
+              Arrays.asList(
+                  "-classpath", classPath, "-d", classesDirectory.toString(), "-proc:only"),
+              null,
+              fileManager.getJavaFileObjects(sourceFiles));
+      task.setProcessors(List.of(new ProxyAccessorProcessor()));
+      boolean processed = task.call();
+
+      // -proc:only reports processor errors without compiling, so the generated sources are
+      // compiled along with the originals afterwards.
+      if (processed) {
+        List<Path> allSources = new ArrayList<>(Arrays.asList(sourceFiles));
+        try (Stream<Path> generated = Files.walk(classesDirectory)) {
+          generated.filter(file -> file.toString().endsWith(".java")).forEach(allSources::add);
+        }
+        processed =
+            compiler
+                .getTask(
+                    null,
+                    fileManager,
+                    diagnostics,
+                    Arrays.asList(
+                        "-classpath", classPath, "-d", classesDirectory.toString(), "-proc:none"),
+                    null,
+                    fileManager.getJavaFileObjects(allSources.toArray(new Path[0])))
+                .call();
+      }
+      return new CompilationResult(processed, diagnostics, classesDirectory);
+    }
+  }
+
+  private static final class CompilationResult {
+
+    private final boolean success;
+    private final List<Diagnostic<? extends JavaFileObject>> diagnostics;
+    private final Path classesDirectory;
+
+    private CompilationResult(
+        boolean success, DiagnosticCollector<JavaFileObject> diagnostics, Path classesDirectory) {
+      this.success = success;
+      this.diagnostics = diagnostics.getDiagnostics();
+      this.classesDirectory = classesDirectory;
+    }
+
+    private List<String> errors() {
+      return diagnostics.stream()
+          .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+          .map(diagnostic -> diagnostic.getMessage(null))
+          .collect(Collectors.toList());
+    }
+
+    private List<String> serviceEntries() throws IOException {
+      Path serviceFile =
+          classesDirectory.resolve(
+              "META-INF/services/dev.bradhandy.testing.reflection.util.ProxyAccessor");
+      return Files.exists(serviceFile) ? Files.readAllLines(serviceFile) : List.of();
+    }
+
+    private URLClassLoader classLoader() throws IOException {
+      return new URLClassLoader(
+          new URL[] {classesDirectory.toUri().toURL()},
+          ProxyAccessorProcessorTest.class.getClassLoader());
+    }
+  }
+}
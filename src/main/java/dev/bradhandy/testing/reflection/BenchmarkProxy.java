@@ -0,0 +1,49 @@
+package dev.bradhandy.testing.reflection;
+
+import dev.bradhandy.testing.reflection.extension.ProxyBenchmarkExtension;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotates a JUnit 5 test method to run its body as a microbenchmark, typically calling a private
+ * method through a {@link TestProxy} parameter. The body is run {@link #operations()} times per
+ * iteration, first for the {@link #warmup()} iterations, then for the measured {@link
+ * #iterations()}. A {@link Blackhole} parameter consumes the values returned by the calls, so the
+ * JIT cannot remove them.
+ *
+ * <p>The throughput, time and allocation per operation are published as report entries of the
+ * test. The test fails when a budget is configured and exceeded. See {@link
+ * ProxyBenchmarkExtension}.
+ *
+ * @author bhandy
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@ExtendWith(ProxyBenchmarkExtension.class)
+public @interface BenchmarkProxy {
+
+  /** @return The number of iterations run before measuring, to let the JIT compile the calls. */
+  int warmup() default 5;
+
+  /** @return The number of measured iterations. */
+  int iterations() default 10;
+
+  /** @return The number of times the test body is run in each iteration. */
+  int operations() default 10_000;
+
+  /**
+   * @return The most nanoseconds each operation may take on average. Zero or less disables the
+   *     budget.
+   */
+  double maxNanosPerOperation() default 0;
+
+  /**
+   * @return The most bytes each operation may allocate on average. Less than zero disables the
+   *     budget, and zero requires the calls not to allocate at all.
+   */
+  long maxBytesPerOperation() default -1;
+}
@@ -0,0 +1,70 @@
+package dev.bradhandy.testing.reflection;
+
+/**
+ * Consumes the values computed by a {@link BenchmarkProxy} test, so the JIT cannot prove they are
+ * unused and remove the calls producing them. A blackhole is resolved as a parameter of the
+ * benchmarked test method, and is only used by the thread running the test.
+ *
+ * <p>Primitive values are compared with two volatile fields which never hold the same value, so the
+ * comparison can never succeed but must still be made. References are only stored once in a while,
+ * chosen by a cheap pseudo-random sequence, so consuming them rarely writes to memory.
+ *
+ * @author bhandy
+ */
+public final class Blackhole {
+
+  private volatile int int1 = 1;
+  private volatile int int2 = 2;
+  private volatile long long1 = 1L;
+  private volatile long long2 = 2L;
+  private volatile double double1 = 1.0;
+  private volatile double double2 = 2.0;
+  private volatile Object sink;
+
+  private int sequence = (int) System.nanoTime();
+  private int sequenceMask = 1;
+
+  /** @param value The value to consume. */
+  public void consume(int value) {
+    if (value == int1 & value == int2) {
+      throw impossible(value);
+    }
+  }
+
+  /** @param value The value to consume. */
+  public void consume(long value) {
+    if (value == long1 & value == long2) {
+      throw impossible(value);
+    }
+  }
+
+  /** @param value The value to consume. */
+  public void consume(double value) {
+    if (value == double1 & value == double2) {
+      throw impossible(value);
+    }
+  }
+
+  /** @param value The value to consume. */
+  public void consume(boolean value) {
+    consume(value ? 1 : 0);
+  }
+
+  /** @param value The value to consume. */
+  public void consume(Object value) {
+    int nextSequence = sequence * 1664525 + 1013904223;
+    sequence = nextSequence;
+
+    // the store becomes rarer every time, so the reference escapes without costing a write per
+    // call.
+    if ((nextSequence & sequenceMask) == 0) {
+      sink = value;
+      sequenceMask = (sequenceMask << 1) + 1;
+    }
+  }
+
+  private static IllegalStateException impossible(Object value) {
+    return new IllegalStateException(
+        String.format("The blackhole matched %s against two different values.", value));
+  }
+}
@@ -0,0 +1,30 @@
+package dev.bradhandy.testing.reflection;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotates an interface method to create a new instance of the object under test's class through
+ * the constructor with the same parameter types, even if the constructor is private. The method
+ * must return the class of the object under test, or any of its supertypes such as {@code Object}
+ * when the class itself is not accessible to the test.
+ *
+ * <p>Example:
+ *
+ * <pre>
+ *   interface SomeClassFactory {
+ *     &#64;ConstructorAccess
+ *     Object newSomeClass(String value);
+ *   }
+ *
+ *   SomeClassFactory factory =
+ *       ObjectUnderTestBuilder.using(SomeClass.class).conformingTo(SomeClassFactory.class).build();
+ * </pre>
+ *
+ * @author bhandy
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ConstructorAccess {}
@@ -0,0 +1,52 @@
+package dev.bradhandy.testing.reflection;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotates an interface method to read or write the named field of the object under test instead
+ * of calling a method. A method without parameters reads the field, and a method with a single
+ * parameter writes it. When the object under test is a Class, the field must be static.
+ *
+ * <p>Example:
+ *
+ * <pre>
+ *   interface SomeClassState {
+ *     &#64;FieldAccess("cache")
+ *     Map&lt;String, String&gt; cache();
+ *
+ *     &#64;FieldAccess(value = "running", mode = FieldAccess.Mode.VOLATILE)
+ *     void running(boolean running);
+ *   }
+ * </pre>
+ *
+ * @author bhandy
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface FieldAccess {
+
+  /** @return The name of the field declared by the object under test or one of its superclasses. */
+  String value();
+
+  /** @return The memory ordering used to read or write the field. */
+  Mode mode() default Mode.PLAIN;
+
+  /** Memory ordering of a field access, mirroring the access modes of a VarHandle. */
+  enum Mode {
+
+    /** Reads and writes the field as if it were accessed directly by the object under test. */
+    PLAIN,
+
+    /** Reads and writes the field with opaque ordering. */
+    OPAQUE,
+
+    /** Reads the field with acquire ordering and writes it with release ordering. */
+    ACQUIRE_RELEASE,
+
+    /** Reads and writes the field as if it were declared volatile. */
+    VOLATILE
+  }
+}
@@ -0,0 +1,258 @@
+package dev.bradhandy.testing.reflection;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Controls how often {@link ObjectUnderTestBuilder#build()} creates a new object under test, and
+ * with it a new proxy, instead of returning one it built before.
+ *
+ * <ul>
+ *   <li>{@link #perBuild()} supplies a new object on every build. This is the default.
+ *   <li>{@link #singleton()} supplies one object, on the first build, and returns it from every
+ *       build afterwards.
+ *   <li>{@link #perThread()} supplies one object for each thread calling build.
+ *   <li>{@link #pooled(int, Consumer)} reuses objects handed back through {@link
+ *       ObjectUnderTestBuilder#release(Object)}, resetting each one as it is released.
+ * </ul>
+ *
+ * <p>Scopes are only descriptions. Every builder configured with {@link
+ * ObjectUnderTestBuilder#scopedTo(InstanceScope)} keeps its own instances, so a singleton scope
+ * never shares objects between builders.
+ *
+ * @author bhandy
+ */
+public abstract class InstanceScope {
+
+  private static final InstanceScope PER_BUILD =
+      new InstanceScope() {
+        @Override
+        Instances instancesOf(Supplier<?> objectUnderTest, UnaryOperator<Object> proxyWrapper) {
+          return new Instances() {
+            @Override
+            Object acquire() {
+              return proxyWrapper.apply(objectUnderTest.get());
+            }
+          };
+        }
+      };
+
+  private static final InstanceScope SINGLETON =
+      new InstanceScope() {
+        @Override
+        Instances instancesOf(Supplier<?> objectUnderTest, UnaryOperator<Object> proxyWrapper) {
+          return new SingletonInstances(objectUnderTest, proxyWrapper);
+        }
+      };
+
+  private static final InstanceScope PER_THREAD =
+      new InstanceScope() {
+        @Override
+        Instances instancesOf(Supplier<?> objectUnderTest, UnaryOperator<Object> proxyWrapper) {
+          ThreadLocal<Object> threadInstances =
+              ThreadLocal.withInitial(() -> proxyWrapper.apply(objectUnderTest.get()));
+          return new Instances() {
+            @Override
+            Object acquire() {
+              return threadInstances.get();
+            }
+          };
+        }
+      };
+
+  private InstanceScope() {}
+
+  /** @return The scope supplying a new object under test on every build. */
+  public static InstanceScope perBuild() {
+    return PER_BUILD;
+  }
+
+  /** @return The scope supplying a single object under test, shared by every build. */
+  public static InstanceScope singleton() {
+    return SINGLETON;
+  }
+
+  /**
+   * The objects are held by a {@link ThreadLocal} of the builder, and are released along with the
+   * builder or the thread.
+   *
+   * @return The scope supplying one object under test for each thread.
+   */
+  public static InstanceScope perThread() {
+    return PER_THREAD;
+  }
+
+  /**
+   * Creates a scope reusing released objects without resetting them.
+   *
+   * @param maximumIdle The largest number of released objects kept for reuse.
+   * @return The scope reusing released objects.
+   * @see #pooled(int, Consumer)
+   */
+  public static InstanceScope pooled(int maximumIdle) {
+    return pooled(maximumIdle, objectUnderTest -> {});
+  }
+
+  /**
+   * Creates a scope reusing objects released through {@link
+   * ObjectUnderTestBuilder#release(Object)}. Building takes an idle object if there is one, and
+   * supplies a new object otherwise, so building never waits for another test to release its
+   * object. Released objects are reset before they
+   * become idle, and are discarded once {@code maximumIdle} objects are already idle or if the
+   * reset fails.
+   *
+   * @param maximumIdle The largest number of released objects kept for reuse.
+   * @param resetHook Restores a released object under test, not its proxy, to its initial state.
+   * @param <T> The type of the objects under test.
+   * @return The scope reusing released objects.
+   * @throws IllegalArgumentException if {@code maximumIdle} is negative.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> InstanceScope pooled(int maximumIdle, Consumer<? super T> resetHook) {
+    if (maximumIdle < 0) {
+      throw new IllegalArgumentException(
+          String.format("The maximum idle objects cannot be negative: %d", maximumIdle));
+    }
+    Objects.requireNonNull(resetHook, "resetHook");
+
+    Consumer<Object> objectResetHook = (Consumer<Object>) resetHook;
+    return new InstanceScope() {
+      @Override
+      Instances instancesOf(Supplier<?> objectUnderTest, UnaryOperator<Object> proxyWrapper) {
+        return new PooledInstances(objectUnderTest, proxyWrapper, maximumIdle, objectResetHook);
+      }
+    };
+  }
+
+  /**
+   * Creates the instances held by a single builder.
+   *
+   * @param objectUnderTest Supplies new objects under test.
+   * @param proxyWrapper Wraps an object under test in the proxy returned by the builder.
+   * @return The instances of the builder.
+   */
+  abstract Instances instancesOf(Supplier<?> objectUnderTest, UnaryOperator<Object> proxyWrapper);
+
+  /** The objects under test built by a single builder. */
+  abstract static class Instances {
+
+    /** @return The object, or proxy, returned by the builder. */
+    abstract Object acquire();
+
+    /**
+     * Hands an object returned by {@link #acquire()} back to the scope. Scopes which never reuse
+     * released objects ignore it.
+     *
+     * @param builtObject The object, or proxy, returned by the builder.
+     */
+    void release(Object builtObject) {}
+  }
+
+  private static final class SingletonInstances extends Instances {
+
+    private final Supplier<?> objectUnderTest;
+    private final UnaryOperator<Object> proxyWrapper;
+    private volatile Object instance;
+
+    private SingletonInstances(Supplier<?> objectUnderTest, UnaryOperator<Object> proxyWrapper) {
+      this.objectUnderTest = objectUnderTest;
+      this.proxyWrapper = proxyWrapper;
+    }
+
+    @Override
+    Object acquire() {
+      Object builtObject = instance;
+      if (builtObject != null) {
+        return builtObject;
+      }
+
+      // the supplier is only called once, even when several threads build at the same time.
+      synchronized (this) {
+        if (instance == null) {
+          instance = proxyWrapper.apply(objectUnderTest.get());
+        }
+        return instance;
+      }
+    }
+  }
+
+  private static final class PooledInstances extends Instances {
+
+    private final Supplier<?> objectUnderTest;
+    private final UnaryOperator<Object> proxyWrapper;
+    private final int maximumIdle;
+    private final Consumer<Object> resetHook;
+    private final ConcurrentLinkedDeque<PooledInstance> idleInstances =
+        new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    // proxies may forward equals and hashCode to the object under test, so acquired instances are
+    // tracked by identity.
+    private final Map<Object, PooledInstance> acquiredInstances = new IdentityHashMap<>();
+
+    private PooledInstances(
+        Supplier<?> objectUnderTest,
+        UnaryOperator<Object> proxyWrapper,
+        int maximumIdle,
+        Consumer<Object> resetHook) {
+      this.objectUnderTest = objectUnderTest;
+      this.proxyWrapper = proxyWrapper;
+      this.maximumIdle = maximumIdle;
+      this.resetHook = resetHook;
+    }
+
+    @Override
+    Object acquire() {
+      PooledInstance pooledInstance = idleInstances.pollFirst();
+      if (pooledInstance != null) {
+        idleCount.decrementAndGet();
+      } else {
+        Object newObjectUnderTest = objectUnderTest.get();
+        pooledInstance =
+            new PooledInstance(newObjectUnderTest, proxyWrapper.apply(newObjectUnderTest));
+      }
+
+      synchronized (acquiredInstances) {
+        acquiredInstances.put(pooledInstance.builtObject, pooledInstance);
+      }
+      return pooledInstance.builtObject;
+    }
+
+    @Override
+    void release(Object builtObject) {
+      PooledInstance pooledInstance;
+      synchronized (acquiredInstances) {
+        pooledInstance = acquiredInstances.remove(builtObject);
+      }
+      if (pooledInstance == null) {
+        throw new IllegalArgumentException(
+            "The object was not built by this builder, or has already been released.");
+      }
+
+      // a failed reset leaves the object in an unknown state, so it is never reused.
+      resetHook.accept(pooledInstance.objectUnderTest);
+      if (idleCount.incrementAndGet() <= maximumIdle) {
+        idleInstances.offerFirst(pooledInstance);
+      } else {
+        idleCount.decrementAndGet();
+      }
+    }
+  }
+
+  private static final class PooledInstance {
+
+    private final Object objectUnderTest;
+    private final Object builtObject;
+
+    private PooledInstance(Object objectUnderTest, Object builtObject) {
+      this.objectUnderTest = objectUnderTest;
+      this.builtObject = builtObject;
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package dev.bradhandy.testing.reflection;
+
+import dev.bradhandy.testing.reflection.util.InvocationStrategy;
+import dev.bradhandy.testing.reflection.util.MethodMatching;
+import dev.bradhandy.testing.reflection.util.ProxyEngine;
+import dev.bradhandy.testing.reflection.util.ProxyFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Builds proxies for many objects under test at once, such as one object per row of a data set.
+ * Created by {@link ObjectUnderTestBuilder#forEach(Collection)}, and configured the same way as an
+ * {@link ObjectUnderTestBuilder}.
+ *
+ * <p>Every proxy is created by the same {@link ProxyFactory}, which resolves the proxy class and
+ * bindings once for each distinct class of the objects. See {@link
+ * ProxyFactory#newProxies(Collection)}.
+ *
+ * @author bhandy
+ */
+public final class ObjectUnderTestBatchBuilder {
+
+  private final List<Object> objectsUnderTest;
+  private InvocationStrategy invocationStrategy = InvocationStrategy.METHOD_HANDLE;
+  private ProxyEngine proxyEngine = ProxyEngine.REFLECTION_PROXY;
+  private MethodMatching methodMatching = MethodMatching.EXACT;
+  private boolean eagerBinding;
+  private Executor asyncExecutor;
+  private ProxyFactory proxyFactory;
+
+  private ObjectUnderTestBatchBuilder(List<Object> objectsUnderTest) {
+    this.objectsUnderTest = objectsUnderTest;
+  }
+
+  static ObjectUnderTestBatchBuilder of(Collection<?> objectsUnderTest) {
+    return new ObjectUnderTestBatchBuilder(
+        Collections.unmodifiableList(new ArrayList<>(objectsUnderTest)));
+  }
+
+  /**
+   * @param invocationStrategy The strategy used to invoke the methods of the objects under test.
+   * @return A builder using the given strategy.
+   * @see ObjectUnderTestBuilder#invokedWith(InvocationStrategy)
+   */
+  public ObjectUnderTestBatchBuilder invokedWith(InvocationStrategy invocationStrategy) {
+    ObjectUnderTestBatchBuilder batchBuilder = copy();
+    batchBuilder.invocationStrategy = invocationStrategy;
+    return batchBuilder;
+  }
+
+  /**
+   * @param proxyEngine The engine used to create proxies.
+   * @return A builder using the given engine.
+   * @see ObjectUnderTestBuilder#proxiedWith(ProxyEngine)
+   */
+  public ObjectUnderTestBatchBuilder proxiedWith(ProxyEngine proxyEngine) {
+    ObjectUnderTestBatchBuilder batchBuilder = copy();
+    batchBuilder.proxyEngine = proxyEngine;
+    return batchBuilder;
+  }
+
+  /**
+   * @param methodMatching How interface methods are matched to the methods of the objects under
+   *     test.
+   * @return A builder using the given matching.
+   * @see ObjectUnderTestBuilder#matchedBy(MethodMatching)
+   */
+  public ObjectUnderTestBatchBuilder matchedBy(MethodMatching methodMatching) {
+    ObjectUnderTestBatchBuilder batchBuilder = copy();
+    batchBuilder.methodMatching = methodMatching;
+    return batchBuilder;
+  }
+
+  /**
+   * Binds every interface method to each distinct class of the objects under test when building,
+   * reporting every method which cannot be bound in a single {@link IllegalArgumentException}.
+   *
+   * @return A builder binding interface methods eagerly.
+   * @see ObjectUnderTestBuilder#boundEagerly()
+   */
+  public ObjectUnderTestBatchBuilder boundEagerly() {
+    ObjectUnderTestBatchBuilder batchBuilder = copy();
+    batchBuilder.eagerBinding = true;
+    return batchBuilder;
+  }
+
+  /**
+   * @param asyncExecutor The executor running the targets of asynchronous interface methods.
+   * @return A builder running asynchronous interface methods on the given executor.
+   * @see ObjectUnderTestBuilder#runAsyncOn(Executor)
+   */
+  public ObjectUnderTestBatchBuilder runAsyncOn(Executor asyncExecutor) {
+    ObjectUnderTestBatchBuilder batchBuilder = copy();
+    batchBuilder.asyncExecutor = asyncExecutor;
+    return batchBuilder;
+  }
+
+  /**
+   * Must be called after the other configuration methods, which have no effect afterwards.
+   *
+   * @param interfaces The interfaces implemented by every proxy.
+   * @return A builder creating proxies conforming to the interfaces.
+   */
+  public ObjectUnderTestBatchBuilder conformingTo(Class<?>... interfaces) {
+    ProxyFactory configuredProxyFactory =
+        ProxyFactory.forInterfaces(interfaces)
+            .invokedWith(invocationStrategy)
+            .proxiedWith(proxyEngine)
+            .matchedBy(methodMatching);
+    if (asyncExecutor != null) {
+      configuredProxyFactory = configuredProxyFactory.runAsyncOn(asyncExecutor);
+    }
+    ObjectUnderTestBatchBuilder batchBuilder = copy();
+    batchBuilder.proxyFactory =
+        eagerBinding ? configuredProxyFactory.boundEagerly() : configuredProxyFactory;
+    return batchBuilder;
+  }
+
+  /**
+   * Builds a proxy for each object under test, in the order of the original collection. Without
+   * {@link #conformingTo(Class[])}, the objects themselves are returned.
+   *
+   * @param <T> The type of the proxies.
+   * @return The proxies.
+   * @throws IllegalArgumentException if binding eagerly and any interface method cannot be bound.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> List<T> buildAll() {
+    if (proxyFactory == null) {
+      return (List<T>) objectsUnderTest;
+    }
+    return (List<T>) proxyFactory.newProxies(objectsUnderTest);
+  }
+
+  private ObjectUnderTestBatchBuilder copy() {
+    ObjectUnderTestBatchBuilder batchBuilder = new ObjectUnderTestBatchBuilder(objectsUnderTest);
+    batchBuilder.invocationStrategy = invocationStrategy;
+    batchBuilder.proxyEngine = proxyEngine;
+    batchBuilder.methodMatching = methodMatching;
+    batchBuilder.eagerBinding = eagerBinding;
+    batchBuilder.asyncExecutor = asyncExecutor;
+    batchBuilder.proxyFactory = proxyFactory;
+    return batchBuilder;
+  }
+}
@@ -1,40 +1,243 @@
 package dev.bradhandy.testing.reflection;
 
-import dev.bradhandy.testing.reflection.util.MethodUnderTestInvocationHandler;
+import dev.bradhandy.testing.reflection.util.InvocationStrategy;
+import dev.bradhandy.testing.reflection.util.MethodMatching;
+import dev.bradhandy.testing.reflection.util.ProxyEngine;
+import dev.bradhandy.testing.reflection.util.ProxyFactory;
 
-import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class ObjectUnderTestBuilder {
 
-  private final Supplier<?> objectUnderTest;
+  private Supplier<?> objectUnderTest;
+  private UnaryOperator<Object> proxyWrapper = UnaryOperator.identity();
+  private Object knownObjectUnderTest;
+  private InvocationStrategy invocationStrategy = InvocationStrategy.METHOD_HANDLE;
+  private ProxyEngine proxyEngine = ProxyEngine.REFLECTION_PROXY;
+  private MethodMatching methodMatching = MethodMatching.EXACT;
+  private boolean eagerBinding;
+  private Executor asyncExecutor;
+  private InstanceScope instanceScope = InstanceScope.perBuild();
+  private volatile InstanceScope.Instances instances;
 
   private ObjectUnderTestBuilder(Supplier<?> objectUnderTest) {
     this.objectUnderTest = objectUnderTest;
   }
 
   public static ObjectUnderTestBuilder using(Object staticInstance) {
-    return new ObjectUnderTestBuilder(() -> staticInstance);
+    ObjectUnderTestBuilder objectUnderTestBuilder =
+        new ObjectUnderTestBuilder(() -> staticInstance);
+    objectUnderTestBuilder.knownObjectUnderTest = staticInstance;
+    return objectUnderTestBuilder;
   }
 
   public static ObjectUnderTestBuilder suppliedBy(Supplier<?> objectUnderTestSupplier) {
     return new ObjectUnderTestBuilder(objectUnderTestSupplier);
   }
 
+  /**
+   * Creates a builder for proxies of many objects under test at once. The proxies share what is
+   * resolved for each distinct class of the objects, instead of resolving it once per object.
+   *
+   * @param objectsUnderTest The objects, or Classes for static methods, to proxy.
+   * @return The batch builder.
+   */
+  public static ObjectUnderTestBatchBuilder forEach(Collection<?> objectsUnderTest) {
+    return ObjectUnderTestBatchBuilder.of(objectsUnderTest);
+  }
+
+  /**
+   * Creates a builder for proxies of every object of the stream. The stream is consumed
+   * immediately.
+   *
+   * @param objectsUnderTest The objects, or Classes for static methods, to proxy.
+   * @return The batch builder.
+   * @see #forEach(Collection)
+   */
+  public static ObjectUnderTestBatchBuilder forEach(Stream<?> objectsUnderTest) {
+    return ObjectUnderTestBatchBuilder.of(objectsUnderTest.collect(Collectors.toList()));
+  }
+
+  /**
+   * Selects how proxies created by {@link #conformingTo(Class[])} invoke the methods of the object
+   * under test. Must be called before {@code conformingTo} to have any effect.
+   *
+   * @param invocationStrategy The strategy used to invoke the methods of the object under test.
+   * @return A builder using the given strategy.
+   */
+  public ObjectUnderTestBuilder invokedWith(InvocationStrategy invocationStrategy) {
+    ObjectUnderTestBuilder objectUnderTestBuilder = copy();
+    objectUnderTestBuilder.invocationStrategy = invocationStrategy;
+    return objectUnderTestBuilder;
+  }
+
+  /**
+   * Selects how proxies are created by {@link #conformingTo(Class[])}. Must be called before {@code
+   * conformingTo} to have any effect.
+   *
+   * <p>{@link ProxyEngine#HIDDEN_CLASS} proxies call the methods of the object under test directly
+   * on Java 15 and later. Otherwise, the builder falls back to {@link
+   * ProxyEngine#REFLECTION_PROXY}.
+   *
+   * <p>{@link ProxyEngine#GENERATED_ACCESSOR} proxies are created by the accessor the annotation
+   * processor generated for a {@link ProxyTarget} interface. They bypass the invocation handler, so
+   * their calls record no {@code MethodInvocation} event, and {@link #boundEagerly()} relies on the
+   * checks made at compile time instead of binding the methods again.
+   *
+   * @param proxyEngine The engine used to create proxies.
+   * @return A builder using the given engine.
+   */
+  public ObjectUnderTestBuilder proxiedWith(ProxyEngine proxyEngine) {
+    ObjectUnderTestBuilder objectUnderTestBuilder = copy();
+    objectUnderTestBuilder.proxyEngine = proxyEngine;
+    return objectUnderTestBuilder;
+  }
+
+  /**
+   * Selects how proxies created by {@link #conformingTo(Class[])} match interface methods to the
+   * methods of the object under test. Must be called before {@code conformingTo} to have any
+   * effect.
+   *
+   * <p>{@link MethodMatching#CONVERTIBLE} allows an interface method to call a method whose
+   * parameters accept its argument types by widening, boxing, unboxing or variable arity, such as
+   * exposing a private {@code process(long)} as {@code process(int)}.
+   *
+   * @param methodMatching How interface methods are matched to the methods of the object under
+   *     test.
+   * @return A builder using the given matching.
+   */
+  public ObjectUnderTestBuilder matchedBy(MethodMatching methodMatching) {
+    ObjectUnderTestBuilder objectUnderTestBuilder = copy();
+    objectUnderTestBuilder.methodMatching = methodMatching;
+    return objectUnderTestBuilder;
+  }
+
+  /**
+   * Binds every method of the interfaces given to {@link #conformingTo(Class[])} to the object
+   * under test's class up front, instead of on the first call of each method. Must be called before
+   * {@code conformingTo} to have any effect.
+   *
+   * <p>For builders created by {@link #using(Object)}, the methods are bound by {@code
+   * conformingTo}. For builders created by {@link #suppliedBy(Supplier)}, the methods are bound
+   * when the first object of each class is supplied. In both cases, every method which cannot be
+   * bound is reported in a single {@link IllegalArgumentException}.
+   *
+   * @return A builder binding interface methods eagerly.
+   */
+  public ObjectUnderTestBuilder boundEagerly() {
+    ObjectUnderTestBuilder objectUnderTestBuilder = copy();
+    objectUnderTestBuilder.eagerBinding = true;
+    return objectUnderTestBuilder;
+  }
+
+  /**
+   * Selects the executor running the object under test's methods for interface methods declaring a
+   * {@code CompletableFuture} or {@code Future} of their return type, such as {@code
+   * CompletableFuture<Integer> increment()} for a private {@code int increment()}. Must be called
+   * before {@link #conformingTo(Class[])} to have any effect.
+   *
+   * <p>Without an executor, each call runs on its own virtual thread on Java 21 and later, and on
+   * the common {@code ForkJoinPool} otherwise.
+   *
+   * @param asyncExecutor The executor running the targets of asynchronous interface methods.
+   * @return A builder running asynchronous interface methods on the given executor.
+   * @see ProxyFactory#runAsyncOn(Executor)
+   */
+  public ObjectUnderTestBuilder runAsyncOn(Executor asyncExecutor) {
+    ObjectUnderTestBuilder objectUnderTestBuilder = copy();
+    objectUnderTestBuilder.asyncExecutor = asyncExecutor;
+    return objectUnderTestBuilder;
+  }
+
+  /**
+   * Selects how often {@link #build()} supplies a new object under test. Objects built in any scope
+   * other than {@link InstanceScope#perBuild()} are reused along with their proxies, so the
+   * supplier and {@link #conformingTo(Class[])} are not repeated for every build.
+   *
+   * <p>Each builder keeps its own instances, so the objects are shared by the builds of the
+   * returned builder only.
+   *
+   * @param instanceScope The scope of the objects under test.
+   * @return A builder building objects in the given scope.
+   */
+  public ObjectUnderTestBuilder scopedTo(InstanceScope instanceScope) {
+    ObjectUnderTestBuilder objectUnderTestBuilder = copy();
+    objectUnderTestBuilder.instanceScope = instanceScope;
+    return objectUnderTestBuilder;
+  }
+
   public ObjectUnderTestBuilder conformingTo(Class<?>... interfaces) {
-    final Class<?>[] copyOfInterfaces = new Class<?>[interfaces.length];
-    System.arraycopy(interfaces, 0, copyOfInterfaces, 0, interfaces.length);
+    ProxyFactory configuredProxyFactory =
+        ProxyFactory.forInterfaces(interfaces)
+            .invokedWith(invocationStrategy)
+            .proxiedWith(proxyEngine)
+            .matchedBy(methodMatching);
+    if (asyncExecutor != null) {
+      configuredProxyFactory = configuredProxyFactory.runAsyncOn(asyncExecutor);
+    }
+    if (eagerBinding) {
+      configuredProxyFactory = configuredProxyFactory.boundEagerly();
+      if (knownObjectUnderTest != null) {
+        configuredProxyFactory.bind(knownObjectUnderTest);
+      }
+    }
 
-    final Supplier<?> originalSupplier = objectUnderTest;
-    return new ObjectUnderTestBuilder(
-        () ->
-            Proxy.newProxyInstance(
-                Thread.currentThread().getContextClassLoader(),
-                copyOfInterfaces,
-                new MethodUnderTestInvocationHandler(originalSupplier.get())));
+    final ProxyFactory proxyFactory = configuredProxyFactory;
+    final UnaryOperator<Object> originalWrapper = proxyWrapper;
+    ObjectUnderTestBuilder objectUnderTestBuilder = copy();
+    objectUnderTestBuilder.proxyWrapper =
+        builtObject -> proxyFactory.newProxy(originalWrapper.apply(builtObject));
+    objectUnderTestBuilder.knownObjectUnderTest = null;
+    return objectUnderTestBuilder;
   }
 
   public <T> T build() {
-    return (T) objectUnderTest.get();
+    return (T) instances().acquire();
+  }
+
+  /**
+   * Hands an object returned by {@link #build()} back to the builder's {@link InstanceScope}. Only
+   * {@link InstanceScope#pooled(int, Consumer)} scopes reuse released objects, so releasing is
+   * optional in every other scope.
+   *
+   * @param builtObject The object, or proxy, returned by {@link #build()}.
+   * @throws IllegalArgumentException if the scope is pooled and the object was not built by this
+   *     builder, or has already been released.
+   */
+  public void release(Object builtObject) {
+    instances().release(builtObject);
+  }
+
+  private InstanceScope.Instances instances() {
+    InstanceScope.Instances scopedInstances = instances;
+    if (scopedInstances != null) {
+      return scopedInstances;
+    }
+
+    synchronized (this) {
+      if (instances == null) {
+        instances = instanceScope.instancesOf(objectUnderTest, proxyWrapper);
+      }
+      return instances;
+    }
+  }
+
+  private ObjectUnderTestBuilder copy() {
+    ObjectUnderTestBuilder objectUnderTestBuilder = new ObjectUnderTestBuilder(objectUnderTest);
+    objectUnderTestBuilder.proxyWrapper = proxyWrapper;
+    objectUnderTestBuilder.knownObjectUnderTest = knownObjectUnderTest;
+    objectUnderTestBuilder.invocationStrategy = invocationStrategy;
+    objectUnderTestBuilder.proxyEngine = proxyEngine;
+    objectUnderTestBuilder.methodMatching = methodMatching;
+    objectUnderTestBuilder.eagerBinding = eagerBinding;
+    objectUnderTestBuilder.asyncExecutor = asyncExecutor;
+    objectUnderTestBuilder.instanceScope = instanceScope;
+    return objectUnderTestBuilder;
   }
 }
@@ -0,0 +1,41 @@
+package dev.bradhandy.testing.reflection;
+
+import dev.bradhandy.testing.reflection.util.ProxyEngine;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an interface as exposing the private methods of the given class. The interface works the
+ * same way without the annotation, but the object-under-test-builder annotation processor uses it
+ * to check the interface against the class at compile time, and to generate an accessor which
+ * {@link ObjectUnderTestBuilder} uses instead of reflection when proxying with {@link
+ * ProxyEngine#GENERATED_ACCESSOR}.
+ *
+ * <p>Calls through a generated accessor skip the invocation handler, so they record no {@code
+ * MethodInvocation} event, and eager binding relies on the checks the processor made at compile
+ * time.
+ *
+ * <p>Interfaces used as {@link TestProxy} parameters are checked against the type of the named
+ * field, so they need no marker.
+ *
+ * <p>Example:
+ *
+ * <pre>
+ *   &#64;ProxyTarget(SomeClass.class)
+ *   interface SomeClassMethods {
+ *     String privateMethodToInvoke();
+ *   }
+ * </pre>
+ *
+ * @author bhandy
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ProxyTarget {
+
+  /** @return The class whose private methods are exposed by the interface. */
+  Class<?> value();
+}
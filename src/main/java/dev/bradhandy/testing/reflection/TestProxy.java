@@ -9,10 +9,17 @@ import java.lang.annotation.Target;
  * Annotates a method parameter to create a proxy around the named object under test. The name refers
  * to a field within the test holding a reference to the object under test.
  *
+ * <p>The name may also be a dotted path, such as {@code "fixture.service.repository"}, when the
+ * object under test is held by a field of another object. Each name after the first refers to a
+ * field of the declared type of the field before it.
+ *
+ * <p>Interface fields of JUnit 5 test classes may be annotated as well, to be filled by {@link
+ * dev.bradhandy.testing.reflection.extension.ObjectUnderTestProxyInjector}.
+ *
  * @author bhandy
  */
 @Retention(RetentionPolicy.RUNTIME)
-@Target(ElementType.PARAMETER)
+@Target({ElementType.PARAMETER, ElementType.FIELD})
 public @interface TestProxy {
   String value();
 }
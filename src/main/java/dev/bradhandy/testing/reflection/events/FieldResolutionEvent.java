@@ -0,0 +1,42 @@
+package dev.bradhandy.testing.reflection.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for reading the object under test from the test class field named by
+ * {@code @TestProxy}, and wrapping it in a proxy for a test method parameter or test class field.
+ *
+ * @author bhandy
+ */
+@Name("dev.bradhandy.testing.reflection.FieldResolution")
+@Label("Field Resolution")
+@Category("Object Under Test Builder")
+@Description("Resolution of a proxy parameter or field from a test class field")
+public final class FieldResolutionEvent extends Event {
+
+  @Label("Test Class")
+  private Class<?> testClass;
+
+  @Label("Field Name")
+  private String fieldName;
+
+  /**
+   * Ends the event, and commits it if it is enabled and exceeds the configured threshold. Nothing
+   * is recorded otherwise.
+   *
+   * @param testClass The test class declaring the field.
+   * @param fieldName The name of the field containing the object under test.
+   */
+  public void complete(Class<?> testClass, String fieldName) {
+    end();
+    if (shouldCommit()) {
+      this.testClass = testClass;
+      this.fieldName = fieldName;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package dev.bradhandy.testing.reflection.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.lang.reflect.Method;
+
+/**
+ * Flight Recorder event for a call through a {@code REFLECTION_PROXY} proxy, including the lookup
+ * of the target on its first call. Hidden class proxies call their targets directly and are not
+ * recorded.
+ *
+ * @author bhandy
+ */
+@Name("dev.bradhandy.testing.reflection.MethodInvocation")
+@Label("Method Invocation")
+@Category("Object Under Test Builder")
+@Description("Call of an object under test's member through a proxy")
+public final class MethodInvocationEvent extends Event {
+
+  private static final EventType EVENT_TYPE = EventType.getEventType(MethodInvocationEvent.class);
+
+  @Label("Target Class")
+  private Class<?> targetClass;
+
+  @Label("Method Name")
+  private String methodName;
+
+  /**
+   * Determines whether Flight Recorder currently records the event, so proxies only create an
+   * event for each call while it does.
+   *
+   * @return Whether the event is enabled in any running recording.
+   */
+  public static boolean isRecorded() {
+    return EVENT_TYPE.isEnabled();
+  }
+
+  /**
+   * Ends the event, and commits it if it is enabled and exceeds the configured threshold. Nothing
+   * is recorded, or computed for the event's fields, otherwise.
+   *
+   * @param objectUnderTest The object, or Class for static methods, receiving the call.
+   * @param interfaceMethod The method called on the proxy.
+   */
+  public void complete(Object objectUnderTest, Method interfaceMethod) {
+    end();
+    if (shouldCommit()) {
+      this.targetClass =
+          (objectUnderTest instanceof Class)
+              ? (Class<?>) objectUnderTest
+              : objectUnderTest.getClass();
+      this.methodName = interfaceMethod.getName();
+      commit();
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package dev.bradhandy.testing.reflection.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.lang.reflect.Method;
+
+/**
+ * Flight Recorder event for matching an interface method to a member of the target class. Only
+ * lookups missing the dispatch table's cache are recorded.
+ *
+ * @author bhandy
+ */
+@Name("dev.bradhandy.testing.reflection.MethodResolution")
+@Label("Method Resolution")
+@Category("Object Under Test Builder")
+@Description("Matching of an interface method to a member of the object under test")
+public final class MethodResolutionEvent extends Event {
+
+  @Label("Target Class")
+  private Class<?> targetClass;
+
+  @Label("Method Name")
+  private String methodName;
+
+  @Label("Method Matching")
+  private String methodMatching;
+
+  /**
+   * Ends the event, and commits it if it is enabled and exceeds the configured threshold. Nothing
+   * is recorded, or computed for the event's fields, otherwise.
+   *
+   * @param targetClass The class searched for a matching member.
+   * @param interfaceMethod The interface method being matched.
+   * @param methodMatching The name of the matching mode used.
+   */
+  public void complete(Class<?> targetClass, Method interfaceMethod, String methodMatching) {
+    end();
+    if (shouldCommit()) {
+      this.targetClass = targetClass;
+      this.methodName = interfaceMethod.getName();
+      this.methodMatching = methodMatching;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package dev.bradhandy.testing.reflection.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.util.Arrays;
+
+/**
+ * Flight Recorder event for the creation of proxies around objects under test. A batch of proxies
+ * is recorded as a single event.
+ *
+ * @author bhandy
+ */
+@Name("dev.bradhandy.testing.reflection.ProxyCreation")
+@Label("Proxy Creation")
+@Category("Object Under Test Builder")
+@Description("Creation of proxies for objects under test")
+public final class ProxyCreationEvent extends Event {
+
+  @Label("Target Class")
+  @Description("The class of the first object under test")
+  private Class<?> targetClass;
+
+  @Label("Interfaces")
+  private String interfaces;
+
+  @Label("Proxy Count")
+  private int proxyCount;
+
+  /**
+   * Ends the event, and commits it if it is enabled and exceeds the configured threshold. Nothing
+   * is recorded, or computed for the event's fields, otherwise.
+   *
+   * @param targetClass The class of the first object under test.
+   * @param interfaces The interfaces implemented by the proxies.
+   * @param proxyCount The number of proxies created.
+   */
+  public void complete(Class<?> targetClass, Class<?>[] interfaces, int proxyCount) {
+    end();
+    if (shouldCommit()) {
+      this.targetClass = targetClass;
+      this.interfaces = Arrays.toString(interfaces);
+      this.proxyCount = proxyCount;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package dev.bradhandy.testing.reflection.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.util.Arrays;
+
+/**
+ * Flight Recorder event for the definition of a proxy class, which happens once per target class
+ * loader and interface list for {@code REFLECTION_PROXY}, and once per target class and interface
+ * list for {@code HIDDEN_CLASS}.
+ *
+ * @author bhandy
+ */
+@Name("dev.bradhandy.testing.reflection.ProxyDefinition")
+@Label("Proxy Definition")
+@Category("Object Under Test Builder")
+@Description("Definition of a proxy class for an object under test")
+public final class ProxyDefinitionEvent extends Event {
+
+  @Label("Target Class")
+  private Class<?> targetClass;
+
+  @Label("Interfaces")
+  private String interfaces;
+
+  @Label("Proxy Engine")
+  private String proxyEngine;
+
+  @Label("Defined")
+  @Description("Whether the engine was able to define the proxy class")
+  private boolean defined;
+
+  /**
+   * Ends the event, and commits it if it is enabled and exceeds the configured threshold. Nothing
+   * is recorded, or computed for the event's fields, otherwise.
+   *
+   * @param targetClass The class of the object under test, if known.
+   * @param interfaces The interfaces implemented by the proxy class.
+   * @param proxyEngine The name of the engine defining the proxy class.
+   * @param defined Whether the proxy class was defined.
+   */
+  public void complete(
+      Class<?> targetClass, Class<?>[] interfaces, String proxyEngine, boolean defined) {
+    end();
+    if (shouldCommit()) {
+      this.targetClass = targetClass;
+      this.interfaces = Arrays.toString(interfaces);
+      this.proxyEngine = proxyEngine;
+      this.defined = defined;
+      commit();
+    }
+  }
+}
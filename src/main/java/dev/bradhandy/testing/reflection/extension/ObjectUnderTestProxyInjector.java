@@ -0,0 +1,137 @@
+package dev.bradhandy.testing.reflection.extension;
+
+import dev.bradhandy.testing.reflection.TestProxy;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.TestInstancePostProcessor;
+
+/**
+ * Extension filling {@link TestProxy} annotated interface fields of the test instance with proxies
+ * wrapping the named object under test. Unlike {@link ObjectUnderTestProxyResolver}, which creates
+ * a proxy for every test method parameter, the proxies are created once per test instance: once
+ * per test method by default, and once per class under {@code Lifecycle.PER_CLASS}.
+ *
+ * <p>The fields of each test class are resolved once, and the resulting plan is shared by every
+ * instance of the class. Before each test, only the proxies of objects under test which were
+ * reassigned since the proxy was injected, such as objects created by a {@code @BeforeEach}
+ * method, are replaced. What is kept for a test instance is dropped once its last test has run, so
+ * instances created for a single test are not held until the whole class has finished.
+ *
+ * <p>Example:
+ *
+ * <pre>
+ *   &#64;ExtendWith(ObjectUnderTestProxyInjector.class)
+ *   public class SomeClassTest {
+ *
+ *     private SomeClass someClassInstance = new SomeClass();
+ *
+ *     &#64;TestProxy("someClassInstance")
+ *     private SomeMethodToTestInterface objectUnderTest;
+ *
+ *     &#64;Test
+ *     void someMethodToTest_canBeCalled() {
+ *       objectUnderTest.someMethodToTest();
+ *     }
+ *
+ *     interface SomeMethodToTestInterface {
+ *       void someMethodToTest();
+ *     }
+ *   }
+ * </pre>
+ *
+ * @author bhandy
+ */
+public class ObjectUnderTestProxyInjector
+    implements TestInstancePostProcessor, BeforeTestExecutionCallback, AfterEachCallback {
+
+  private static final ExtensionContext.Namespace NAMESPACE =
+      ExtensionContext.Namespace.create(ObjectUnderTestProxyInjector.class);
+
+  @Override
+  public void postProcessTestInstance(Object testInstance, ExtensionContext context) {
+    ProxyInjectionPlan injectionPlan = ProxyInjectionPlan.forClass(testInstance.getClass());
+    if (injectionPlan.isEmpty()) {
+      return;
+    }
+
+    boolean perMethodInstance =
+        context.getTestInstanceLifecycle().orElse(TestInstance.Lifecycle.PER_METHOD)
+            == TestInstance.Lifecycle.PER_METHOD;
+    context
+        .getStore(NAMESPACE)
+        .put(
+            new InstanceKey(testInstance),
+            new InjectedProxies(
+                injectionPlan, injectionPlan.inject(testInstance), perMethodInstance));
+  }
+
+  @Override
+  public void beforeTestExecution(ExtensionContext context) {
+
+    // nested test classes have an instance for every enclosing class, each with its own fields.
+    for (Object testInstance : context.getRequiredTestInstances().getAllInstances()) {
+      InjectedProxies injectedProxies =
+          context.getStore(NAMESPACE).get(new InstanceKey(testInstance), InjectedProxies.class);
+      if (injectedProxies != null) {
+        injectedProxies.injectionPlan.refresh(testInstance, injectedProxies.objectsUnderTest);
+      }
+    }
+  }
+
+  @Override
+  public void afterEach(ExtensionContext context) {
+    for (Object testInstance : context.getRequiredTestInstances().getAllInstances()) {
+      InstanceKey instanceKey = new InstanceKey(testInstance);
+      InjectedProxies injectedProxies =
+          context.getStore(NAMESPACE).get(instanceKey, InjectedProxies.class);
+      if (injectedProxies == null || !injectedProxies.perMethodInstance) {
+        continue;
+      }
+
+      // the proxies are usually stored in the class's context, even for instances created for a
+      // single test, and each store only removes its own values.
+      for (ExtensionContext storeContext = context;
+          storeContext != null;
+          storeContext = storeContext.getParent().orElse(null)) {
+        storeContext.getStore(NAMESPACE).remove(instanceKey);
+      }
+    }
+  }
+
+  /** The objects under test wrapped by the proxies injected into a single test instance. */
+  private static final class InjectedProxies {
+
+    private final ProxyInjectionPlan injectionPlan;
+    private final Object[] objectsUnderTest;
+    private final boolean perMethodInstance;
+
+    private InjectedProxies(
+        ProxyInjectionPlan injectionPlan, Object[] objectsUnderTest, boolean perMethodInstance) {
+      this.injectionPlan = injectionPlan;
+      this.objectsUnderTest = objectsUnderTest;
+      this.perMethodInstance = perMethodInstance;
+    }
+  }
+
+  /** Identifies a test instance by identity, whatever its equals method does. */
+  static final class InstanceKey {
+
+    private final Object testInstance;
+
+    InstanceKey(Object testInstance) {
+      this.testInstance = testInstance;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof InstanceKey && ((InstanceKey) other).testInstance == testInstance;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(testInstance);
+    }
+  }
+}
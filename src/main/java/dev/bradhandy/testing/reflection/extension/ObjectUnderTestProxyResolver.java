@@ -2,13 +2,13 @@ package dev.bradhandy.testing.reflection.extension;
 
 import dev.bradhandy.testing.reflection.ObjectUnderTestBuilder;
 import dev.bradhandy.testing.reflection.TestProxy;
+import dev.bradhandy.testing.reflection.events.FieldResolutionEvent;
+import dev.bradhandy.testing.reflection.util.FieldAccessor;
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.junit.jupiter.api.extension.ParameterContext;
 import org.junit.jupiter.api.extension.ParameterResolutionException;
 import org.junit.jupiter.api.extension.ParameterResolver;
 
-import java.lang.reflect.Field;
-
 /**
  * Implementation of {@link ParameterResolver} to create proxies wrapping an object under test in
  * order to invoke an inaccessible method directly.
@@ -88,11 +88,13 @@ public class ObjectUnderTestProxyResolver implements ParameterResolver {
     Object testInstance = extensionContext.getRequiredTestInstance();
     Class<?> testClass = testInstance.getClass();
 
+    // the accessor is compiled once per test class and field name, so repeated and parameterized
+    // tests only pay for the field lookup on their first invocation.
+    FieldResolutionEvent resolutionEvent = new FieldResolutionEvent();
+    resolutionEvent.begin();
     try {
-      Field objectUnderTestField = testClass.getDeclaredField(testProxyAnnotation.value());
-      objectUnderTestField.setAccessible(true);
-
-      Object objectUnderTest = objectUnderTestField.get(testInstance);
+      Object objectUnderTest =
+          FieldAccessor.forField(testClass, testProxyAnnotation.value()).get(testInstance);
       return ObjectUnderTestBuilder.using(objectUnderTest).conformingTo(parameterType).build();
     } catch (NoSuchFieldException | IllegalAccessException e) {
       throw new ParameterResolutionException(
@@ -100,6 +102,8 @@ public class ObjectUnderTestProxyResolver implements ParameterResolver {
               "Unable to resolve field %s on %s.",
               testProxyAnnotation.value(), testClass.getSimpleName()),
           e);
+    } finally {
+      resolutionEvent.complete(testClass, testProxyAnnotation.value());
     }
   }
 }
@@ -0,0 +1,235 @@
+package dev.bradhandy.testing.reflection.extension;
+
+import dev.bradhandy.testing.reflection.BenchmarkProxy;
+import dev.bradhandy.testing.reflection.Blackhole;
+import org.junit.jupiter.api.extension.ExtensionConfigurationException;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.InvocationInterceptor;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import org.junit.jupiter.api.extension.ReflectiveInvocationContext;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Extension running the body of each {@link BenchmarkProxy} test as a microbenchmark, registered
+ * by the annotation itself. Parameters, including {@code @TestProxy} proxies and a {@link
+ * Blackhole}, are resolved once, and the test method is then called through a {@link MethodHandle}
+ * bound to the test instance and the resolved arguments, so each operation costs no more than the
+ * calls made by the body.
+ *
+ * <p>The time of each iteration is measured with {@link System#nanoTime()}, and the bytes it
+ * allocates with the thread allocation counter of the JVM, when it offers one. Once measured, the
+ * following entries are published to the test's report:
+ *
+ * <ul>
+ *   <li>{@code benchmark.opsPerSecond}: operations per second over every measured iteration.
+ *   <li>{@code benchmark.nanosPerOperation}: the average time of an operation.
+ *   <li>{@code benchmark.bytesPerOperation}: the average allocation of an operation.
+ *   <li>{@code benchmark.allocationRate}: megabytes allocated per second.
+ * </ul>
+ *
+ * <p>The test fails with an {@link AssertionError} when an operation takes, or allocates, more on
+ * average than the budget of the annotation. The measurements are taken on the test's own thread,
+ * next to everything else the test runner does, so budgets are meant to catch regressions by an
+ * order of magnitude rather than replace a dedicated benchmark harness.
+ *
+ * @author bhandy
+ */
+public class ProxyBenchmarkExtension implements InvocationInterceptor, ParameterResolver {
+
+  private static final MethodType BODY_TYPE = MethodType.methodType(void.class);
+
+  @Override
+  public boolean supportsParameter(
+      ParameterContext parameterContext, ExtensionContext extensionContext) {
+    return parameterContext.getParameter().getType() == Blackhole.class;
+  }
+
+  @Override
+  public Object resolveParameter(
+      ParameterContext parameterContext, ExtensionContext extensionContext) {
+    return new Blackhole();
+  }
+
+  @Override
+  public void interceptTestMethod(
+      Invocation<Void> invocation,
+      ReflectiveInvocationContext<Method> invocationContext,
+      ExtensionContext extensionContext)
+      throws Throwable {
+    Method testMethod = invocationContext.getExecutable();
+    BenchmarkProxy benchmarkProxy = testMethod.getAnnotation(BenchmarkProxy.class);
+    if (benchmarkProxy == null) {
+      invocation.proceed();
+      return;
+    }
+
+    validate(testMethod, benchmarkProxy);
+    MethodHandle body = bindBody(testMethod, invocationContext);
+
+    // the body is run by the benchmark instead of the original invocation, which is only run once.
+    invocation.skip();
+    for (int i = 0; i < benchmarkProxy.warmup(); i++) {
+      runIteration(body, benchmarkProxy.operations());
+    }
+
+    AllocationCounter allocationCounter = AllocationCounter.forCurrentThread();
+    long measuredNanos = 0;
+    long allocatedBytes = 0;
+    for (int i = 0; i < benchmarkProxy.iterations(); i++) {
+      long startBytes = allocationCounter.allocatedBytes();
+      long startTime = System.nanoTime();
+      runIteration(body, benchmarkProxy.operations());
+      measuredNanos += System.nanoTime() - startTime;
+      allocatedBytes +=
+          Math.max(0, allocationCounter.allocatedBytes() - startBytes - allocationCounter.overhead);
+    }
+
+    Measurement measurement =
+        new Measurement(
+            (long) benchmarkProxy.iterations() * benchmarkProxy.operations(),
+            measuredNanos,
+            allocationCounter.isSupported() ? allocatedBytes : -1);
+    extensionContext.publishReportEntry(measurement.toReportEntries());
+    checkBudgets(testMethod, benchmarkProxy, measurement);
+  }
+
+  private static void validate(Method testMethod, BenchmarkProxy benchmarkProxy) {
+    if (benchmarkProxy.warmup() < 0
+        || benchmarkProxy.iterations() < 1
+        || benchmarkProxy.operations() < 1) {
+      throw new ExtensionConfigurationException(
+          String.format(
+              "@BenchmarkProxy on %s requires at least one iteration and operation, and no"
+                  + " negative warm-up.",
+              testMethod.getName()));
+    }
+  }
+
+  private static MethodHandle bindBody(
+      Method testMethod, ReflectiveInvocationContext<Method> invocationContext)
+      throws IllegalAccessException {
+    MethodHandle body =
+        MethodHandles.privateLookupIn(testMethod.getDeclaringClass(), MethodHandles.lookup())
+            .unreflect(testMethod);
+    if (!Modifier.isStatic(testMethod.getModifiers())) {
+      body = body.bindTo(invocationContext.getTarget().orElseThrow());
+    }
+    return MethodHandles.insertArguments(body, 0, invocationContext.getArguments().toArray())
+        .asType(BODY_TYPE);
+  }
+
+  private static void runIteration(MethodHandle body, int operations) throws Throwable {
+    for (int i = 0; i < operations; i++) {
+      body.invokeExact();
+    }
+  }
+
+  private static void checkBudgets(
+      Method testMethod, BenchmarkProxy benchmarkProxy, Measurement measurement) {
+    if (benchmarkProxy.maxNanosPerOperation() > 0
+        && measurement.nanosPerOperation() > benchmarkProxy.maxNanosPerOperation()) {
+      throw new AssertionError(
+          String.format(
+              "%s took %.1f ns per operation, over its budget of %.1f ns.",
+              testMethod.getName(),
+              measurement.nanosPerOperation(),
+              benchmarkProxy.maxNanosPerOperation()));
+    }
+
+    if (benchmarkProxy.maxBytesPerOperation() >= 0 && measurement.allocatedBytes >= 0) {
+      if (measurement.bytesPerOperation() > benchmarkProxy.maxBytesPerOperation()) {
+        throw new AssertionError(
+            String.format(
+                "%s allocated %.1f bytes per operation, over its budget of %d bytes.",
+                testMethod.getName(),
+                measurement.bytesPerOperation(),
+                benchmarkProxy.maxBytesPerOperation()));
+      }
+    }
+  }
+
+  /** The totals of every measured iteration. */
+  private static final class Measurement {
+
+    private final long operations;
+    private final long nanos;
+    private final long allocatedBytes;
+
+    private Measurement(long operations, long nanos, long allocatedBytes) {
+      this.operations = operations;
+      this.nanos = Math.max(nanos, 1);
+      this.allocatedBytes = allocatedBytes;
+    }
+
+    private double nanosPerOperation() {
+      return (double) nanos / operations;
+    }
+
+    private double bytesPerOperation() {
+      return (double) allocatedBytes / operations;
+    }
+
+    private Map<String, String> toReportEntries() {
+      Map<String, String> reportEntries = new LinkedHashMap<>();
+      reportEntries.put(
+          "benchmark.opsPerSecond", String.format("%.1f", operations * 1_000_000_000.0 / nanos));
+      reportEntries.put("benchmark.nanosPerOperation", String.format("%.1f", nanosPerOperation()));
+      if (allocatedBytes >= 0) {
+        reportEntries.put(
+            "benchmark.bytesPerOperation", String.format("%.1f", bytesPerOperation()));
+        reportEntries.put(
+            "benchmark.allocationRate",
+            String.format("%.1f MB/s", allocatedBytes * 1_000.0 / nanos));
+      }
+      return reportEntries;
+    }
+  }
+
+  /**
+   * Reads the bytes allocated by the current thread, through the HotSpot extension of {@link
+   * ThreadMXBean}. Reading the counter allocates as well, so that overhead is measured once and
+   * left out of every iteration.
+   */
+  private static final class AllocationCounter {
+
+    private final com.sun.management.ThreadMXBean threadBean;
+    private final long threadId;
+    private final long overhead;
+
+    private AllocationCounter(com.sun.management.ThreadMXBean threadBean, long threadId) {
+      this.threadBean = threadBean;
+      this.threadId = threadId;
+      long firstReading = allocatedBytes();
+      this.overhead = Math.max(0, allocatedBytes() - firstReading);
+    }
+
+    private static AllocationCounter forCurrentThread() {
+      ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+      boolean supported =
+          threadBean instanceof com.sun.management.ThreadMXBean
+              && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()
+              && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemoryEnabled();
+      return new AllocationCounter(
+          supported ? (com.sun.management.ThreadMXBean) threadBean : null,
+          Thread.currentThread().getId());
+    }
+
+    private boolean isSupported() {
+      return threadBean != null;
+    }
+
+    private long allocatedBytes() {
+      return (threadBean != null) ? threadBean.getThreadAllocatedBytes(threadId) : 0;
+    }
+  }
+}
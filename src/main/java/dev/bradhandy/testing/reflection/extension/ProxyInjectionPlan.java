@@ -0,0 +1,187 @@
+package dev.bradhandy.testing.reflection.extension;
+
+import dev.bradhandy.testing.reflection.TestProxy;
+import dev.bradhandy.testing.reflection.events.FieldResolutionEvent;
+import dev.bradhandy.testing.reflection.util.FieldAccessor;
+import dev.bradhandy.testing.reflection.util.ProxyFactory;
+import org.junit.jupiter.api.extension.ExtensionConfigurationException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The {@link TestProxy} fields of a test class, and everything needed to fill them: the accessor
+ * reading each object under test, the setter writing each proxy, and the factory creating it.
+ * Plans are compiled once per test class and shared by every instance of the class.
+ *
+ * @author bhandy
+ */
+final class ProxyInjectionPlan {
+
+  private static final ClassValue<ProxyInjectionPlan> INJECTION_PLANS =
+      new ClassValue<ProxyInjectionPlan>() {
+        @Override
+        protected ProxyInjectionPlan computeValue(Class<?> testClass) {
+          return compile(testClass);
+        }
+      };
+
+  private static final MethodType GENERIC_SETTER_TYPE =
+      MethodType.methodType(void.class, Object.class, Object.class);
+
+  private final Class<?> testClass;
+  private final List<ProxyField> proxyFields;
+
+  private ProxyInjectionPlan(Class<?> testClass, List<ProxyField> proxyFields) {
+    this.testClass = testClass;
+    this.proxyFields = proxyFields;
+  }
+
+  /**
+   * Retrieves the plan for the test class. Plans are cached, so every instance of the class shares
+   * the same plan.
+   *
+   * @param testClass The class of the test instance.
+   * @return The plan for the test class.
+   * @throws ExtensionConfigurationException if a {@link TestProxy} field is not an interface, is
+   *     static or final, or names a field which cannot be read.
+   */
+  static ProxyInjectionPlan forClass(Class<?> testClass) {
+    return INJECTION_PLANS.get(testClass);
+  }
+
+  private static ProxyInjectionPlan compile(Class<?> testClass) {
+    List<ProxyField> proxyFields = new ArrayList<>();
+    for (Class<?> type = testClass; type != null && type != Object.class; ) {
+      for (Field field : type.getDeclaredFields()) {
+        TestProxy testProxy = field.getAnnotation(TestProxy.class);
+        if (testProxy != null) {
+          proxyFields.add(compile(field, testProxy.value()));
+        }
+      }
+      type = type.getSuperclass();
+    }
+    return new ProxyInjectionPlan(testClass, Collections.unmodifiableList(proxyFields));
+  }
+
+  private static ProxyField compile(Field proxyField, String objectUnderTestName) {
+    if (!proxyField.getType().isInterface()) {
+      throw new ExtensionConfigurationException(
+          String.format("@TestProxy field %s must be an interface.", proxyField.getName()));
+    }
+    if (Modifier.isStatic(proxyField.getModifiers())
+        || Modifier.isFinal(proxyField.getModifiers())) {
+      throw new ExtensionConfigurationException(
+          String.format(
+              "@TestProxy field %s cannot be static or final.", proxyField.getName()));
+    }
+
+    // the object under test is named relative to the class declaring the proxy field, so
+    // subclasses cannot hide it.
+    Class<?> declaringClass = proxyField.getDeclaringClass();
+    try {
+      MethodHandle setter =
+          MethodHandles.privateLookupIn(declaringClass, MethodHandles.lookup())
+              .unreflectVarHandle(proxyField)
+              .toMethodHandle(VarHandle.AccessMode.SET)
+              .asType(GENERIC_SETTER_TYPE);
+      return new ProxyField(
+          objectUnderTestName,
+          FieldAccessor.forField(declaringClass, objectUnderTestName),
+          setter,
+          ProxyFactory.forInterfaces(proxyField.getType()));
+    } catch (NoSuchFieldException | IllegalAccessException e) {
+      throw new ExtensionConfigurationException(
+          String.format(
+              "Unable to resolve field %s on %s.",
+              objectUnderTestName, declaringClass.getSimpleName()),
+          e);
+    }
+  }
+
+  /** @return Whether the test class declares no {@link TestProxy} fields. */
+  boolean isEmpty() {
+    return proxyFields.isEmpty();
+  }
+
+  /**
+   * Fills every {@link TestProxy} field of the test instance with a proxy wrapping the current
+   * object under test.
+   *
+   * @param testInstance The instance of the test class.
+   * @return The objects under test wrapped by the proxies, in the order of the plan's fields.
+   */
+  Object[] inject(Object testInstance) {
+    Object[] objectsUnderTest = new Object[proxyFields.size()];
+    for (int i = 0; i < objectsUnderTest.length; i++) {
+      objectsUnderTest[i] = inject(testInstance, proxyFields.get(i));
+    }
+    return objectsUnderTest;
+  }
+
+  /**
+   * Replaces the proxies of the objects under test which were reassigned since they were
+   * injected, such as objects created by a {@code @BeforeEach} method.
+   *
+   * @param testInstance The instance of the test class.
+   * @param objectsUnderTest The objects under test returned by {@link #inject(Object)}, updated in
+   *     place.
+   */
+  void refresh(Object testInstance, Object[] objectsUnderTest) {
+    for (int i = 0; i < objectsUnderTest.length; i++) {
+      ProxyField proxyField = proxyFields.get(i);
+      if (proxyField.objectUnderTestAccessor.get(testInstance) != objectsUnderTest[i]) {
+        objectsUnderTest[i] = inject(testInstance, proxyField);
+      }
+    }
+  }
+
+  private Object inject(Object testInstance, ProxyField proxyField) {
+    FieldResolutionEvent resolutionEvent = new FieldResolutionEvent();
+    resolutionEvent.begin();
+    try {
+      Object objectUnderTest = proxyField.objectUnderTestAccessor.get(testInstance);
+
+      // an object under test which has not been created yet is proxied once it is, before the
+      // test runs.
+      Object proxy =
+          (objectUnderTest != null) ? proxyField.proxyFactory.newProxy(objectUnderTest) : null;
+      proxyField.setter.invokeExact(testInstance, proxy);
+      return objectUnderTest;
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      // writing a field declares nothing to be thrown.
+      throw new IllegalStateException(
+          String.format("Unable to inject the proxy for %s.", proxyField.objectUnderTestName), e);
+    } finally {
+      resolutionEvent.complete(testClass, proxyField.objectUnderTestName);
+    }
+  }
+
+  private static final class ProxyField {
+
+    private final String objectUnderTestName;
+    private final FieldAccessor objectUnderTestAccessor;
+    private final MethodHandle setter;
+    private final ProxyFactory proxyFactory;
+
+    private ProxyField(
+        String objectUnderTestName,
+        FieldAccessor objectUnderTestAccessor,
+        MethodHandle setter,
+        ProxyFactory proxyFactory) {
+      this.objectUnderTestName = objectUnderTestName;
+      this.objectUnderTestAccessor = objectUnderTestAccessor;
+      this.setter = setter;
+      this.proxyFactory = proxyFactory;
+    }
+  }
+}
@@ -0,0 +1,190 @@
+package dev.bradhandy.testing.reflection.extension;
+
+import dev.bradhandy.testing.reflection.TestProxy;
+import dev.bradhandy.testing.reflection.util.FieldAccessor;
+import dev.bradhandy.testing.reflection.util.ProxyFactory;
+import org.junit.platform.engine.TestSource;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Prepares the proxies of every discovered test class before any test runs. Registered with the
+ * JUnit Platform launcher through {@code META-INF/services}, so it applies to JUnit 5 tests using
+ * {@link ObjectUnderTestProxyResolver} or {@link ObjectUnderTestProxyInjector}, and to JUnit 4
+ * tests using the custom runner alike. The listener does nothing unless the {@value
+ * #ENABLED_PARAMETER} configuration parameter is {@code true}, since it delays every test plan
+ * which has the library on its class path, whether or not it uses proxies.
+ *
+ * <p>Once the test plan has been discovered, the test classes using {@link TestProxy} parameters
+ * or fields are each prepared on their own task of a {@link ForkJoinPool}. For each of them, the
+ * accessor of the named field is compiled and, when the field's type is a concrete class, the
+ * proxy class and the targets of the interface methods are resolved through {@link
+ * ProxyFactory#prepare(Class)}. Everything is published to the caches used while the tests run, so
+ * the first test of each class no longer pays for the reflective lookups.
+ *
+ * <p>Test execution starts once every class has been prepared. Anything which cannot be prepared
+ * is skipped, and reported by the test using it as it would be without the listener.
+ *
+ * @author bhandy
+ */
+public class ProxyWarmUpListener implements TestExecutionListener {
+
+  /** Configuration parameter enabling the warm-up of the proxies of every test plan. */
+  public static final String ENABLED_PARAMETER = "dev.bradhandy.testing.reflection.warmup.enabled";
+
+  @Override
+  public void testPlanExecutionStarted(TestPlan testPlan) {
+    if (!testPlan.getConfigurationParameters().getBoolean(ENABLED_PARAMETER).orElse(false)) {
+      return;
+    }
+
+    Set<Class<?>> testClasses = testClassesOf(testPlan);
+    testClasses.removeIf(testClass -> !usesTestProxy(testClass));
+    if (testClasses.isEmpty()) {
+      return;
+    }
+
+    List<Callable<Void>> warmUpTasks = new ArrayList<>();
+    for (Class<?> testClass : testClasses) {
+      warmUpTasks.add(
+          () -> {
+            warmUp(testClass);
+            return null;
+          });
+    }
+
+    ForkJoinPool warmUpPool =
+        new ForkJoinPool(Math.min(testClasses.size(), Runtime.getRuntime().availableProcessors()));
+    try {
+      warmUpPool.invokeAll(warmUpTasks);
+    } finally {
+      warmUpPool.shutdown();
+    }
+  }
+
+  private static Set<Class<?>> testClassesOf(TestPlan testPlan) {
+    Set<Class<?>> testClasses = new LinkedHashSet<>();
+    Deque<TestIdentifier> pendingIdentifiers = new ArrayDeque<>(testPlan.getRoots());
+    while (!pendingIdentifiers.isEmpty()) {
+      TestIdentifier testIdentifier = pendingIdentifiers.removeFirst();
+      testIdentifier.getSource().map(ProxyWarmUpListener::javaClassOf).ifPresent(testClasses::add);
+      pendingIdentifiers.addAll(testPlan.getChildren(testIdentifier));
+    }
+    return testClasses;
+  }
+
+  private static Class<?> javaClassOf(TestSource testSource) {
+
+    // classes which cannot be loaded are reported by the engine running them.
+    try {
+      if (testSource instanceof ClassSource) {
+        return ((ClassSource) testSource).getJavaClass();
+      }
+      if (testSource instanceof MethodSource) {
+        return ((MethodSource) testSource).getJavaClass();
+      }
+    } catch (RuntimeException | LinkageError e) {
+      return null;
+    }
+    return null;
+  }
+
+  /**
+   * Determines whether the test class, or a class it inherits from, declares a {@link TestProxy}
+   * parameter or field.
+   *
+   * @param testClass The test class.
+   * @return Whether the test class has anything to prepare.
+   */
+  static boolean usesTestProxy(Class<?> testClass) {
+    try {
+      for (Class<?> type = testClass; type != null && type != Object.class; ) {
+        for (Method method : type.getDeclaredMethods()) {
+          for (Parameter parameter : method.getParameters()) {
+            if (parameter.isAnnotationPresent(TestProxy.class)) {
+              return true;
+            }
+          }
+        }
+        for (Field field : type.getDeclaredFields()) {
+          if (field.isAnnotationPresent(TestProxy.class)) {
+            return true;
+          }
+        }
+        type = type.getSuperclass();
+      }
+    } catch (LinkageError e) {
+      return false;
+    }
+    return false;
+  }
+
+  /**
+   * Prepares every {@link TestProxy} parameter of the test class's methods, and every {@link
+   * TestProxy} field, including the methods and fields it inherits.
+   *
+   * @param testClass The test class.
+   */
+  static void warmUp(Class<?> testClass) {
+    for (Class<?> type = testClass; type != null && type != Object.class; ) {
+      Method[] declaredMethods;
+      Field[] declaredFields;
+      try {
+        declaredMethods = type.getDeclaredMethods();
+        declaredFields = type.getDeclaredFields();
+      } catch (LinkageError e) {
+        return;
+      }
+
+      for (Method method : declaredMethods) {
+        for (Parameter parameter : method.getParameters()) {
+          TestProxy testProxy = parameter.getAnnotation(TestProxy.class);
+          if (testProxy != null && parameter.getType().isInterface()) {
+            warmUp(testClass, testProxy.value(), parameter.getType());
+          }
+        }
+      }
+
+      // injected fields name an object under test of the class declaring them.
+      for (Field field : declaredFields) {
+        TestProxy testProxy = field.getAnnotation(TestProxy.class);
+        if (testProxy != null && field.getType().isInterface()) {
+          warmUp(type, testProxy.value(), field.getType());
+        }
+      }
+      type = type.getSuperclass();
+    }
+  }
+
+  private static void warmUp(Class<?> testClass, String fieldName, Class<?> proxyInterface) {
+    try {
+      Class<?> fieldType = FieldAccessor.forField(testClass, fieldName).getField().getType();
+
+      // the field's type is taken as the object under test's class, which rules out interfaces and
+      // abstract classes. any other class is simply prepared without being used.
+      if (!fieldType.isArray()
+          && !fieldType.isPrimitive()
+          && !Modifier.isAbstract(fieldType.getModifiers())) {
+        ProxyFactory.forInterfaces(proxyInterface).prepare(fieldType);
+      }
+    } catch (NoSuchFieldException | IllegalAccessException | RuntimeException | LinkageError e) {
+      // reported by the resolver when the test runs.
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package dev.bradhandy.testing.reflection.runner;
+
+import org.junit.runners.model.RunnerScheduler;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * {@link RunnerScheduler} executing the children of a runner on a dedicated {@link ForkJoinPool}.
+ * The pool is created when the first child is scheduled and shut down once every child has
+ * finished.
+ *
+ * <p>Worker threads use the test class's class loader as their context class loader, so test code
+ * relying on the context class loader behaves as it does when the children run serially.
+ *
+ * @author bhandy
+ */
+class ForkJoinRunnerScheduler implements RunnerScheduler {
+
+  private final int parallelism;
+  private final ClassLoader testClassLoader;
+  private final Queue<ForkJoinTask<?>> scheduledChildren = new ConcurrentLinkedQueue<>();
+  private ForkJoinPool forkJoinPool;
+
+  ForkJoinRunnerScheduler(int parallelism, ClassLoader testClassLoader) {
+    this.parallelism = parallelism;
+    this.testClassLoader = testClassLoader;
+  }
+
+  @Override
+  public void schedule(Runnable childStatement) {
+    if (forkJoinPool == null) {
+      forkJoinPool = new ForkJoinPool(parallelism, this::newWorkerThread, null, false);
+    }
+    scheduledChildren.add(forkJoinPool.submit(childStatement));
+  }
+
+  @Override
+  public void finished() {
+    if (forkJoinPool == null) {
+      return;
+    }
+
+    // failures are reported to the RunNotifier by each child, so joining only waits for the
+    // children to complete. anything escaping a child is rethrown once every child is done.
+    RuntimeException childFailure = null;
+    try {
+      for (ForkJoinTask<?> scheduledChild : scheduledChildren) {
+        try {
+          scheduledChild.join();
+        } catch (RuntimeException e) {
+          if (childFailure == null) {
+            childFailure = e;
+          } else {
+            childFailure.addSuppressed(e);
+          }
+        }
+      }
+    } finally {
+      forkJoinPool.shutdown();
+      forkJoinPool = null;
+      scheduledChildren.clear();
+    }
+
+    if (childFailure != null) {
+      throw childFailure;
+    }
+  }
+
+  private ForkJoinWorkerThread newWorkerThread(ForkJoinPool pool) {
+    ForkJoinWorkerThread workerThread =
+        ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+    workerThread.setContextClassLoader(testClassLoader);
+    return workerThread;
+  }
+}
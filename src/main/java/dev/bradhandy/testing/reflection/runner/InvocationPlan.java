@@ -0,0 +1,89 @@
+package dev.bradhandy.testing.reflection.runner;
+
+import dev.bradhandy.testing.reflection.TestProxy;
+import dev.bradhandy.testing.reflection.util.FieldAccessor;
+import dev.bradhandy.testing.reflection.util.ProxyFactory;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+
+/**
+ * Immutable plan for supplying the arguments of a test method. Everything derived from the method
+ * itself (the {@link TestProxy} field, the interface type of the proxy and the factory creating it)
+ * is resolved once when the plan is compiled, so executing the plan only reads the field and
+ * creates the proxy.
+ *
+ * @author bhandy
+ */
+final class InvocationPlan {
+
+  private final int parameterCount;
+  private final FieldAccessor objectUnderTestAccessor;
+  private final ProxyFactory proxyFactory;
+
+  private InvocationPlan(
+      int parameterCount, FieldAccessor objectUnderTestAccessor, ProxyFactory proxyFactory) {
+    this.parameterCount = parameterCount;
+    this.objectUnderTestAccessor = objectUnderTestAccessor;
+    this.proxyFactory = proxyFactory;
+  }
+
+  /**
+   * Compiles the plan for the test method. Only a method with a single parameter receives a proxy,
+   * matching the validation performed by {@link ObjectUnderTestProxyRunner}.
+   *
+   * @param testMethod The test method to be invoked.
+   * @param testClass The test class declaring the field referenced by {@link TestProxy}.
+   * @return The plan for the method.
+   * @throws NoSuchFieldException if the test class has no field with the name configured in the
+   *     {@link TestProxy} annotation.
+   * @throws IllegalAccessException if the field containing the object under test is not
+   *     accessible.
+   * @throws IllegalArgumentException if the single parameter is not annotated with {@link
+   *     TestProxy}.
+   */
+  static InvocationPlan compile(Method testMethod, Class<?> testClass)
+      throws NoSuchFieldException, IllegalAccessException {
+    int parameterCount = testMethod.getParameterCount();
+    if (parameterCount != 1) {
+      return new InvocationPlan(parameterCount, null, null);
+    }
+
+    Parameter proxyParameter = testMethod.getParameters()[0];
+    TestProxy testProxyAnnotation = proxyParameter.getAnnotation(TestProxy.class);
+    if (testProxyAnnotation == null) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Method %s has parameter without @%s.",
+              testMethod.getName(), TestProxy.class.getSimpleName()));
+    }
+
+    return new InvocationPlan(
+        parameterCount,
+        FieldAccessor.forField(testClass, testProxyAnnotation.value()),
+        ProxyFactory.forInterfaces(proxyParameter.getType()));
+  }
+
+  /**
+   * @return The name, or dotted path, of the field containing the object under test, or null if
+   *     the method accepts no proxy.
+   */
+  String getFieldName() {
+    return (objectUnderTestAccessor != null) ? objectUnderTestAccessor.getPath() : null;
+  }
+
+  /**
+   * Creates the arguments for a single invocation of the test method.
+   *
+   * @param target The test class instance which is the target of the test method.
+   * @return The arguments, containing a proxy around the current object under test if the method
+   *     accepts one.
+   */
+  Object[] arguments(Object target) {
+    Object[] arguments = new Object[parameterCount];
+    if (objectUnderTestAccessor != null) {
+      arguments[0] = proxyFactory.newProxy(objectUnderTestAccessor.get(target));
+    }
+    return arguments;
+  }
+}
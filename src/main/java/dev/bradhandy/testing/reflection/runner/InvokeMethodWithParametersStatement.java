@@ -1,13 +1,11 @@
 package dev.bradhandy.testing.reflection.runner;
 
-import dev.bradhandy.testing.reflection.ObjectUnderTestBuilder;
 import dev.bradhandy.testing.reflection.TestProxy;
+import dev.bradhandy.testing.reflection.events.FieldResolutionEvent;
 import org.junit.runners.model.FrameworkMethod;
 import org.junit.runners.model.Statement;
 
-import java.lang.reflect.Field;
 import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.Parameter;
 
 /**
  * Implementation of {@link Statement} to create a Proxy around the object under test. The proxy's
@@ -20,10 +18,23 @@ public class InvokeMethodWithParametersStatement extends Statement {
 
   private final FrameworkMethod frameworkMethod;
   private final Object target;
+  private final InvocationPlan invocationPlan;
 
   public InvokeMethodWithParametersStatement(FrameworkMethod frameworkMethod, Object target) {
+    this(frameworkMethod, target, null);
+  }
+
+  /**
+   * @param frameworkMethod A reference to the test method to be executed.
+   * @param target The test class instance which is the target of the test method.
+   * @param invocationPlan The plan compiled for the test method, or null to compile the plan when
+   *     the statement is evaluated.
+   */
+  InvokeMethodWithParametersStatement(
+      FrameworkMethod frameworkMethod, Object target, InvocationPlan invocationPlan) {
     this.frameworkMethod = frameworkMethod;
     this.target = target;
+    this.invocationPlan = invocationPlan;
   }
 
   /**
@@ -40,33 +51,24 @@ public class InvokeMethodWithParametersStatement extends Statement {
   @Override
   public void evaluate() throws Throwable {
 
-    // retrieve the parameter list from the method to be executed. we'll check if there is an
-    // annotated argument for we'll create a proxy. otherwise, we'll do nothing with the argument
-    // list. finally, we'll invoke the method with the argument list.
-    Parameter[] frameworkMethodParameters = frameworkMethod.getMethod().getParameters();
-    Object[] arguments = new Object[frameworkMethodParameters.length];
-    if (frameworkMethodParameters.length == 1) {
-      arguments[0] = createProxyForParameter(frameworkMethodParameters[0]);
+    // the runner compiles the plan while validating the test class. a statement created without
+    // one inspects the method's parameter, annotation and field here instead.
+    FieldResolutionEvent resolutionEvent = new FieldResolutionEvent();
+    resolutionEvent.begin();
+    InvocationPlan plan = invocationPlan;
+    Object[] arguments;
+    try {
+      if (plan == null) {
+        plan = InvocationPlan.compile(frameworkMethod.getMethod(), target.getClass());
+      }
+      arguments = plan.arguments(target);
+    } finally {
+      // failed resolutions are recorded as well, as long as the plan names the field.
+      if (plan != null && plan.getFieldName() != null) {
+        resolutionEvent.complete(target.getClass(), plan.getFieldName());
+      }
     }
 
     frameworkMethod.invokeExplosively(target, arguments);
   }
-
-  private Object createProxyForParameter(Parameter proxyParameter)
-      throws NoSuchFieldException, IllegalAccessException {
-
-    // look up the field on the current test class, and make sure the field's accessibility is
-    // updated so we can retrieve the value.
-    TestProxy testProxyAnnotation = proxyParameter.getAnnotation(TestProxy.class);
-    Field fieldUnderTest = target.getClass().getDeclaredField(testProxyAnnotation.value());
-    fieldUnderTest.setAccessible(true);
-
-    // retrieve the value of the referenced field, then create a Proxy using the interface type of
-    // the expected parameter. the InvocationHandle we provide will receive the value of the field
-    // as the target object for invoking the private method matching the interface definition.
-    Object objectUnderTest = fieldUnderTest.get(target);
-    return ObjectUnderTestBuilder.using(objectUnderTest)
-        .conformingTo(proxyParameter.getType())
-        .build();
-  }
 }
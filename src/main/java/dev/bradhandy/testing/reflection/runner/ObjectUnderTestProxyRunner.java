@@ -1,6 +1,7 @@
 package dev.bradhandy.testing.reflection.runner;
 
 import dev.bradhandy.testing.reflection.TestProxy;
+import dev.bradhandy.testing.reflection.util.FieldAccessor;
 import org.junit.Test;
 import org.junit.runners.BlockJUnit4ClassRunner;
 import org.junit.runners.model.FrameworkMethod;
@@ -9,7 +10,10 @@ import org.junit.runners.model.Statement;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Extension of {@link BlockJUnit4ClassRunner} to allow for a single annotated parameter. The
@@ -57,12 +61,71 @@ import java.util.List;
  *   }
  * </pre>
  *
+ * <p>Test methods execute serially unless the test class is annotated with {@link
+ * ParallelExecution} or the {@value #PARALLELISM_PROPERTY} system property is set. The property
+ * accepts {@code true} to use every available processor, or the number of test methods executed at
+ * the same time. Proxy creation and the proxies themselves are safe to use from concurrently
+ * executing test methods.
+ *
  * @author bhandy
  */
 public class ObjectUnderTestProxyRunner extends BlockJUnit4ClassRunner {
 
+  /** System property enabling parallel execution for every test class using the runner. */
+  public static final String PARALLELISM_PROPERTY =
+      "dev.bradhandy.testing.reflection.runner.parallelism";
+
+  // assigned by validateTestMethods, which runs from the super constructor. an initializer would
+  // overwrite the plans once the super constructor returns.
+  private Map<FrameworkMethod, InvocationPlan> invocationPlans;
+
   public ObjectUnderTestProxyRunner(Class<?> testClass) throws InitializationError {
     super(testClass);
+
+    int parallelism = parallelismFor(testClass);
+    if (parallelism > 1) {
+      setScheduler(new ForkJoinRunnerScheduler(parallelism, testClass.getClassLoader()));
+    }
+  }
+
+  /**
+   * Determines how many test methods of the test class execute at the same time.
+   *
+   * @param testClass The test class to be run.
+   * @return The parallelism for the test class, where one means serial execution.
+   * @throws InitializationError if the system property is neither a boolean nor a number.
+   */
+  static int parallelismFor(Class<?> testClass) throws InitializationError {
+    ParallelExecution parallelExecution = testClass.getAnnotation(ParallelExecution.class);
+    if (parallelExecution != null) {
+      return normalizeParallelism(parallelExecution.parallelism());
+    }
+
+    String parallelismProperty = System.getProperty(PARALLELISM_PROPERTY);
+    if (parallelismProperty == null || parallelismProperty.trim().isEmpty()) {
+      return 1;
+    }
+
+    String parallelismValue = parallelismProperty.trim();
+    if ("true".equalsIgnoreCase(parallelismValue)) {
+      return normalizeParallelism(0);
+    }
+    if ("false".equalsIgnoreCase(parallelismValue)) {
+      return 1;
+    }
+
+    try {
+      return normalizeParallelism(Integer.parseInt(parallelismValue));
+    } catch (NumberFormatException e) {
+      throw new InitializationError(
+          String.format(
+              "System property %s must be true, false or a number (%s).",
+              PARALLELISM_PROPERTY, parallelismValue));
+    }
+  }
+
+  private static int normalizeParallelism(int parallelism) {
+    return (parallelism > 0) ? parallelism : Runtime.getRuntime().availableProcessors();
   }
 
   /**
@@ -75,7 +138,8 @@ public class ObjectUnderTestProxyRunner extends BlockJUnit4ClassRunner {
    */
   @Override
   protected Statement methodInvoker(FrameworkMethod method, Object test) {
-    return new InvokeMethodWithParametersStatement(method, test);
+    InvocationPlan invocationPlan = (invocationPlans != null) ? invocationPlans.get(method) : null;
+    return new InvokeMethodWithParametersStatement(method, test, invocationPlan);
   }
 
   /**
@@ -88,21 +152,50 @@ public class ObjectUnderTestProxyRunner extends BlockJUnit4ClassRunner {
    *       <ul>
    *         <li>have an interface type,
    *         <li>have a @TestProxy annotation, and
-   *         <li>reference a field with the same name configured in the @TestProxy annotation.
+   *         <li>reference a field, or a dotted path of fields, with the name configured in the
+   *             @TestProxy annotation.
    *       </ul>
    * </ul>
    *
+   * <p>An {@link InvocationPlan} is compiled for every valid method, so executing the method does
+   * not inspect its parameter, annotation and field again.
+   *
    * @param errors A List where validation errors will be written.
    */
   @Override
   protected void validateTestMethods(List<Throwable> errors) {
     List<FrameworkMethod> testMethods = getTestClass().getAnnotatedMethods(Test.class);
+    Map<FrameworkMethod, InvocationPlan> compiledPlans = new HashMap<>();
 
     for (FrameworkMethod frameworkMethod : testMethods) {
+      int previousErrorCount = errors.size();
       frameworkMethod.validatePublicVoid(false, errors);
       validateMethodHasOneArgument(frameworkMethod, errors);
       validateMethodHasOnlyInterfaceTypeArgument(frameworkMethod, errors);
       validateTestProxyAnnotation(frameworkMethod, errors);
+
+      if (errors.size() == previousErrorCount) {
+        compileInvocationPlan(frameworkMethod, compiledPlans, errors);
+      }
+    }
+
+    invocationPlans = Collections.unmodifiableMap(compiledPlans);
+  }
+
+  private void compileInvocationPlan(
+      FrameworkMethod frameworkMethod,
+      Map<FrameworkMethod, InvocationPlan> compiledPlans,
+      List<Throwable> errors) {
+    Class<?> testClass = getTestClass().getJavaClass();
+    try {
+      compiledPlans.put(
+          frameworkMethod, InvocationPlan.compile(frameworkMethod.getMethod(), testClass));
+    } catch (NoSuchFieldException | IllegalAccessException e) {
+      errors.add(
+          new Exception(
+              String.format(
+                  "Unable to compile invocation plan for method %s.", frameworkMethod.getName()),
+              e));
     }
   }
 
@@ -151,9 +244,17 @@ public class ObjectUnderTestProxyRunner extends BlockJUnit4ClassRunner {
                   "Method %s has parameter without @%s.",
                   frameworkMethod.getName(), TestProxy.class.getSimpleName())));
     } else {
+      // dotted paths are resolved the same way the invocation plan reads them.
       Class<?> testClass = getTestClass().getJavaClass();
       try {
-        testClass.getDeclaredField(testProxyAnnotation.value());
+        FieldAccessor.forField(testClass, testProxyAnnotation.value());
+      } catch (IllegalAccessException e) {
+        errors.add(
+            new Exception(
+                String.format(
+                    "Test Class %s cannot access field with name %s.",
+                    testClass.getSimpleName(), testProxyAnnotation.value()),
+                e));
       } catch (NoSuchFieldException e) {
         errors.add(
             new Exception(
@@ -0,0 +1,26 @@
+package dev.bradhandy.testing.reflection.runner;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotates a test class run by {@link ObjectUnderTestProxyRunner} to execute its test methods in
+ * parallel on a fork-join pool. The annotation takes precedence over the {@value
+ * ObjectUnderTestProxyRunner#PARALLELISM_PROPERTY} system property.
+ *
+ * @author bhandy
+ */
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ParallelExecution {
+
+  /**
+   * @return The number of test methods executed at the same time. Zero or less uses the number of
+   *     available processors, and one executes the methods serially.
+   */
+  int parallelism() default 0;
+}
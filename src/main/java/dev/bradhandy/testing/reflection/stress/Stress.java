@@ -0,0 +1,232 @@
+package dev.bradhandy.testing.reflection.stress;
+
+import dev.bradhandy.testing.reflection.InstanceScope;
+import dev.bradhandy.testing.reflection.ObjectUnderTestBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+/**
+ * Calls a proxy from many threads at once, to expose races in the private methods behind it such
+ * as lazy initializers and internal counters.
+ *
+ * <p>Every thread acquires its target, then waits on a start gate until all threads are ready, so
+ * the calls begin together instead of trickling in as the threads are started. Each thread records
+ * the result and latency of its calls in slots of its own, and failures are collected in a
+ * lock-free queue, so collecting them adds no contention to the calls being measured.
+ *
+ * <p>Example:
+ *
+ * <pre>
+ *   StressResult&lt;Integer&gt; result =
+ *       Stress.of(counterProxy).threads(16).iterations(10_000).run(p -&gt; p.increment());
+ *
+ *   assertThat(result.failures()).isEmpty();
+ *   assertThat(result.results()).doesNotHaveDuplicates();
+ * </pre>
+ *
+ * @param <T> The type of the proxy, or object, being called.
+ * @author bhandy
+ */
+public final class Stress<T> {
+
+  private final Supplier<? extends T> targets;
+  private final int threadCount;
+  private final int iterations;
+
+  private Stress(Supplier<? extends T> targets, int threadCount, int iterations) {
+    this.targets = targets;
+    this.threadCount = threadCount;
+    this.iterations = iterations;
+  }
+
+  /**
+   * Creates a run calling the same proxy from every thread. The run uses as many threads as there
+   * are available processors, and a single iteration, unless configured otherwise.
+   *
+   * @param proxy The proxy, or object, called by every thread.
+   * @param <T> The type of the proxy.
+   * @return The stress run.
+   */
+  public static <T> Stress<T> of(T proxy) {
+    Objects.requireNonNull(proxy, "proxy");
+    return new Stress<>(() -> proxy, Runtime.getRuntime().availableProcessors(), 1);
+  }
+
+  /**
+   * Creates a run in which every thread calls a proxy built by the builder. The builder's {@link
+   * InstanceScope} decides whether threads share the object under test: a {@link
+   * InstanceScope#singleton()} builder is shared by every thread, while the default scope gives
+   * each thread its own.
+   *
+   * @param objectUnderTestBuilder The builder of the proxies, already conforming to the interfaces.
+   * @param <T> The type of the proxies.
+   * @return The stress run.
+   */
+  public static <T> Stress<T> of(ObjectUnderTestBuilder objectUnderTestBuilder) {
+    Objects.requireNonNull(objectUnderTestBuilder, "objectUnderTestBuilder");
+    return new Stress<>(
+        objectUnderTestBuilder::<T>build, Runtime.getRuntime().availableProcessors(), 1);
+  }
+
+  /**
+   * @param threadCount The number of threads calling the proxy at the same time.
+   * @return A run using the given number of threads.
+   * @throws IllegalArgumentException if the number of threads is not positive.
+   */
+  public Stress<T> threads(int threadCount) {
+    if (threadCount < 1) {
+      throw new IllegalArgumentException(
+          String.format("At least one thread is required, not %d.", threadCount));
+    }
+    return new Stress<>(targets, threadCount, iterations);
+  }
+
+  /**
+   * @param iterations The number of calls made by each thread.
+   * @return A run making the given number of calls on each thread.
+   * @throws IllegalArgumentException if the number of iterations is not positive.
+   */
+  public Stress<T> iterations(int iterations) {
+    if (iterations < 1) {
+      throw new IllegalArgumentException(
+          String.format("At least one iteration is required, not %d.", iterations));
+    }
+    return new Stress<>(targets, threadCount, iterations);
+  }
+
+  /**
+   * Calls the operation on every thread for every iteration, and waits for every thread to
+   * finish. Exceptions thrown by the operation, including failed assertions, are collected rather
+   * than stopping the run.
+   *
+   * @param operation The call made on every iteration.
+   * @param <R> The type of the results.
+   * @return The results, failures and timings of the calls.
+   * @throws InterruptedException if interrupted while waiting for the threads.
+   */
+  public <R> StressResult<R> run(StressOperation<? super T, ? extends R> operation)
+      throws InterruptedException {
+    Objects.requireNonNull(operation, "operation");
+
+    Object[][] results = new Object[threadCount][iterations];
+    boolean[][] completed = new boolean[threadCount][iterations];
+    long[][] latencies = new long[threadCount][iterations];
+    int[] callCounts = new int[threadCount];
+    Queue<Throwable> acquisitionFailures = new ConcurrentLinkedQueue<>();
+    Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+    CountDownLatch readyThreads = new CountDownLatch(threadCount);
+    CountDownLatch startGate = new CountDownLatch(1);
+
+    List<Thread> threads = new ArrayList<>(threadCount);
+    for (int i = 0; i < threadCount; i++) {
+      int threadIndex = i;
+      Thread thread =
+          new Thread(
+              () -> {
+                T target;
+                try {
+                  target = targets.get();
+                } catch (RuntimeException | Error e) {
+                  acquisitionFailures.add(e);
+                  return;
+                } finally {
+                  readyThreads.countDown();
+                }
+
+                try {
+                  startGate.await();
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                  return;
+                }
+
+                // each thread only writes its own row, which is published to the caller by join.
+                // the shared call counts are written once, so neighbouring counts never contend.
+                int callCount = 0;
+                try {
+                  for (int iteration = 0; iteration < iterations; iteration++) {
+                    long startTime = System.nanoTime();
+                    try {
+                      results[threadIndex][iteration] = operation.apply(target);
+                      completed[threadIndex][iteration] = true;
+                    } catch (Throwable e) {
+                      failures.add(e);
+                    }
+                    latencies[threadIndex][iteration] = System.nanoTime() - startTime;
+                    callCount++;
+                  }
+                } finally {
+                  callCounts[threadIndex] = callCount;
+                }
+              },
+              "stress-" + i);
+      thread.setDaemon(true);
+      threads.add(thread);
+    }
+
+    for (Thread thread : threads) {
+      thread.start();
+    }
+
+    long startTime;
+    try {
+      readyThreads.await();
+      startTime = System.nanoTime();
+      startGate.countDown();
+      for (Thread thread : threads) {
+        thread.join();
+      }
+    } catch (InterruptedException e) {
+      threads.forEach(Thread::interrupt);
+      throw e;
+    }
+    long elapsedTime = System.nanoTime() - startTime;
+
+    // threads which could not acquire their target, or were interrupted, made fewer calls.
+    List<R> collectedResults = new ArrayList<>();
+    long[] collectedLatencies = new long[Arrays.stream(callCounts).sum()];
+    int latencyCount = 0;
+    for (int threadIndex = 0; threadIndex < threadCount; threadIndex++) {
+      for (int iteration = 0; iteration < callCounts[threadIndex]; iteration++) {
+        collectedLatencies[latencyCount++] = latencies[threadIndex][iteration];
+        if (completed[threadIndex][iteration]) {
+          @SuppressWarnings("unchecked")
+          R result = (R) results[threadIndex][iteration];
+          collectedResults.add(result);
+        }
+      }
+    }
+    return new StressResult<>(
+        threadCount,
+        iterations,
+        collectedResults,
+        new ArrayList<>(acquisitionFailures),
+        new ArrayList<>(failures),
+        collectedLatencies,
+        elapsedTime);
+  }
+
+  /**
+   * Calls the action on every thread for every iteration, and waits for every thread to finish.
+   *
+   * @param action The call made on every iteration.
+   * @return The failures and timings of the calls.
+   * @throws InterruptedException if interrupted while waiting for the threads.
+   * @see #run(StressOperation)
+   */
+  public StressResult<Void> execute(StressAction<? super T> action) throws InterruptedException {
+    Objects.requireNonNull(action, "action");
+    return run(
+        target -> {
+          action.accept(target);
+          return null;
+        });
+  }
+}
@@ -0,0 +1,19 @@
+package dev.bradhandy.testing.reflection.stress;
+
+/**
+ * A single call without a result made by every thread of a {@link Stress} run, on every iteration.
+ *
+ * @param <T> The type of the proxy, or object, being called.
+ * @author bhandy
+ */
+@FunctionalInterface
+public interface StressAction<T> {
+
+  /**
+   * Calls the proxy once.
+   *
+   * @param target The proxy, or object, being called.
+   * @throws Throwable any exception thrown by the call, which is collected as a failure.
+   */
+  void accept(T target) throws Throwable;
+}
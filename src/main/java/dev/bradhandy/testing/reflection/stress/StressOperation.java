@@ -0,0 +1,21 @@
+package dev.bradhandy.testing.reflection.stress;
+
+/**
+ * A single call made by every thread of a {@link Stress} run, on every iteration.
+ *
+ * @param <T> The type of the proxy, or object, being called.
+ * @param <R> The type of the result collected for each call.
+ * @author bhandy
+ */
+@FunctionalInterface
+public interface StressOperation<T, R> {
+
+  /**
+   * Calls the proxy once.
+   *
+   * @param target The proxy, or object, being called.
+   * @return The result of the call.
+   * @throws Throwable any exception thrown by the call, which is collected as a failure.
+   */
+  R apply(T target) throws Throwable;
+}
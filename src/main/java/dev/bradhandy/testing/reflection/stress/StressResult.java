@@ -0,0 +1,174 @@
+package dev.bradhandy.testing.reflection.stress;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a {@link Stress} run: the result of every call which returned, every exception
+ * thrown, and how long the calls took.
+ *
+ * @param <R> The type of the results.
+ * @author bhandy
+ */
+public final class StressResult<R> {
+
+  private final int threadCount;
+  private final int iterations;
+  private final List<R> results;
+  private final List<Throwable> acquisitionFailures;
+  private final List<Throwable> failures;
+  private final long[] sortedLatencies;
+  private final long elapsedTime;
+
+  StressResult(
+      int threadCount,
+      int iterations,
+      List<R> results,
+      List<Throwable> acquisitionFailures,
+      List<Throwable> callFailures,
+      long[] latencies,
+      long elapsedTime) {
+    this.threadCount = threadCount;
+    this.iterations = iterations;
+    this.results = Collections.unmodifiableList(results);
+    this.acquisitionFailures = Collections.unmodifiableList(acquisitionFailures);
+
+    // targets are acquired before the threads are released, so their failures come first.
+    List<Throwable> failures = new ArrayList<>(acquisitionFailures);
+    failures.addAll(callFailures);
+    this.failures = Collections.unmodifiableList(failures);
+    this.sortedLatencies = latencies;
+    this.elapsedTime = elapsedTime;
+    Arrays.sort(this.sortedLatencies);
+  }
+
+  /** @return The number of threads which called the proxy. */
+  public int threadCount() {
+    return threadCount;
+  }
+
+  /** @return The number of calls each thread was configured to make. */
+  public int iterations() {
+    return iterations;
+  }
+
+  /** @return The number of calls made, whether they returned or threw. */
+  public int callCount() {
+    return sortedLatencies.length;
+  }
+
+  /**
+   * @return The result of every call which returned, grouped by thread and in the order each thread
+   *     made its calls.
+   */
+  public List<R> results() {
+    return results;
+  }
+
+  /**
+   * @return Every exception thrown, including those thrown while a thread acquired its proxy, in
+   *     the order they were collected.
+   */
+  public List<Throwable> failures() {
+    return failures;
+  }
+
+  /**
+   * @return The exceptions thrown while threads acquired their proxies. Those threads made no
+   *     calls.
+   */
+  public List<Throwable> acquisitionFailures() {
+    return acquisitionFailures;
+  }
+
+  /**
+   * Fails when any exception was collected.
+   *
+   * @throws AssertionError caused by the first exception collected, with every other exception
+   *     suppressed.
+   */
+  public void assertNoFailures() {
+    if (failures.isEmpty()) {
+      return;
+    }
+
+    AssertionError failure = new AssertionError(describeFailures(), failures.get(0));
+    failures.stream().skip(1).forEach(failure::addSuppressed);
+    throw failure;
+  }
+
+  private String describeFailures() {
+    int callFailureCount = failures.size() - acquisitionFailures.size();
+    String callFailures = String.format("%d of %d calls failed", callFailureCount, callCount());
+    if (acquisitionFailures.isEmpty()) {
+      return callFailures + ".";
+    }
+
+    String threadFailures =
+        String.format(
+            "%d of %d threads could not acquire their proxy",
+            acquisitionFailures.size(), threadCount);
+    return (callFailureCount > 0)
+        ? String.format("%s, and %s.", callFailures, threadFailures)
+        : threadFailures + ".";
+  }
+
+  /** @return The time from the release of the threads until the last one finished. */
+  public Duration elapsed() {
+    return Duration.ofNanos(elapsedTime);
+  }
+
+  /** @return The number of calls made per second, across every thread. */
+  public double throughput() {
+    return (elapsedTime > 0) ? callCount() * 1_000_000_000.0 / elapsedTime : 0.0;
+  }
+
+  /**
+   * Finds the latency within which the given percentage of calls completed, using the nearest rank
+   * of the latencies of every call.
+   *
+   * @param percentile The percentage of calls, greater than 0 and at most 100, such as 50 or 99.9.
+   * @return The latency of the call at the percentile, or zero if no calls were made.
+   * @throws IllegalArgumentException if the percentile is out of range.
+   */
+  public Duration latencyPercentile(double percentile) {
+    if (!(percentile > 0.0 && percentile <= 100.0)) {
+      throw new IllegalArgumentException(
+          String.format("Percentile %s is not within (0, 100].", percentile));
+    }
+    if (sortedLatencies.length == 0) {
+      return Duration.ZERO;
+    }
+
+    int rank = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length);
+    return Duration.ofNanos(sortedLatencies[Math.max(rank, 1) - 1]);
+  }
+
+  /** @return The latency of the slowest call, or zero if no calls were made. */
+  public Duration maxLatency() {
+    return (sortedLatencies.length > 0)
+        ? Duration.ofNanos(sortedLatencies[sortedLatencies.length - 1])
+        : Duration.ZERO;
+  }
+
+  /** @return A one line report of the calls, failures, throughput and latencies. */
+  @Override
+  public String toString() {
+    return String.format(
+        "%d threads x %d iterations: %d calls, %d failed, %d threads without a proxy,"
+            + " %.0f calls/s, p50=%dns p99=%dns p99.9=%dns max=%dns",
+        threadCount,
+        iterations,
+        callCount(),
+        failures.size() - acquisitionFailures.size(),
+        acquisitionFailures.size(),
+        throughput(),
+        latencyPercentile(50).toNanos(),
+        latencyPercentile(99).toNanos(),
+        latencyPercentile(99.9).toNanos(),
+        maxLatency().toNanos());
+  }
+}
@@ -0,0 +1,130 @@
+package dev.bradhandy.testing.reflection.util;
+
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * {@link MethodInvoker} running a target method on an {@link Executor}, for interface methods
+ * declaring a {@link CompletableFuture} or {@link Future} of the target method's return type. The
+ * proxy call returns as soon as the target method is submitted, and the returned future completes
+ * with the target method's return value, boxed, or exceptionally with the exception it throws.
+ *
+ * <p>Unless the proxy is given its own executor, targets run on a virtual thread per call on Java
+ * 21 and later, and on the {@link ForkJoinPool#commonPool()} otherwise.
+ *
+ * @author bhandy
+ */
+final class AsyncMethodInvoker implements MethodInvoker {
+
+  private final MethodInvoker targetInvoker;
+
+  AsyncMethodInvoker(MethodInvoker targetInvoker) {
+    this.targetInvoker = targetInvoker;
+  }
+
+  /**
+   * Determines whether the interface method runs its target asynchronously: it declares a {@link
+   * CompletableFuture} or {@link Future}, and the target does not return one itself.
+   *
+   * @param interfaceMethod The method called on the proxy.
+   * @param targetReturnType The type produced by the matched method, field or constructor.
+   * @return Whether calls to the interface method are run on an executor.
+   */
+  static boolean runsAsynchronously(Method interfaceMethod, Class<?> targetReturnType) {
+    Class<?> interfaceReturnType = interfaceMethod.getReturnType();
+    return (interfaceReturnType == CompletableFuture.class || interfaceReturnType == Future.class)
+        && !interfaceReturnType.isAssignableFrom(targetReturnType);
+  }
+
+  /**
+   * Determines whether the future declared by the interface method can hold the target's return
+   * value. Futures of a wildcard or type variable hold anything, and void targets complete with
+   * null.
+   *
+   * @param interfaceMethod The method called on the proxy, declaring a future.
+   * @param targetReturnType The type produced by the matched method, field or constructor.
+   * @return Whether the boxed return value is an instance of the future's type argument.
+   */
+  static boolean completesWith(Method interfaceMethod, Class<?> targetReturnType) {
+    Type genericReturnType = interfaceMethod.getGenericReturnType();
+    if (targetReturnType == void.class || !(genericReturnType instanceof ParameterizedType)) {
+      return true;
+    }
+
+    Type resultType = ((ParameterizedType) genericReturnType).getActualTypeArguments()[0];
+    if (resultType instanceof ParameterizedType) {
+      resultType = ((ParameterizedType) resultType).getRawType();
+    }
+    if (!(resultType instanceof Class)) {
+      return true;
+    }
+    return ((Class<?>) resultType)
+        .isAssignableFrom(MethodType.methodType(targetReturnType).wrap().returnType());
+  }
+
+  /** @return The executor used by proxies which are not given one. */
+  static Executor defaultExecutor() {
+    return DefaultExecutorHolder.DEFAULT_EXECUTOR;
+  }
+
+  @Override
+  public Object invoke(Object objectUnderTest, Object[] arguments) {
+    return invokeOn(defaultExecutor(), objectUnderTest, arguments);
+  }
+
+  /**
+   * Submits the target method to the executor.
+   *
+   * @param executor The executor running the target method.
+   * @param objectUnderTest The object receiving the call, or the Class for static methods.
+   * @param arguments The arguments for the call.
+   * @return The future completed by the target method, or completed exceptionally if the
+   *     executor rejects it.
+   */
+  CompletableFuture<Object> invokeOn(
+      Executor executor, Object objectUnderTest, Object[] arguments) {
+    CompletableFuture<Object> result = new CompletableFuture<>();
+    try {
+      executor.execute(
+          () -> {
+            try {
+              result.complete(targetInvoker.invoke(objectUnderTest, arguments));
+            } catch (Throwable e) {
+              result.completeExceptionally(e);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      result.completeExceptionally(e);
+    }
+    return result;
+  }
+
+  // the default executor is only created once an asynchronous method is called.
+  private static final class DefaultExecutorHolder {
+
+    private static final Executor DEFAULT_EXECUTOR = createDefaultExecutor();
+
+    private static Executor createDefaultExecutor() {
+
+      // the library is compiled for Java 11, so virtual threads are located reflectively. they
+      // are a preview feature before Java 21, and only used once final.
+      if (Runtime.version().feature() >= 21) {
+        try {
+          return (Executor)
+              Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+          return ForkJoinPool.commonPool();
+        }
+      }
+      return ForkJoinPool.commonPool();
+    }
+  }
+}
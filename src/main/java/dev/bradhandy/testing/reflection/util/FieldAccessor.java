@@ -0,0 +1,179 @@
+package dev.bradhandy.testing.reflection.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Compiled read access to a field declared by a test class, used to retrieve the object under test
+ * named by {@link dev.bradhandy.testing.reflection.TestProxy}.
+ *
+ * <p>The field is looked up once per declaring class and name. Its {@link VarHandle} is adapted
+ * once to accept the test instance as an Object, so reading the field afterwards is a single {@code
+ * invokeExact} call, without {@link Field#setAccessible(boolean)} or access checks.
+ *
+ * <p>The name may also be a dotted path, such as {@code fixture.service.repository}, reaching the
+ * object under test through the fields of other objects. Each field after the first is looked up
+ * in the declared type of the field before it, or its superclasses, and the getters of the whole
+ * path are composed into a single MethodHandle. A null object along the path fails the read with a
+ * {@link NullPointerException} naming the null part of the path.
+ *
+ * @author bhandy
+ */
+public final class FieldAccessor {
+
+  private static final ClassValue<ConcurrentMap<String, FieldAccessor>> FIELD_ACCESSORS =
+      new ClassValue<ConcurrentMap<String, FieldAccessor>>() {
+        @Override
+        protected ConcurrentMap<String, FieldAccessor> computeValue(Class<?> declaringClass) {
+          return new ConcurrentHashMap<>();
+        }
+      };
+
+  private static final MethodType GENERIC_GETTER_TYPE =
+      MethodType.methodType(Object.class, Object.class);
+
+  private static final MethodHandle IS_NULL;
+  private static final MethodHandle NULL_LINK;
+
+  static {
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      IS_NULL =
+          lookup.findStatic(
+              Objects.class, "isNull", MethodType.methodType(boolean.class, Object.class));
+      NULL_LINK =
+          lookup.findStatic(
+              FieldAccessor.class,
+              "nullLink",
+              MethodType.methodType(Object.class, String.class, String.class, Object.class));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private final String path;
+  private final Field field;
+  private final MethodHandle getter;
+
+  private FieldAccessor(String path, Field field, MethodHandle getter) {
+    this.path = path;
+    this.field = field;
+    this.getter = getter;
+  }
+
+  /**
+   * Retrieves the accessor for the field with the given name, or the given dotted path of fields.
+   * The same accessor is returned for every call with the same class and name.
+   *
+   * @param declaringClass The class declaring the field, or the first field of the path.
+   * @param fieldName The name of the field, or a dotted path of field names.
+   * @return The accessor for the field.
+   * @throws NoSuchFieldException if the class does not declare a field with the name, or a field
+   *     of the path cannot be found.
+   * @throws IllegalAccessException if any field cannot be accessed.
+   */
+  public static FieldAccessor forField(Class<?> declaringClass, String fieldName)
+      throws NoSuchFieldException, IllegalAccessException {
+    ConcurrentMap<String, FieldAccessor> accessors = FIELD_ACCESSORS.get(declaringClass);
+    FieldAccessor accessor = accessors.get(fieldName);
+    if (accessor != null) {
+      return accessor;
+    }
+
+    // the lookup happens outside of the map so the checked exceptions can propagate. two threads
+    // may race to compile the same field, but only the first accessor is ever published.
+    FieldAccessor compiledAccessor = compile(declaringClass, fieldName);
+    FieldAccessor publishedAccessor = accessors.putIfAbsent(fieldName, compiledAccessor);
+    return (publishedAccessor != null) ? publishedAccessor : compiledAccessor;
+  }
+
+  private static FieldAccessor compile(Class<?> declaringClass, String path)
+      throws NoSuchFieldException, IllegalAccessException {
+    String[] fieldNames = path.split("\\.", -1);
+    Field field = declaringClass.getDeclaredField(fieldNames[0]);
+    MethodHandle getter = getterOf(field);
+    for (int i = 1; i < fieldNames.length; i++) {
+      Field nextField = findField(field.getType(), fieldNames[i], path);
+      MethodHandle nextGetter = getterOf(nextField);
+
+      // static fields ignore the object they are read from, so only instance fields need it to be
+      // present.
+      if (!Modifier.isStatic(nextField.getModifiers())) {
+        MethodHandle nullLink =
+            MethodHandles.insertArguments(
+                NULL_LINK, 0, String.join(".", Arrays.copyOf(fieldNames, i)), path);
+        nextGetter = MethodHandles.guardWithTest(IS_NULL, nullLink, nextGetter);
+      }
+      getter = MethodHandles.filterReturnValue(getter, nextGetter);
+      field = nextField;
+    }
+    return new FieldAccessor(path, field, getter);
+  }
+
+  private static Field findField(Class<?> type, String fieldName, String path)
+      throws NoSuchFieldException {
+    for (Class<?> candidate = type; candidate != null; candidate = candidate.getSuperclass()) {
+      try {
+        return candidate.getDeclaredField(fieldName);
+      } catch (NoSuchFieldException e) {
+        continue;
+      }
+    }
+    throw new NoSuchFieldException(
+        String.format("%s of %s is not declared by %s.", fieldName, path, type.getName()));
+  }
+
+  private static MethodHandle getterOf(Field field) throws IllegalAccessException {
+    MethodHandles.Lookup lookup =
+        MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup());
+    MethodHandle getter =
+        lookup.unreflectVarHandle(field).toMethodHandle(VarHandle.AccessMode.GET);
+
+    // static fields have no receiver, but the accessor always passes the test instance along. the
+    // instance is simply dropped.
+    if (Modifier.isStatic(field.getModifiers())) {
+      getter = MethodHandles.dropArguments(getter, 0, Object.class);
+    }
+    return getter.asType(GENERIC_GETTER_TYPE);
+  }
+
+  private static Object nullLink(String nullPath, String path, Object nullValue) {
+    throw new NullPointerException(
+        String.format("Unable to read %s, because %s is null.", path, nullPath));
+  }
+
+  /**
+   * Reads the field from the given instance.
+   *
+   * @param instance The instance declaring the field. Ignored for static fields.
+   * @return The value of the field.
+   */
+  public Object get(Object instance) {
+    try {
+      return (Object) getter.invokeExact(instance);
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      // reading a field declares nothing to be thrown.
+      throw new IllegalStateException(String.format("Unable to read field %s.", field), e);
+    }
+  }
+
+  /** @return The field read by this accessor, which is the last field of a path. */
+  public Field getField() {
+    return field;
+  }
+
+  /** @return The name of the field, or the dotted path of fields, read by this accessor. */
+  public String getPath() {
+    return path;
+  }
+}
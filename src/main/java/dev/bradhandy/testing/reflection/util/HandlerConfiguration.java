@@ -0,0 +1,60 @@
+package dev.bradhandy.testing.reflection.util;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * How a {@link MethodUnderTestInvocationHandler} reaches the members of its object under test. A
+ * {@link ProxyFactory} builds one configuration for each class of the objects under test, which is
+ * shared by every handler it creates for that class.
+ *
+ * @author bhandy
+ */
+final class HandlerConfiguration {
+
+  static final HandlerConfiguration DEFAULT =
+      new HandlerConfiguration(
+          InvocationStrategy.METHOD_HANDLE, MethodMatching.EXACT, Collections.emptyMap(), null);
+
+  private final InvocationStrategy invocationStrategy;
+  private final MethodMatching methodMatching;
+  private final Map<Method, MethodInvoker> boundInvokers;
+  private final Executor asyncExecutor;
+
+  /**
+   * @param invocationStrategy The strategy used to invoke exactly matched methods.
+   * @param methodMatching How interface methods are matched to the members of the target class.
+   * @param boundInvokers The eagerly bound invokers, keyed by the identity of the methods the proxy
+   *     class passes to its handler. See {@link MethodBindings#invokersFor}. Methods missing from
+   *     the map are resolved when they are first called.
+   * @param asyncExecutor The executor running asynchronous targets, or null for the default one.
+   */
+  HandlerConfiguration(
+      InvocationStrategy invocationStrategy,
+      MethodMatching methodMatching,
+      Map<Method, MethodInvoker> boundInvokers,
+      Executor asyncExecutor) {
+    this.invocationStrategy = invocationStrategy;
+    this.methodMatching = methodMatching;
+    this.boundInvokers = boundInvokers;
+    this.asyncExecutor = asyncExecutor;
+  }
+
+  InvocationStrategy getInvocationStrategy() {
+    return invocationStrategy;
+  }
+
+  MethodMatching getMethodMatching() {
+    return methodMatching;
+  }
+
+  Map<Method, MethodInvoker> getBoundInvokers() {
+    return boundInvokers;
+  }
+
+  Executor getAsyncExecutor() {
+    return asyncExecutor;
+  }
+}
@@ -0,0 +1,358 @@
+package dev.bradhandy.testing.reflection.util;
+
+import dev.bradhandy.testing.reflection.events.ProxyDefinitionEvent;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Defines and caches the hidden proxy classes used by {@link ProxyEngine#HIDDEN_CLASS}.
+ *
+ * <p>The library is compiled for Java 11, so {@code Lookup.defineHiddenClass} is located
+ * reflectively. On older runtimes, or when the proxy cannot be generated, no constructor is
+ * returned and the caller falls back to a {@link java.lang.reflect.Proxy}.
+ *
+ * @author bhandy
+ */
+final class HiddenClassProxies {
+
+  private static final MethodType FACTORY_TYPE = MethodType.methodType(Object.class, Object.class);
+  private static final int MAX_ARGUMENT_SLOTS = 254;
+
+  private static final Method DEFINE_HIDDEN_CLASS;
+  private static final Object NESTMATE_OPTIONS;
+
+  static {
+    Method defineHiddenClass = null;
+    Object nestmateOptions = null;
+    try {
+      Class<?> classOptionType =
+          Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+      nestmateOptions = Array.newInstance(classOptionType, 1);
+      Array.set(nestmateOptions, 0, enumConstant(classOptionType, "NESTMATE"));
+      defineHiddenClass =
+          MethodHandles.Lookup.class.getMethod(
+              "defineHiddenClass", byte[].class, boolean.class, nestmateOptions.getClass());
+    } catch (ClassNotFoundException | NoSuchMethodException e) {
+      // hidden classes are unavailable before Java 15.
+      defineHiddenClass = null;
+      nestmateOptions = null;
+    }
+
+    DEFINE_HIDDEN_CLASS = defineHiddenClass;
+    NESTMATE_OPTIONS = nestmateOptions;
+  }
+
+  private static final ClassValue<ConcurrentMap<HiddenProxyKey, Optional<MethodHandle>>>
+      PROXY_FACTORIES =
+          new ClassValue<ConcurrentMap<HiddenProxyKey, Optional<MethodHandle>>>() {
+            @Override
+            protected ConcurrentMap<HiddenProxyKey, Optional<MethodHandle>> computeValue(
+                Class<?> targetClass) {
+              return new ConcurrentHashMap<>();
+            }
+          };
+
+  private HiddenClassProxies() {}
+
+  /** @return Whether hidden classes are supported by the current runtime. */
+  static boolean isSupported() {
+    return DEFINE_HIDDEN_CLASS != null;
+  }
+
+  /**
+   * Finds the factory creating hidden class proxies for the object under test.
+   *
+   * @param objectUnderTest The object, or Class for static methods, receiving the proxied calls.
+   * @param interfaces The interfaces implemented by the proxy.
+   * @param methodMatching How the interface methods are matched to the target methods.
+   * @return A MethodHandle of type {@code (Object)Object} creating a proxy for an object under test
+   *     of the same class, or null if no hidden class proxy can be created.
+   */
+  static MethodHandle proxyFactoryFor(
+      Object objectUnderTest, Class<?>[] interfaces, MethodMatching methodMatching) {
+    if (!isSupported() || objectUnderTest == null) {
+      return null;
+    }
+
+    boolean staticTarget = objectUnderTest instanceof Class;
+    Class<?> targetClass =
+        staticTarget ? (Class<?>) objectUnderTest : objectUnderTest.getClass();
+    ConcurrentMap<HiddenProxyKey, Optional<MethodHandle>> proxyFactories =
+        PROXY_FACTORIES.get(targetClass);
+    HiddenProxyKey hiddenProxyKey = new HiddenProxyKey(staticTarget, methodMatching, interfaces);
+
+    // unlike the other caches, the factory is defined while holding the map's bin lock, since
+    // every racing thread would otherwise define its own hidden class. only first use can block.
+    Optional<MethodHandle> proxyFactory = proxyFactories.get(hiddenProxyKey);
+    if (proxyFactory == null) {
+      proxyFactory =
+          proxyFactories.computeIfAbsent(
+              hiddenProxyKey,
+              key ->
+                  Optional.ofNullable(
+                      defineProxyFactory(targetClass, staticTarget, interfaces, methodMatching)));
+    }
+    return proxyFactory.orElse(null);
+  }
+
+  private static MethodHandle defineProxyFactory(
+      Class<?> targetClass,
+      boolean staticTarget,
+      Class<?>[] interfaces,
+      MethodMatching methodMatching) {
+    ProxyDefinitionEvent definitionEvent = new ProxyDefinitionEvent();
+    definitionEvent.begin();
+    MethodHandle proxyFactory =
+        defineHiddenProxyFactory(targetClass, staticTarget, interfaces, methodMatching);
+    definitionEvent.complete(
+        targetClass, interfaces, ProxyEngine.HIDDEN_CLASS.name(), proxyFactory != null);
+    return proxyFactory;
+  }
+
+  private static MethodHandle defineHiddenProxyFactory(
+      Class<?> targetClass,
+      boolean staticTarget,
+      Class<?>[] interfaces,
+      MethodMatching methodMatching) {
+    if (!canHostProxy(targetClass)) {
+      return null;
+    }
+
+    List<Method> interfaceMethods = new ArrayList<>();
+    List<Method> targetMethods = new ArrayList<>();
+    if (!bindInterfaceMethods(
+        targetClass, staticTarget, interfaces, methodMatching, interfaceMethods, targetMethods)) {
+      return null;
+    }
+
+    String proxyClassName = targetClass.getName() + "$$ObjectUnderTestProxy";
+    byte[] proxyClassBytes =
+        HiddenProxyClassWriter.write(
+            proxyClassName, targetClass, staticTarget, interfaces, interfaceMethods, targetMethods);
+
+    try {
+      MethodHandles.Lookup targetLookup =
+          MethodHandles.privateLookupIn(targetClass, MethodHandles.lookup());
+      MethodHandles.Lookup proxyLookup =
+          (MethodHandles.Lookup)
+              DEFINE_HIDDEN_CLASS.invoke(targetLookup, proxyClassBytes, true, NESTMATE_OPTIONS);
+      Class<?> proxyClass = proxyLookup.lookupClass();
+
+      // the factory always accepts the object under test. static proxies simply ignore it.
+      if (staticTarget) {
+        MethodHandle proxyConstructor =
+            proxyLookup.findConstructor(proxyClass, MethodType.methodType(void.class));
+        return MethodHandles.dropArguments(proxyConstructor, 0, Object.class).asType(FACTORY_TYPE);
+      }
+
+      return proxyLookup
+          .findConstructor(proxyClass, MethodType.methodType(void.class, targetClass))
+          .asType(FACTORY_TYPE);
+    } catch (IllegalAccessException | NoSuchMethodException | LinkageError e) {
+      return null;
+    } catch (InvocationTargetException e) {
+      // defineHiddenClass rejected the class, usually for lack of access to the target class.
+      return null;
+    }
+  }
+
+  private static boolean canHostProxy(Class<?> targetClass) {
+    // hidden classes and arrays cannot be nest hosts for another hidden class, and the names of
+    // hidden classes contain a '/'.
+    return !targetClass.isInterface()
+        && !targetClass.isArray()
+        && !targetClass.isPrimitive()
+        && targetClass.getName().indexOf('/') < 0;
+  }
+
+  private static boolean bindInterfaceMethods(
+      Class<?> targetClass,
+      boolean staticTarget,
+      Class<?>[] interfaces,
+      MethodMatching methodMatching,
+      List<Method> interfaceMethods,
+      List<Method> targetMethods) {
+    ClassLoader targetLoader = targetClass.getClassLoader();
+    for (Class<?> interfaceType : interfaces) {
+      if (!isAccessibleFrom(interfaceType, targetClass)) {
+        return false;
+      }
+    }
+
+    // the same method may be inherited through more than one interface. it is only implemented
+    // once, keyed by the name and the parameter types.
+    Map<List<Object>, Method> uniqueMethods = new LinkedHashMap<>();
+    for (Class<?> interfaceType : interfaces) {
+      for (Method interfaceMethod : interfaceType.getMethods()) {
+        if (Modifier.isStatic(interfaceMethod.getModifiers())) {
+          continue;
+        }
+
+        List<Object> signature = new ArrayList<>();
+        signature.add(interfaceMethod.getName());
+        signature.addAll(Arrays.asList(interfaceMethod.getParameterTypes()));
+        Method existingMethod = uniqueMethods.putIfAbsent(signature, interfaceMethod);
+        if (existingMethod != null
+            && existingMethod.getReturnType() != interfaceMethod.getReturnType()) {
+          return false;
+        }
+      }
+    }
+
+    MethodDispatchTable dispatchTable = MethodDispatchTable.forClass(targetClass);
+    for (Method interfaceMethod : uniqueMethods.values()) {
+      MethodMatch methodMatch;
+      try {
+        methodMatch = dispatchTable.match(interfaceMethod, methodMatching);
+      } catch (NoSuchMethodException e) {
+        return false;
+      }
+
+      // fields, constructors and varargs arrays are left to the Proxy engine.
+      Method targetMethod = methodMatch.getTargetMethod();
+      if (targetMethod == null || methodMatch.isVariableArity()) {
+        return false;
+      }
+
+      // a method declared by a superclass or an interface is outside the target's nest, so it is
+      // left to the Proxy engine, along with any argument which would have to be boxed.
+      if (targetMethod.getDeclaringClass() != targetClass
+          || staticTarget != Modifier.isStatic(targetMethod.getModifiers())
+          || !parametersCompatible(
+              interfaceMethod.getParameterTypes(), targetMethod.getParameterTypes())
+          || !returnTypeCompatible(interfaceMethod, targetMethod, methodMatch.isConverted())
+          || HiddenProxyClassWriter.argumentSlots(targetMethod.getParameterTypes())
+              > MAX_ARGUMENT_SLOTS
+          || !isVisibleFrom(interfaceMethod.getReturnType(), targetLoader)
+          || !Arrays.stream(interfaceMethod.getParameterTypes())
+              .allMatch(parameterType -> isVisibleFrom(parameterType, targetLoader))) {
+        return false;
+      }
+
+      interfaceMethods.add(interfaceMethod);
+      targetMethods.add(targetMethod);
+    }
+    return true;
+  }
+
+  private static boolean parametersCompatible(
+      Class<?>[] interfaceParameterTypes, Class<?>[] targetParameterTypes) {
+    if (interfaceParameterTypes.length != targetParameterTypes.length) {
+      return false;
+    }
+    for (int i = 0; i < interfaceParameterTypes.length; i++) {
+      if (!widensTo(interfaceParameterTypes[i], targetParameterTypes[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // like MethodBindings, only the return values of converted matches are widened.
+  private static boolean returnTypeCompatible(
+      Method interfaceMethod, Method targetMethod, boolean converted) {
+    Class<?> interfaceReturnType = interfaceMethod.getReturnType();
+    Class<?> targetReturnType = targetMethod.getReturnType();
+    if (!converted && (interfaceReturnType.isPrimitive() || targetReturnType.isPrimitive())) {
+      return interfaceReturnType == targetReturnType;
+    }
+    return widensTo(targetReturnType, interfaceReturnType);
+  }
+
+  // primitive widening is written as a conversion instruction, and reference widening needs no
+  // instruction at all.
+  private static boolean widensTo(Class<?> sourceType, Class<?> targetType) {
+    if (sourceType.isPrimitive() || targetType.isPrimitive()) {
+      return sourceType == targetType || MethodMatching.isPrimitiveWidening(sourceType, targetType);
+    }
+    return targetType.isAssignableFrom(sourceType);
+  }
+
+  private static boolean isAccessibleFrom(Class<?> interfaceType, Class<?> targetClass) {
+    if (!isVisibleFrom(interfaceType, targetClass.getClassLoader())) {
+      return false;
+    }
+
+    // nested interfaces are compiled as public or package private classes regardless of the
+    // declared modifiers, so a non-public interface only has to share the target's package.
+    int modifiers = interfaceType.getModifiers();
+    return Modifier.isPublic(modifiers)
+        || Modifier.isProtected(modifiers)
+        || (Objects.equals(interfaceType.getPackageName(), targetClass.getPackageName())
+            && interfaceType.getClassLoader() == targetClass.getClassLoader());
+  }
+
+  private static boolean isVisibleFrom(Class<?> type, ClassLoader classLoader) {
+    Class<?> elementType = type;
+    while (elementType.isArray()) {
+      elementType = elementType.getComponentType();
+    }
+    if (elementType.isPrimitive()) {
+      return true;
+    }
+
+    try {
+      return Class.forName(elementType.getName(), false, classLoader) == elementType;
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+  }
+
+  private static Object enumConstant(Class<?> enumType, String name) {
+    for (Object constant : enumType.getEnumConstants()) {
+      if (((Enum<?>) constant).name().equals(name)) {
+        return constant;
+      }
+    }
+    throw new IllegalStateException(String.format("%s has no constant %s.", enumType, name));
+  }
+
+  private static final class HiddenProxyKey {
+
+    private final boolean staticTarget;
+    private final MethodMatching methodMatching;
+    private final List<Class<?>> interfaces;
+
+    private HiddenProxyKey(
+        boolean staticTarget, MethodMatching methodMatching, Class<?>[] interfaces) {
+      this.staticTarget = staticTarget;
+      this.methodMatching = methodMatching;
+      this.interfaces = Arrays.asList(interfaces);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof HiddenProxyKey)) {
+        return false;
+      }
+
+      HiddenProxyKey otherKey = (HiddenProxyKey) other;
+      return staticTarget == otherKey.staticTarget
+          && methodMatching == otherKey.methodMatching
+          && interfaces.equals(otherKey.interfaces);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(staticTarget, methodMatching, interfaces);
+    }
+  }
+}
@@ -0,0 +1,472 @@
+package dev.bradhandy.testing.reflection.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the class file for a proxy class calling the methods of a target class directly. The proxy
+ * class implements the given interfaces, and each interface method loads its arguments and calls
+ * the matching target method with a single {@code invokevirtual} or {@code invokestatic}
+ * instruction. Primitive arguments and return values of a different type are widened by the
+ * matching conversion instruction, such as {@code i2l}. No argument arrays, boxing or reflection
+ * are involved.
+ *
+ * <p>Instance proxies hold the object under test in a final field assigned by the single argument
+ * constructor. Static proxies have a no-argument constructor and no fields.
+ *
+ * <p>The generated code contains no branches, so no stack map frames are required.
+ *
+ * @author bhandy
+ */
+final class HiddenProxyClassWriter {
+
+  private static final int CLASS_FILE_VERSION = 55;
+
+  private static final int ACC_PUBLIC = 0x0001;
+  private static final int ACC_PRIVATE = 0x0002;
+  private static final int ACC_FINAL = 0x0010;
+  private static final int ACC_SUPER = 0x0020;
+  private static final int ACC_SYNTHETIC = 0x1000;
+
+  private static final int ALOAD_0 = 0x2a;
+  private static final int ALOAD_1 = 0x2b;
+  private static final int ILOAD = 0x15;
+  private static final int LLOAD = 0x16;
+  private static final int FLOAD = 0x17;
+  private static final int DLOAD = 0x18;
+  private static final int ALOAD = 0x19;
+  private static final int I2L = 0x85;
+  private static final int I2F = 0x86;
+  private static final int I2D = 0x87;
+  private static final int L2F = 0x89;
+  private static final int L2D = 0x8a;
+  private static final int F2D = 0x8d;
+  private static final int IRETURN = 0xac;
+  private static final int LRETURN = 0xad;
+  private static final int FRETURN = 0xae;
+  private static final int DRETURN = 0xaf;
+  private static final int ARETURN = 0xb0;
+  private static final int RETURN = 0xb1;
+  private static final int GETFIELD = 0xb4;
+  private static final int PUTFIELD = 0xb5;
+  private static final int INVOKEVIRTUAL = 0xb6;
+  private static final int INVOKESPECIAL = 0xb7;
+  private static final int INVOKESTATIC = 0xb8;
+
+  private static final String OBJECT_INTERNAL_NAME = "java/lang/Object";
+  private static final String TARGET_FIELD_NAME = "objectUnderTest";
+
+  private final Map<String, Integer> constantIndexes = new HashMap<>();
+  private final ByteArrayOutputStream constantPoolBytes = new ByteArrayOutputStream();
+  private final DataOutputStream constantPool = new DataOutputStream(constantPoolBytes);
+  private int constantCount = 1;
+
+  private HiddenProxyClassWriter() {}
+
+  /**
+   * Writes the proxy class file.
+   *
+   * @param proxyClassName The binary name of the proxy class. Must be in the target's package.
+   * @param targetClass The class declaring the target methods.
+   * @param staticTarget Whether the target methods are static.
+   * @param interfaces The interfaces implemented by the proxy.
+   * @param interfaceMethods The interface methods implemented by the proxy.
+   * @param targetMethods The target method called by the interface method at the same index.
+   * @return The class file bytes.
+   */
+  static byte[] write(
+      String proxyClassName,
+      Class<?> targetClass,
+      boolean staticTarget,
+      Class<?>[] interfaces,
+      List<Method> interfaceMethods,
+      List<Method> targetMethods) {
+    try {
+      return new HiddenProxyClassWriter()
+          .writeClass(
+              proxyClassName,
+              targetClass,
+              staticTarget,
+              interfaces,
+              interfaceMethods,
+              targetMethods);
+    } catch (IOException e) {
+      // only in-memory streams are used, so this should never happen.
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Calculates the number of local variable slots needed for the arguments of the method.
+   *
+   * @param parameterTypes The parameter types of the method.
+   * @return The number of slots, not including the receiver.
+   */
+  static int argumentSlots(Class<?>[] parameterTypes) {
+    int slots = 0;
+    for (Class<?> parameterType : parameterTypes) {
+      slots += slotSize(parameterType);
+    }
+    return slots;
+  }
+
+  private byte[] writeClass(
+      String proxyClassName,
+      Class<?> targetClass,
+      boolean staticTarget,
+      Class<?>[] interfaces,
+      List<Method> interfaceMethods,
+      List<Method> targetMethods)
+      throws IOException {
+    String proxyInternalName = internalName(proxyClassName);
+    String targetInternalName = internalName(targetClass.getName());
+    String targetDescriptor = descriptor(targetClass);
+
+    int thisClassIndex = classConstant(proxyInternalName);
+    int superClassIndex = classConstant(OBJECT_INTERNAL_NAME);
+    int[] interfaceIndexes = new int[interfaces.length];
+    for (int i = 0; i < interfaces.length; i++) {
+      interfaceIndexes[i] = classConstant(internalName(interfaces[i].getName()));
+    }
+
+    ByteArrayOutputStream memberBytes = new ByteArrayOutputStream();
+    DataOutputStream members = new DataOutputStream(memberBytes);
+
+    // fields
+    if (staticTarget) {
+      members.writeShort(0);
+    } else {
+      members.writeShort(1);
+      members.writeShort(ACC_PRIVATE | ACC_FINAL);
+      members.writeShort(utf8Constant(TARGET_FIELD_NAME));
+      members.writeShort(utf8Constant(targetDescriptor));
+      members.writeShort(0);
+    }
+
+    // methods: the constructor followed by every interface method.
+    members.writeShort(1 + interfaceMethods.size());
+    writeConstructor(members, proxyInternalName, staticTarget, targetDescriptor);
+    for (int i = 0; i < interfaceMethods.size(); i++) {
+      writeProxyMethod(
+          members,
+          proxyInternalName,
+          targetInternalName,
+          targetDescriptor,
+          staticTarget,
+          interfaceMethods.get(i),
+          targetMethods.get(i));
+    }
+
+    // class attributes
+    members.writeShort(0);
+
+    ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+    DataOutputStream classFile = new DataOutputStream(classBytes);
+    classFile.writeInt(0xCAFEBABE);
+    classFile.writeShort(0);
+    classFile.writeShort(CLASS_FILE_VERSION);
+    classFile.writeShort(constantCount);
+    constantPool.flush();
+    constantPoolBytes.writeTo(classFile);
+    classFile.writeShort(ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC);
+    classFile.writeShort(thisClassIndex);
+    classFile.writeShort(superClassIndex);
+    classFile.writeShort(interfaceIndexes.length);
+    for (int interfaceIndex : interfaceIndexes) {
+      classFile.writeShort(interfaceIndex);
+    }
+    members.flush();
+    memberBytes.writeTo(classFile);
+    classFile.flush();
+
+    return classBytes.toByteArray();
+  }
+
+  private void writeConstructor(
+      DataOutputStream members,
+      String proxyInternalName,
+      boolean staticTarget,
+      String targetDescriptor)
+      throws IOException {
+    ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+    codeBytes.write(ALOAD_0);
+    writeInstruction(
+        codeBytes, INVOKESPECIAL, methodConstant(OBJECT_INTERNAL_NAME, "<init>", "()V"));
+    if (!staticTarget) {
+      codeBytes.write(ALOAD_0);
+      codeBytes.write(ALOAD_1);
+      writeInstruction(
+          codeBytes,
+          PUTFIELD,
+          fieldConstant(proxyInternalName, TARGET_FIELD_NAME, targetDescriptor));
+    }
+    codeBytes.write(RETURN);
+
+    String constructorDescriptor = staticTarget ? "()V" : "(" + targetDescriptor + ")V";
+    writeMethod(
+        members,
+        ACC_PUBLIC,
+        "<init>",
+        constructorDescriptor,
+        codeBytes.toByteArray(),
+        2,
+        staticTarget ? 1 : 2);
+  }
+
+  private void writeProxyMethod(
+      DataOutputStream members,
+      String proxyInternalName,
+      String targetInternalName,
+      String targetDescriptor,
+      boolean staticTarget,
+      Method interfaceMethod,
+      Method targetMethod)
+      throws IOException {
+    ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+    int stackSize = 0;
+    if (!staticTarget) {
+      codeBytes.write(ALOAD_0);
+      writeInstruction(
+          codeBytes,
+          GETFIELD,
+          fieldConstant(proxyInternalName, TARGET_FIELD_NAME, targetDescriptor));
+      stackSize++;
+    }
+
+    // local slot 0 is the proxy itself, so the arguments start at slot 1. widened arguments may
+    // take more stack slots than local slots.
+    Class<?>[] parameterTypes = interfaceMethod.getParameterTypes();
+    Class<?>[] targetParameterTypes = targetMethod.getParameterTypes();
+    int localSlot = 1;
+    for (int i = 0; i < parameterTypes.length; i++) {
+      codeBytes.write(loadInstruction(parameterTypes[i]));
+      codeBytes.write(localSlot);
+      writeWidening(codeBytes, parameterTypes[i], targetParameterTypes[i]);
+      localSlot += slotSize(parameterTypes[i]);
+    }
+    stackSize += argumentSlots(targetParameterTypes);
+
+    String targetMethodDescriptor = methodDescriptor(targetMethod);
+    writeInstruction(
+        codeBytes,
+        staticTarget ? INVOKESTATIC : INVOKEVIRTUAL,
+        methodConstant(targetInternalName, targetMethod.getName(), targetMethodDescriptor));
+    writeWidening(codeBytes, targetMethod.getReturnType(), interfaceMethod.getReturnType());
+    codeBytes.write(returnInstruction(interfaceMethod.getReturnType()));
+
+    int maxStack =
+        Math.max(
+            stackSize,
+            Math.max(
+                slotSize(targetMethod.getReturnType()),
+                slotSize(interfaceMethod.getReturnType())));
+    writeMethod(
+        members,
+        ACC_PUBLIC | ACC_FINAL,
+        interfaceMethod.getName(),
+        methodDescriptor(interfaceMethod),
+        codeBytes.toByteArray(),
+        maxStack,
+        localSlot);
+  }
+
+  private void writeMethod(
+      DataOutputStream members,
+      int accessFlags,
+      String name,
+      String methodDescriptor,
+      byte[] code,
+      int maxStack,
+      int maxLocals)
+      throws IOException {
+    members.writeShort(accessFlags);
+    members.writeShort(utf8Constant(name));
+    members.writeShort(utf8Constant(methodDescriptor));
+    members.writeShort(1);
+
+    // Code attribute: max_stack, max_locals, code_length, code, no exception table, and no
+    // attributes of its own.
+    members.writeShort(utf8Constant("Code"));
+    members.writeInt(2 + 2 + 4 + code.length + 2 + 2);
+    members.writeShort(maxStack);
+    members.writeShort(maxLocals);
+    members.writeInt(code.length);
+    members.write(code);
+    members.writeShort(0);
+    members.writeShort(0);
+  }
+
+  private static void writeWidening(
+      ByteArrayOutputStream code, Class<?> sourceType, Class<?> targetType) {
+    if (sourceType == targetType || !sourceType.isPrimitive() || !targetType.isPrimitive()) {
+      return;
+    }
+
+    // byte, short and char are already ints on the operand stack.
+    boolean intSource = loadInstruction(sourceType) == ILOAD;
+    if (targetType == long.class && intSource) {
+      code.write(I2L);
+    } else if (targetType == float.class) {
+      code.write(intSource ? I2F : L2F);
+    } else if (targetType == double.class) {
+      if (intSource) {
+        code.write(I2D);
+      } else {
+        code.write((sourceType == long.class) ? L2D : F2D);
+      }
+    }
+  }
+
+  private static void writeInstruction(ByteArrayOutputStream code, int opcode, int constantIndex) {
+    code.write(opcode);
+    code.write((constantIndex >>> 8) & 0xFF);
+    code.write(constantIndex & 0xFF);
+  }
+
+  private int utf8Constant(String value) throws IOException {
+    Integer index = constantIndexes.get("Utf8:" + value);
+    if (index != null) {
+      return index;
+    }
+
+    constantPool.writeByte(1);
+    constantPool.writeUTF(value);
+    return registerConstant("Utf8:" + value);
+  }
+
+  private int classConstant(String internalName) throws IOException {
+    Integer index = constantIndexes.get("Class:" + internalName);
+    if (index != null) {
+      return index;
+    }
+
+    int nameIndex = utf8Constant(internalName);
+    constantPool.writeByte(7);
+    constantPool.writeShort(nameIndex);
+    return registerConstant("Class:" + internalName);
+  }
+
+  private int nameAndTypeConstant(String name, String descriptor) throws IOException {
+    String key = "NameAndType:" + name + ":" + descriptor;
+    Integer index = constantIndexes.get(key);
+    if (index != null) {
+      return index;
+    }
+
+    int nameIndex = utf8Constant(name);
+    int descriptorIndex = utf8Constant(descriptor);
+    constantPool.writeByte(12);
+    constantPool.writeShort(nameIndex);
+    constantPool.writeShort(descriptorIndex);
+    return registerConstant(key);
+  }
+
+  private int fieldConstant(String owner, String name, String descriptor) throws IOException {
+    return memberConstant(9, "Field:", owner, name, descriptor);
+  }
+
+  private int methodConstant(String owner, String name, String descriptor) throws IOException {
+    return memberConstant(10, "Method:", owner, name, descriptor);
+  }
+
+  private int memberConstant(int tag, String keyPrefix, String owner, String name, String descriptor)
+      throws IOException {
+    String key = keyPrefix + owner + "." + name + ":" + descriptor;
+    Integer index = constantIndexes.get(key);
+    if (index != null) {
+      return index;
+    }
+
+    int ownerIndex = classConstant(owner);
+    int nameAndTypeIndex = nameAndTypeConstant(name, descriptor);
+    constantPool.writeByte(tag);
+    constantPool.writeShort(ownerIndex);
+    constantPool.writeShort(nameAndTypeIndex);
+    return registerConstant(key);
+  }
+
+  private int registerConstant(String key) {
+    int index = constantCount;
+    constantIndexes.put(key, index);
+    constantCount++;
+    return index;
+  }
+
+  private static int loadInstruction(Class<?> type) {
+    if (type == long.class) {
+      return LLOAD;
+    } else if (type == float.class) {
+      return FLOAD;
+    } else if (type == double.class) {
+      return DLOAD;
+    } else if (type.isPrimitive()) {
+      return ILOAD;
+    }
+    return ALOAD;
+  }
+
+  private static int returnInstruction(Class<?> type) {
+    if (type == void.class) {
+      return RETURN;
+    } else if (type == long.class) {
+      return LRETURN;
+    } else if (type == float.class) {
+      return FRETURN;
+    } else if (type == double.class) {
+      return DRETURN;
+    } else if (type.isPrimitive()) {
+      return IRETURN;
+    }
+    return ARETURN;
+  }
+
+  private static int slotSize(Class<?> type) {
+    if (type == void.class) {
+      return 0;
+    }
+    return (type == long.class || type == double.class) ? 2 : 1;
+  }
+
+  private static String internalName(String binaryName) {
+    return binaryName.replace('.', '/');
+  }
+
+  private static String methodDescriptor(Method method) {
+    StringBuilder methodDescriptor = new StringBuilder("(");
+    for (Class<?> parameterType : method.getParameterTypes()) {
+      methodDescriptor.append(descriptor(parameterType));
+    }
+    return methodDescriptor.append(')').append(descriptor(method.getReturnType())).toString();
+  }
+
+  private static String descriptor(Class<?> type) {
+    if (type.isArray()) {
+      return internalName(type.getName());
+    } else if (type == void.class) {
+      return "V";
+    } else if (type == boolean.class) {
+      return "Z";
+    } else if (type == byte.class) {
+      return "B";
+    } else if (type == char.class) {
+      return "C";
+    } else if (type == short.class) {
+      return "S";
+    } else if (type == int.class) {
+      return "I";
+    } else if (type == long.class) {
+      return "J";
+    } else if (type == float.class) {
+      return "F";
+    } else if (type == double.class) {
+      return "D";
+    }
+    return "L" + internalName(type.getName()) + ";";
+  }
+}
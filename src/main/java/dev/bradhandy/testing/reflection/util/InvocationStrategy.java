@@ -0,0 +1,73 @@
+package dev.bradhandy.testing.reflection.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Identifies how a resolved target method is invoked by {@link MethodUnderTestInvocationHandler}.
+ *
+ * @author bhandy
+ */
+public enum InvocationStrategy {
+
+  /**
+   * Invokes the target method using {@link Method#invoke(Object, Object...)}. Any exception thrown
+   * by the target method is unwrapped from the {@link InvocationTargetException}.
+   */
+  REFLECTION {
+    @Override
+    MethodInvoker bind(Method targetMethod) {
+      return (objectUnderTest, arguments) -> {
+        try {
+          return targetMethod.invoke(objectUnderTest, arguments);
+        } catch (InvocationTargetException e) {
+          throw e.getCause();
+        }
+      };
+    }
+  },
+
+  /**
+   * Invokes the target method using a {@link MethodHandle} obtained through {@link
+   * MethodHandles#privateLookupIn(Class, MethodHandles.Lookup)}. The handle is adapted once to
+   * accept the object under test and an argument array, and exceptions thrown by the target method
+   * propagate without being wrapped.
+   */
+  METHOD_HANDLE {
+    @Override
+    MethodInvoker bind(Method targetMethod) throws IllegalAccessException {
+      MethodHandles.Lookup lookup =
+          MethodHandles.privateLookupIn(targetMethod.getDeclaringClass(), MethodHandles.lookup());
+      MethodHandle targetHandle =
+          lookup
+              .unreflect(targetMethod)
+              .asSpreader(Object[].class, targetMethod.getParameterCount());
+
+      // static methods have no receiver, but the invoker always passes the object under test
+      // along. the Class object passed in its place is simply dropped.
+      if (Modifier.isStatic(targetMethod.getModifiers())) {
+        targetHandle = MethodHandles.dropArguments(targetHandle, 0, Object.class);
+      }
+
+      MethodHandle invokerHandle = targetHandle.asType(GENERIC_INVOKER_TYPE);
+      return (objectUnderTest, arguments) ->
+          (Object) invokerHandle.invokeExact(objectUnderTest, arguments);
+    }
+  };
+
+  private static final MethodType GENERIC_INVOKER_TYPE =
+      MethodType.methodType(Object.class, Object.class, Object[].class);
+
+  /**
+   * Creates a {@link MethodInvoker} calling the given method.
+   *
+   * @param targetMethod The accessible method to be invoked.
+   * @return A MethodInvoker for the method.
+   * @throws IllegalAccessException if the method cannot be accessed by the strategy.
+   */
+  abstract MethodInvoker bind(Method targetMethod) throws IllegalAccessException;
+}
@@ -0,0 +1,388 @@
+package dev.bradhandy.testing.reflection.util;
+
+import dev.bradhandy.testing.reflection.ConstructorAccess;
+import dev.bradhandy.testing.reflection.FieldAccess;
+
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable binding of every method of a set of interfaces to the methods of a target class,
+ * resolved eagerly. The interface methods are indexed once, and the {@link MethodInvoker} for each
+ * of them is stored in an array at the same index, so calling a bound method never searches the
+ * target class again.
+ *
+ * <p>A proxy class passes the same {@link Method} instance to its handler on every call of an
+ * interface method. {@link #invokersFor(Constructor)} maps those instances to the bound invokers
+ * once per proxy class, by identity, so a call through the proxy finds its invoker without hashing
+ * or comparing the method's name and parameter types.
+ *
+ * <p>Binding fails with a single {@link IllegalArgumentException} reporting every interface method
+ * which cannot be bound, instead of failing on the first call of each unbound method.
+ *
+ * @author bhandy
+ */
+public final class MethodBindings {
+
+  private static final ClassValue<ConcurrentMap<BindingKey, MethodBindings>> BINDINGS =
+      new ClassValue<ConcurrentMap<BindingKey, MethodBindings>>() {
+        @Override
+        protected ConcurrentMap<BindingKey, MethodBindings> computeValue(Class<?> targetClass) {
+          return new ConcurrentHashMap<>();
+        }
+      };
+
+  private final Class<?> targetClass;
+  private final Method[] interfaceMethods;
+  private final MethodInvoker[] invokers;
+  private final Map<Method, Integer> indexes;
+  private volatile ProxyInvokers proxyInvokers;
+
+  private MethodBindings(
+      Class<?> targetClass, Method[] interfaceMethods, MethodInvoker[] invokers) {
+    this.targetClass = targetClass;
+    this.interfaceMethods = interfaceMethods;
+    this.invokers = invokers;
+
+    Map<Method, Integer> methodIndexes = new HashMap<>();
+    for (int i = 0; i < interfaceMethods.length; i++) {
+      methodIndexes.put(interfaceMethods[i], i);
+    }
+    this.indexes = Collections.unmodifiableMap(methodIndexes);
+  }
+
+  /**
+   * Binds every method of the interfaces to the target class. The bindings are cached per target
+   * class, so binding the same interfaces again returns the same instance, from any thread.
+   *
+   * @param targetClass The class declaring the target methods.
+   * @param staticTarget Whether the methods will be invoked without an instance of the class.
+   * @param invocationStrategy The strategy used to invoke the target methods.
+   * @param interfaces The interfaces whose methods are bound.
+   * @return The bindings for the interfaces.
+   * @throws IllegalArgumentException if any interface method cannot be bound. The message lists
+   *     every unbound method.
+   */
+  public static MethodBindings bind(
+      Class<?> targetClass,
+      boolean staticTarget,
+      InvocationStrategy invocationStrategy,
+      Class<?>... interfaces) {
+    return bind(targetClass, staticTarget, invocationStrategy, MethodMatching.EXACT, interfaces);
+  }
+
+  /**
+   * Binds every method of the interfaces to the target class, matching the methods according to
+   * the given {@link MethodMatching}. The bindings are cached per target class, so binding the same
+   * interfaces again returns the same instance, from any thread.
+   *
+   * @param targetClass The class declaring the target methods.
+   * @param staticTarget Whether the methods will be invoked without an instance of the class.
+   * @param invocationStrategy The strategy used to invoke the target methods.
+   * @param methodMatching How the interface methods are matched to the target methods.
+   * @param interfaces The interfaces whose methods are bound.
+   * @return The bindings for the interfaces.
+   * @throws IllegalArgumentException if any interface method cannot be bound. The message lists
+   *     every unbound method.
+   */
+  public static MethodBindings bind(
+      Class<?> targetClass,
+      boolean staticTarget,
+      InvocationStrategy invocationStrategy,
+      MethodMatching methodMatching,
+      Class<?>... interfaces) {
+    ConcurrentMap<BindingKey, MethodBindings> targetBindings = BINDINGS.get(targetClass);
+    BindingKey bindingKey =
+        new BindingKey(staticTarget, invocationStrategy, methodMatching, interfaces);
+
+    MethodBindings methodBindings = targetBindings.get(bindingKey);
+    if (methodBindings != null) {
+      return methodBindings;
+    }
+
+    // the bindings are resolved outside of the map so no lock is held while the target class is
+    // searched. two threads may race to bind the same interfaces, but only the first bindings are
+    // ever published.
+    MethodBindings resolvedBindings =
+        resolveBindings(targetClass, staticTarget, invocationStrategy, methodMatching, interfaces);
+    MethodBindings publishedBindings = targetBindings.putIfAbsent(bindingKey, resolvedBindings);
+    return (publishedBindings != null) ? publishedBindings : resolvedBindings;
+  }
+
+  private static MethodBindings resolveBindings(
+      Class<?> targetClass,
+      boolean staticTarget,
+      InvocationStrategy invocationStrategy,
+      MethodMatching methodMatching,
+      Class<?>[] interfaces) {
+    MethodDispatchTable dispatchTable = MethodDispatchTable.forClass(targetClass);
+    List<Method> interfaceMethods = new ArrayList<>();
+    List<MethodInvoker> invokers = new ArrayList<>();
+    List<String> mismatches = new ArrayList<>();
+
+    for (Class<?> interfaceType : interfaces) {
+      for (Method interfaceMethod : interfaceType.getMethods()) {
+        if (Modifier.isStatic(interfaceMethod.getModifiers())) {
+          continue;
+        }
+
+        try {
+          MethodMatch methodMatch = dispatchTable.match(interfaceMethod, methodMatching);
+          if (staticTarget && !methodMatch.isStatic()) {
+            mismatches.add(
+                describe(interfaceMethod)
+                    + " matches a "
+                    + methodMatch.describeTarget()
+                    + " which is not static");
+          } else if (!returnTypeCompatible(interfaceMethod, methodMatch)) {
+            mismatches.add(
+                describe(interfaceMethod)
+                    + " cannot return "
+                    + methodMatch.getReturnType().getName());
+          } else {
+            interfaceMethods.add(interfaceMethod);
+            invokers.add(
+                dispatchTable.resolveInvoker(interfaceMethod, invocationStrategy, methodMatching));
+          }
+        } catch (MethodMatching.AmbiguousMethodException e) {
+          mismatches.add(describe(interfaceMethod) + " is ambiguous between " + e.getCandidates());
+        } catch (NoSuchMethodException e) {
+          mismatches.add(describe(interfaceMethod) + describeMissingTarget(interfaceMethod, e));
+        } catch (IllegalAccessException e) {
+          mismatches.add(describe(interfaceMethod) + " is not accessible: " + e.getMessage());
+        }
+      }
+    }
+
+    if (!mismatches.isEmpty()) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Unable to bind %s to %s:%n  %s",
+              Arrays.stream(interfaces).map(Class::getName).collect(Collectors.joining(", ")),
+              targetClass.getName(),
+              String.join(String.format("%n  "), mismatches)));
+    }
+
+    return new MethodBindings(
+        targetClass,
+        interfaceMethods.toArray(new Method[0]),
+        invokers.toArray(new MethodInvoker[0]));
+  }
+
+  private static String describeMissingTarget(
+      Method interfaceMethod, NoSuchMethodException exception) {
+    if (interfaceMethod.isAnnotationPresent(FieldAccess.class)) {
+      return " has no matching field: " + exception.getMessage();
+    }
+    if (interfaceMethod.isAnnotationPresent(ConstructorAccess.class)) {
+      return " has no matching constructor: " + exception.getMessage();
+    }
+    return " has no matching method";
+  }
+
+  /**
+   * Determines whether the interface method can return what the matched member produces.
+   *
+   * @param interfaceMethod The method called on the proxy.
+   * @param methodMatch The member matched to the interface method.
+   * @return Whether the produced value, converted when the match is, fits the return type.
+   */
+  static boolean returnTypeCompatible(Method interfaceMethod, MethodMatch methodMatch) {
+    Class<?> interfaceReturnType = interfaceMethod.getReturnType();
+    if (interfaceReturnType == void.class) {
+      return true;
+    }
+
+    // asynchronous calls complete the future with the returned value, boxed but never converted.
+    // converted matches are adapted by asType, which also widens and unboxes the returned value.
+    Class<?> targetReturnType = methodMatch.getReturnType();
+    if (methodMatch.runsAsynchronously(interfaceMethod)) {
+      return AsyncMethodInvoker.completesWith(interfaceMethod, targetReturnType);
+    }
+    if (methodMatch.isConverted()) {
+      return targetReturnType != void.class
+          && MethodMatching.isBoxingConvertible(targetReturnType, interfaceReturnType);
+    }
+    return wrap(interfaceReturnType).isAssignableFrom(wrap(targetReturnType));
+  }
+
+  private static Class<?> wrap(Class<?> type) {
+    if (!type.isPrimitive()) {
+      return type;
+    }
+    return MethodType.methodType(type).wrap().returnType();
+  }
+
+  private static String describe(Method interfaceMethod) {
+    return String.format(
+        "%s %s(%s)",
+        interfaceMethod.getReturnType().getSimpleName(),
+        interfaceMethod.getName(),
+        Arrays.stream(interfaceMethod.getParameterTypes())
+            .map(Class::getSimpleName)
+            .collect(Collectors.joining(", ")));
+  }
+
+  /**
+   * Maps the {@link Method} instances which the proxy class passes to its {@link InvocationHandler}
+   * to the bound invokers. The instances are discovered by calling every bound method once on a
+   * throw-away proxy whose handler records them, and the map is kept for the proxy class.
+   *
+   * @param proxyConstructor The constructor of the proxy class, taking its InvocationHandler.
+   * @return The bound invokers keyed by the identity of the proxy class's methods, or an empty map
+   *     if the methods cannot be discovered.
+   */
+  Map<Method, MethodInvoker> invokersFor(Constructor<?> proxyConstructor) {
+    ProxyInvokers knownInvokers = proxyInvokers;
+    if (knownInvokers != null && knownInvokers.proxyClass == proxyConstructor.getDeclaringClass()) {
+      return knownInvokers.invokers;
+    }
+
+    // racing threads discover the same instances, so whichever map is kept last is as good.
+    ProxyInvokers discoveredInvokers =
+        new ProxyInvokers(proxyConstructor.getDeclaringClass(), discoverInvokers(proxyConstructor));
+    proxyInvokers = discoveredInvokers;
+    return discoveredInvokers.invokers;
+  }
+
+  private Map<Method, MethodInvoker> discoverInvokers(Constructor<?> proxyConstructor) {
+    Method[] calledMethod = new Method[1];
+    InvocationHandler recordingHandler =
+        (proxy, method, args) -> {
+          calledMethod[0] = method;
+          return defaultValue(method.getReturnType());
+        };
+
+    Map<Method, MethodInvoker> discoveredInvokers = new IdentityHashMap<>();
+    try {
+      Object recordingProxy = proxyConstructor.newInstance(recordingHandler);
+      for (int i = 0; i < interfaceMethods.length; i++) {
+        Method interfaceMethod = interfaceMethods[i];
+        Object[] arguments = new Object[interfaceMethod.getParameterCount()];
+        Class<?>[] parameterTypes = interfaceMethod.getParameterTypes();
+        for (int j = 0; j < arguments.length; j++) {
+          arguments[j] = defaultValue(parameterTypes[j]);
+        }
+
+        interfaceMethod.setAccessible(true);
+        interfaceMethod.invoke(recordingProxy, arguments);
+        discoveredInvokers.put(calledMethod[0], invokers[i]);
+      }
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      // the proxy falls back to the dispatch table, which resolves the same invokers.
+      return Collections.emptyMap();
+    }
+    return discoveredInvokers;
+  }
+
+  private static Object defaultValue(Class<?> type) {
+    if (!type.isPrimitive() || type == void.class) {
+      return null;
+    }
+    return Array.get(Array.newInstance(type, 1), 0);
+  }
+
+  /**
+   * Finds the index of the interface method within the bindings.
+   *
+   * @param interfaceMethod The method called on the proxy.
+   * @return The index of the method, or -1 if the method is not bound.
+   */
+  public int indexOf(Method interfaceMethod) {
+    Integer index = indexes.get(interfaceMethod);
+    return (index != null) ? index : -1;
+  }
+
+  /**
+   * @param index The index of a bound interface method.
+   * @return The MethodInvoker calling the target of the interface method at the index.
+   */
+  public MethodInvoker invoker(int index) {
+    return invokers[index];
+  }
+
+  /**
+   * @param index The index of a bound interface method.
+   * @return The interface method at the index.
+   */
+  public Method interfaceMethod(int index) {
+    return interfaceMethods[index];
+  }
+
+  /** @return The number of bound interface methods. */
+  public int size() {
+    return interfaceMethods.length;
+  }
+
+  /** @return The class declaring the target methods. */
+  public Class<?> getTargetClass() {
+    return targetClass;
+  }
+
+  private static final class BindingKey {
+
+    private final boolean staticTarget;
+    private final InvocationStrategy invocationStrategy;
+    private final MethodMatching methodMatching;
+    private final List<Class<?>> interfaces;
+
+    private BindingKey(
+        boolean staticTarget,
+        InvocationStrategy invocationStrategy,
+        MethodMatching methodMatching,
+        Class<?>[] interfaces) {
+      this.staticTarget = staticTarget;
+      this.invocationStrategy = invocationStrategy;
+      this.methodMatching = methodMatching;
+      this.interfaces = Arrays.asList(interfaces);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof BindingKey)) {
+        return false;
+      }
+
+      BindingKey otherKey = (BindingKey) other;
+      return staticTarget == otherKey.staticTarget
+          && invocationStrategy == otherKey.invocationStrategy
+          && methodMatching == otherKey.methodMatching
+          && interfaces.equals(otherKey.interfaces);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(staticTarget, invocationStrategy, methodMatching, interfaces);
+    }
+  }
+
+  /** The invokers keyed by the methods of a single proxy class. */
+  private static final class ProxyInvokers {
+
+    private final Class<?> proxyClass;
+    private final Map<Method, MethodInvoker> invokers;
+
+    private ProxyInvokers(Class<?> proxyClass, Map<Method, MethodInvoker> invokers) {
+      this.proxyClass = proxyClass;
+      this.invokers = invokers;
+    }
+  }
+}
@@ -0,0 +1,270 @@
+package dev.bradhandy.testing.reflection.util;
+
+import dev.bradhandy.testing.reflection.ConstructorAccess;
+import dev.bradhandy.testing.reflection.FieldAccess;
+import dev.bradhandy.testing.reflection.events.MethodResolutionEvent;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Per-class cache of the methods invoked through a proxy. Each target class owns a single table,
+ * shared by every {@link MethodUnderTestInvocationHandler} and every thread, mapping the interface
+ * method called on the proxy to the matching method declared by the target class.
+ *
+ * <p>The target method is looked up in a flattened index of the class hierarchy the first time it
+ * is requested, so methods declared by a superclass, including private ones, are found as well.
+ * Interface methods annotated with {@link FieldAccess} or {@link ConstructorAccess} are matched to
+ * a field or a constructor instead. The {@link
+ * MethodInvoker} for each {@link InvocationStrategy} is created the first time the strategy is
+ * requested for the method. Every request afterwards is a single hash lookup.
+ *
+ * <p>Hit and miss counters are kept for each table as well as for all tables combined, so the
+ * effectiveness of the cache can be verified.
+ *
+ * @author bhandy
+ */
+public final class MethodDispatchTable {
+
+  private static final ClassValue<MethodDispatchTable> DISPATCH_TABLES =
+      new ClassValue<MethodDispatchTable>() {
+        @Override
+        protected MethodDispatchTable computeValue(Class<?> targetClass) {
+          return new MethodDispatchTable(targetClass);
+        }
+      };
+
+  private static final LongAdder TOTAL_HITS = new LongAdder();
+  private static final LongAdder TOTAL_MISSES = new LongAdder();
+
+  private final Class<?> targetClass;
+  private final List<ConcurrentMap<Method, DispatchEntry>> entries;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  private MethodDispatchTable(Class<?> targetClass) {
+    this.targetClass = targetClass;
+
+    // each matching mode may choose a different target for the same interface method, so each
+    // has its own entries.
+    List<ConcurrentMap<Method, DispatchEntry>> matchingEntries = new ArrayList<>();
+    for (int i = 0; i < MethodMatching.values().length; i++) {
+      matchingEntries.add(new ConcurrentHashMap<>());
+    }
+    this.entries = Collections.unmodifiableList(matchingEntries);
+  }
+
+  /**
+   * Retrieves the dispatch table for the given class. The same table is returned for every call
+   * with the same class.
+   *
+   * @param targetClass The class declaring the methods to be invoked.
+   * @return The dispatch table for the class.
+   */
+  public static MethodDispatchTable forClass(Class<?> targetClass) {
+    return DISPATCH_TABLES.get(targetClass);
+  }
+
+  /** @return The number of lookups answered from the cache across all dispatch tables. */
+  public static long totalHitCount() {
+    return TOTAL_HITS.sum();
+  }
+
+  /** @return The number of lookups requiring reflection across all dispatch tables. */
+  public static long totalMissCount() {
+    return TOTAL_MISSES.sum();
+  }
+
+  /**
+   * Finds the method declared by the target class, or inherited from its superclasses and
+   * interfaces, with the same name and argument types as the interface method. The returned method
+   * is already accessible.
+   *
+   * @param interfaceMethod The method called on the proxy.
+   * @return The accessible method declared by the target class.
+   * @throws NoSuchMethodException if no matching method is reachable from the target class.
+   */
+  public Method resolve(Method interfaceMethod) throws NoSuchMethodException {
+    return resolve(interfaceMethod, MethodMatching.EXACT);
+  }
+
+  /**
+   * Finds the method reachable from the target class matching the interface method according to
+   * the given {@link MethodMatching}. The returned method is already accessible.
+   *
+   * @param interfaceMethod The method called on the proxy.
+   * @param methodMatching How the interface method is matched to the target method.
+   * @return The accessible method matching the interface method.
+   * @throws NoSuchMethodException if no method reachable from the target class matches, or more
+   *     than one matches equally well.
+   */
+  public Method resolve(Method interfaceMethod, MethodMatching methodMatching)
+      throws NoSuchMethodException {
+    Method targetMethod = match(interfaceMethod, methodMatching).getTargetMethod();
+    if (targetMethod == null) {
+      throw new NoSuchMethodException(
+          String.format(
+              "%s accesses a field or constructor rather than a method", interfaceMethod));
+    }
+    return targetMethod;
+  }
+
+  /**
+   * Finds the method, field or constructor matching the interface method. Interface methods
+   * annotated with {@link FieldAccess} or {@link ConstructorAccess} match a field or a constructor
+   * whatever the {@link MethodMatching}.
+   *
+   * @param interfaceMethod The method called on the proxy.
+   * @param methodMatching How the interface method is matched to a target method.
+   * @return The match for the interface method.
+   * @throws NoSuchMethodException if nothing reachable from the target class matches.
+   */
+  MethodMatch match(Method interfaceMethod, MethodMatching methodMatching)
+      throws NoSuchMethodException {
+    return entryFor(interfaceMethod, methodMatching).methodMatch;
+  }
+
+  /**
+   * Finds the {@link MethodInvoker} calling the method matching the interface method using the
+   * given strategy.
+   *
+   * @param interfaceMethod The method called on the proxy.
+   * @param invocationStrategy The strategy used to invoke the target method.
+   * @return The MethodInvoker for the target method.
+   * @throws NoSuchMethodException if the target class does not declare a matching method.
+   * @throws IllegalAccessException if the strategy is unable to access the target method.
+   */
+  public MethodInvoker resolveInvoker(Method interfaceMethod, InvocationStrategy invocationStrategy)
+      throws NoSuchMethodException, IllegalAccessException {
+    return resolveInvoker(interfaceMethod, invocationStrategy, MethodMatching.EXACT);
+  }
+
+  /**
+   * Finds the {@link MethodInvoker} calling the method matching the interface method according to
+   * the given {@link MethodMatching}, using the given strategy. Invokers for methods matched by
+   * conversion adapt the arguments and the return value to the interface method's types.
+   *
+   * @param interfaceMethod The method called on the proxy.
+   * @param invocationStrategy The strategy used to invoke the target method.
+   * @param methodMatching How the interface method is matched to the target method.
+   * @return The MethodInvoker for the target method.
+   * @throws NoSuchMethodException if no method reachable from the target class matches, more than
+   *     one matches equally well, or the method matched by conversion returns a value which cannot
+   *     be converted to the interface method's return type.
+   * @throws IllegalAccessException if the strategy is unable to access the target method.
+   */
+  public MethodInvoker resolveInvoker(
+      Method interfaceMethod,
+      InvocationStrategy invocationStrategy,
+      MethodMatching methodMatching)
+      throws NoSuchMethodException, IllegalAccessException {
+    DispatchEntry entry = entryFor(interfaceMethod, methodMatching);
+    MethodInvoker invoker = entry.invokers.get(invocationStrategy.ordinal());
+    if (invoker != null) {
+      return invoker;
+    }
+
+    // converted invokers are adapted by asType, which would only reject the return type once the
+    // adapted handle is first invoked.
+    if (entry.methodMatch.isConverted()
+        && !MethodBindings.returnTypeCompatible(interfaceMethod, entry.methodMatch)) {
+      throw new NoSuchMethodException(
+          String.format(
+              "%s cannot return %s",
+              interfaceMethod, entry.methodMatch.getReturnType().getName()));
+    }
+
+    MethodInvoker boundInvoker = entry.methodMatch.bind(interfaceMethod, invocationStrategy);
+    return entry.invokers.compareAndSet(invocationStrategy.ordinal(), null, boundInvoker)
+        ? boundInvoker
+        : entry.invokers.get(invocationStrategy.ordinal());
+  }
+
+  private DispatchEntry entryFor(Method interfaceMethod, MethodMatching methodMatching)
+      throws NoSuchMethodException {
+    ConcurrentMap<Method, DispatchEntry> matchingEntries = entries.get(methodMatching.ordinal());
+    DispatchEntry entry = matchingEntries.get(interfaceMethod);
+    if (entry != null) {
+      hits.increment();
+      TOTAL_HITS.increment();
+      return entry;
+    }
+
+    misses.increment();
+    TOTAL_MISSES.increment();
+
+    // the lookup happens outside of the map so the checked exception can propagate. two threads
+    // may race to resolve the same method, but only the first one is ever published.
+    MethodResolutionEvent resolutionEvent = new MethodResolutionEvent();
+    resolutionEvent.begin();
+    MethodMatch methodMatch;
+    try {
+      methodMatch = matchUncached(interfaceMethod, methodMatching);
+    } finally {
+      resolutionEvent.complete(targetClass, interfaceMethod, methodMatching.name());
+    }
+
+    DispatchEntry resolvedEntry = new DispatchEntry(methodMatch);
+    DispatchEntry publishedEntry = matchingEntries.putIfAbsent(interfaceMethod, resolvedEntry);
+    return (publishedEntry != null) ? publishedEntry : resolvedEntry;
+  }
+
+  private MethodMatch matchUncached(Method interfaceMethod, MethodMatching methodMatching)
+      throws NoSuchMethodException {
+    MethodSignatureIndex signatureIndex = MethodSignatureIndex.forClass(targetClass);
+    FieldAccess fieldAccess = interfaceMethod.getAnnotation(FieldAccess.class);
+    MethodMatch methodMatch;
+    if (fieldAccess != null) {
+      methodMatch = MethodMatch.fieldAccess(signatureIndex, interfaceMethod, fieldAccess);
+    } else if (interfaceMethod.isAnnotationPresent(ConstructorAccess.class)) {
+      methodMatch = MethodMatch.constructorAccess(signatureIndex, interfaceMethod);
+    } else {
+      methodMatch = methodMatching.match(signatureIndex, interfaceMethod);
+    }
+    if (methodMatch == null) {
+      throw new NoSuchMethodException(
+          String.format(
+              "%s.%s(%s)",
+              targetClass.getName(),
+              interfaceMethod.getName(),
+              Arrays.stream(interfaceMethod.getParameterTypes())
+                  .map(Class::getName)
+                  .collect(Collectors.joining(","))));
+    }
+    return methodMatch;
+  }
+
+  /** @return The class whose methods are cached by this table. */
+  public Class<?> getTargetClass() {
+    return targetClass;
+  }
+
+  /** @return The number of lookups answered from this table's cache. */
+  public long hitCount() {
+    return hits.sum();
+  }
+
+  /** @return The number of lookups for this table requiring reflection. */
+  public long missCount() {
+    return misses.sum();
+  }
+
+  private static final class DispatchEntry {
+
+    private final MethodMatch methodMatch;
+    private final AtomicReferenceArray<MethodInvoker> invokers =
+        new AtomicReferenceArray<>(InvocationStrategy.values().length);
+
+    private DispatchEntry(MethodMatch methodMatch) {
+      this.methodMatch = methodMatch;
+    }
+  }
+}
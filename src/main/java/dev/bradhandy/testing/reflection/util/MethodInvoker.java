@@ -0,0 +1,20 @@
+package dev.bradhandy.testing.reflection.util;
+
+/**
+ * Invokes a single, already resolved method on an object under test.
+ *
+ * @author bhandy
+ */
+@FunctionalInterface
+public interface MethodInvoker {
+
+  /**
+   * Invokes the resolved method.
+   *
+   * @param objectUnderTest The object receiving the call, or the declaring Class for static methods.
+   * @param arguments The arguments for the call. May be null when the method accepts no arguments.
+   * @return The return value, if any, of the method.
+   * @throws Throwable the exception thrown by the method, without any reflective wrapper.
+   */
+  Object invoke(Object objectUnderTest, Object[] arguments) throws Throwable;
+}
@@ -0,0 +1,286 @@
+package dev.bradhandy.testing.reflection.util;
+
+import dev.bradhandy.testing.reflection.ConstructorAccess;
+import dev.bradhandy.testing.reflection.FieldAccess;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The member of a target class matched to an interface method, along with how the interface
+ * method's arguments are converted to reach it. The member is either a method matched by a {@link
+ * MethodMatching}, a field named by {@link FieldAccess}, or a constructor called through {@link
+ * ConstructorAccess}.
+ *
+ * @author bhandy
+ */
+final class MethodMatch {
+
+  private static final MethodType GENERIC_INVOKER_TYPE =
+      MethodType.methodType(Object.class, Object.class, Object[].class);
+
+  private static final Set<VarHandle.AccessMode> FIELD_READ_MODES =
+      EnumSet.of(
+          VarHandle.AccessMode.GET,
+          VarHandle.AccessMode.GET_OPAQUE,
+          VarHandle.AccessMode.GET_ACQUIRE,
+          VarHandle.AccessMode.GET_VOLATILE);
+
+  private final Member target;
+  private final boolean converted;
+  private final boolean variableArity;
+  private final VarHandle.AccessMode fieldAccessMode;
+
+  private MethodMatch(
+      Member target,
+      boolean converted,
+      boolean variableArity,
+      VarHandle.AccessMode fieldAccessMode) {
+    this.target = target;
+    this.converted = converted;
+    this.variableArity = variableArity;
+    this.fieldAccessMode = fieldAccessMode;
+  }
+
+  static MethodMatch exact(Method targetMethod) {
+    return new MethodMatch(targetMethod, false, false, null);
+  }
+
+  static MethodMatch converted(Method targetMethod, boolean variableArity) {
+    return new MethodMatch(targetMethod, true, variableArity, null);
+  }
+
+  /**
+   * Matches an interface method annotated with {@link FieldAccess} to the named field. A method
+   * without parameters reads the field, and a method with a single parameter writes it.
+   *
+   * @param signatureIndex The index of the members reachable from the target class.
+   * @param interfaceMethod The annotated method called on the proxy.
+   * @param fieldAccess The annotation naming the field.
+   * @return The match for the field.
+   * @throws NoSuchMethodException if the field does not exist, or the interface method neither
+   *     reads nor writes a field.
+   */
+  static MethodMatch fieldAccess(
+      MethodSignatureIndex signatureIndex, Method interfaceMethod, FieldAccess fieldAccess)
+      throws NoSuchMethodException {
+    Field targetField = signatureIndex.findField(fieldAccess.value());
+    if (targetField == null) {
+      throw new NoSuchMethodException(
+          String.format("No field %s for %s", fieldAccess.value(), interfaceMethod));
+    }
+
+    boolean readsField =
+        interfaceMethod.getParameterCount() == 0 && interfaceMethod.getReturnType() != void.class;
+    boolean writesField =
+        interfaceMethod.getParameterCount() == 1 && interfaceMethod.getReturnType() == void.class;
+    if (!readsField && !writesField) {
+      throw new NoSuchMethodException(
+          String.format(
+              "%s must return the field without parameters, or return void with one parameter",
+              interfaceMethod));
+    }
+
+    return new MethodMatch(targetField, true, false, accessMode(fieldAccess.mode(), readsField));
+  }
+
+  /**
+   * Matches an interface method annotated with {@link ConstructorAccess} to the constructor of the
+   * target class with exactly the same parameter types.
+   *
+   * @param signatureIndex The index of the members reachable from the target class.
+   * @param interfaceMethod The annotated method called on the proxy.
+   * @return The match for the constructor.
+   * @throws NoSuchMethodException if the target class declares no such constructor, or the
+   *     interface method cannot return the constructed instance.
+   */
+  static MethodMatch constructorAccess(
+      MethodSignatureIndex signatureIndex, Method interfaceMethod) throws NoSuchMethodException {
+    Constructor<?> targetConstructor =
+        signatureIndex.findConstructor(interfaceMethod.getParameterTypes());
+    if (targetConstructor == null) {
+      throw new NoSuchMethodException(
+          String.format("No constructor with the parameters of %s", interfaceMethod));
+    }
+
+    // the constructed instance would otherwise only fail the proxy's cast once the method is
+    // called, rather than when it is bound.
+    MethodMatch constructorMatch = new MethodMatch(targetConstructor, true, false, null);
+    if (!MethodBindings.returnTypeCompatible(interfaceMethod, constructorMatch)) {
+      throw new NoSuchMethodException(
+          String.format(
+              "%s cannot return the %s it constructs",
+              interfaceMethod, targetConstructor.getDeclaringClass().getName()));
+    }
+    return constructorMatch;
+  }
+
+  private static VarHandle.AccessMode accessMode(FieldAccess.Mode mode, boolean readsField) {
+    switch (mode) {
+      case OPAQUE:
+        return readsField ? VarHandle.AccessMode.GET_OPAQUE : VarHandle.AccessMode.SET_OPAQUE;
+      case ACQUIRE_RELEASE:
+        return readsField ? VarHandle.AccessMode.GET_ACQUIRE : VarHandle.AccessMode.SET_RELEASE;
+      case VOLATILE:
+        return readsField ? VarHandle.AccessMode.GET_VOLATILE : VarHandle.AccessMode.SET_VOLATILE;
+      default:
+        return readsField ? VarHandle.AccessMode.GET : VarHandle.AccessMode.SET;
+    }
+  }
+
+  /**
+   * @return The accessible method of the target class, or null if a field or constructor is
+   *     accessed instead.
+   */
+  Method getTargetMethod() {
+    return (target instanceof Method) ? (Method) target : null;
+  }
+
+  /** @return Whether the matched method or field is static. */
+  boolean isStatic() {
+    // constructors need no instance, so they are called like static methods.
+    return (target instanceof Constructor) || Modifier.isStatic(target.getModifiers());
+  }
+
+  /** @return A description of the kind of member matched. */
+  String describeTarget() {
+    if (target instanceof Field) {
+      return "field";
+    }
+    return (target instanceof Constructor) ? "constructor" : "method";
+  }
+
+  /** @return The type produced by calling the method or accessing the field. */
+  Class<?> getReturnType() {
+    if (target instanceof Method) {
+      return ((Method) target).getReturnType();
+    }
+    if (target instanceof Constructor) {
+      return target.getDeclaringClass();
+    }
+    return isFieldRead() ? ((Field) target).getType() : void.class;
+  }
+
+  /**
+   * @param interfaceMethod The method called on the proxy.
+   * @return Whether the interface method returns a future completed by running the target on an
+   *     executor. See {@link AsyncMethodInvoker}.
+   */
+  boolean runsAsynchronously(Method interfaceMethod) {
+    return AsyncMethodInvoker.runsAsynchronously(interfaceMethod, getReturnType());
+  }
+
+  /** @return Whether the arguments are converted to the target method's parameter types. */
+  boolean isConverted() {
+    return converted;
+  }
+
+  /** @return Whether trailing arguments are collected into the target method's varargs array. */
+  boolean isVariableArity() {
+    return variableArity;
+  }
+
+  private boolean isFieldRead() {
+    return FIELD_READ_MODES.contains(fieldAccessMode);
+  }
+
+  /**
+   * Creates the {@link MethodInvoker} calling the target method or constructor, or accessing the
+   * target field, with the arguments of the interface method. Exact matches are bound by the
+   * strategy. Converted matches, fields and constructors are always reached through a {@link
+   * MethodHandle} adapted once to the interface method's type, so constructors are never called
+   * through {@link Constructor#newInstance(Object...)}. Interface methods returning a future of the
+   * target's return value are given an {@link AsyncMethodInvoker}.
+   *
+   * @param interfaceMethod The method called on the proxy.
+   * @param invocationStrategy The strategy used to invoke exactly matched methods.
+   * @return A MethodInvoker for the target method or field.
+   * @throws IllegalAccessException if the target cannot be accessed, or the field is final and
+   *     the interface method writes it.
+   */
+  MethodInvoker bind(Method interfaceMethod, InvocationStrategy invocationStrategy)
+      throws IllegalAccessException {
+    if (runsAsynchronously(interfaceMethod)) {
+      return new AsyncMethodInvoker(bindTarget(interfaceMethod, Object.class, invocationStrategy));
+    }
+    return bindTarget(interfaceMethod, interfaceMethod.getReturnType(), invocationStrategy);
+  }
+
+  private MethodInvoker bindTarget(
+      Method interfaceMethod, Class<?> returnType, InvocationStrategy invocationStrategy)
+      throws IllegalAccessException {
+    if (!converted) {
+      return invocationStrategy.bind((Method) target);
+    }
+
+    MethodHandles.Lookup lookup =
+        MethodHandles.privateLookupIn(target.getDeclaringClass(), MethodHandles.lookup());
+    MethodHandle targetHandle;
+    if (target instanceof Field) {
+      targetHandle = fieldHandle(lookup, (Field) target);
+    } else if (target instanceof Constructor) {
+      targetHandle = lookup.unreflectConstructor((Constructor<?>) target);
+    } else {
+      targetHandle = methodHandle(lookup, (Method) target, interfaceMethod.getParameterCount());
+    }
+
+    // asType performs the same widening, boxing and unboxing conversions as the compiler, for the
+    // arguments as well as for the return value expected by the proxy. asynchronous calls box the
+    // return value, which completes the future.
+    List<Class<?>> adaptedParameterTypes = new ArrayList<>();
+    if (!isStatic()) {
+      adaptedParameterTypes.add(targetHandle.type().parameterType(0));
+    }
+    adaptedParameterTypes.addAll(Arrays.asList(interfaceMethod.getParameterTypes()));
+    MethodHandle adaptedHandle =
+        targetHandle
+            .asType(MethodType.methodType(returnType, adaptedParameterTypes))
+            .asSpreader(Object[].class, interfaceMethod.getParameterCount());
+
+    if (isStatic()) {
+      adaptedHandle = MethodHandles.dropArguments(adaptedHandle, 0, Object.class);
+    }
+
+    MethodHandle invokerHandle = adaptedHandle.asType(GENERIC_INVOKER_TYPE);
+    return (objectUnderTest, arguments) ->
+        (Object) invokerHandle.invokeExact(objectUnderTest, arguments);
+  }
+
+  private MethodHandle methodHandle(
+      MethodHandles.Lookup lookup, Method targetMethod, int argumentCount)
+      throws IllegalAccessException {
+    MethodHandle targetHandle = lookup.unreflect(targetMethod);
+
+    // the trailing arguments of a variable arity call are collected into the array parameter.
+    if (variableArity) {
+      Class<?>[] targetParameterTypes = targetMethod.getParameterTypes();
+      int fixedParameterCount = targetParameterTypes.length - 1;
+      targetHandle =
+          targetHandle.asCollector(
+              targetParameterTypes[fixedParameterCount], argumentCount - fixedParameterCount);
+    }
+    return targetHandle;
+  }
+
+  private MethodHandle fieldHandle(MethodHandles.Lookup lookup, Field targetField)
+      throws IllegalAccessException {
+    VarHandle fieldVarHandle = lookup.unreflectVarHandle(targetField);
+    if (!fieldVarHandle.isAccessModeSupported(fieldAccessMode)) {
+      throw new IllegalAccessException(
+          String.format("Field %s does not support %s access", targetField, fieldAccessMode));
+    }
+    return fieldVarHandle.toMethodHandle(fieldAccessMode);
+  }
+}
@@ -0,0 +1,270 @@
+package dev.bradhandy.testing.reflection.util;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Identifies how an interface method is matched to a method of the object under test.
+ *
+ * @author bhandy
+ */
+public enum MethodMatching {
+
+  /** Matches a method with the same name and exactly the same parameter types. */
+  EXACT {
+    @Override
+    MethodMatch match(MethodSignatureIndex signatureIndex, Method interfaceMethod) {
+      Method targetMethod =
+          signatureIndex.find(interfaceMethod.getName(), interfaceMethod.getParameterTypes());
+      return (targetMethod != null) ? MethodMatch.exact(targetMethod) : null;
+    }
+  },
+
+  /**
+   * Matches a method with the same name whose parameters accept the interface method's parameter
+   * types, following the same phases as the Java compiler. A method with exactly the same
+   * parameter types is preferred. Otherwise, methods applicable by widening are preferred over
+   * methods applicable by boxing and unboxing, which are preferred over variable arity methods.
+   * Within a phase, the most specific method is chosen.
+   *
+   * <p>Calls to a method matched by conversion go through a {@link java.lang.invoke.MethodHandle}
+   * adapted once to the interface method's type, whatever the {@link InvocationStrategy}.
+   */
+  CONVERTIBLE {
+    @Override
+    MethodMatch match(MethodSignatureIndex signatureIndex, Method interfaceMethod)
+        throws NoSuchMethodException {
+      MethodMatch exactMatch = EXACT.match(signatureIndex, interfaceMethod);
+      if (exactMatch != null) {
+        return exactMatch;
+      }
+
+      List<Method> overloads = signatureIndex.overloads(interfaceMethod.getName());
+      Class<?>[] argumentTypes = interfaceMethod.getParameterTypes();
+      for (Phase phase : Phase.values()) {
+        List<Method> applicableMethods = new ArrayList<>();
+        for (Method overload : overloads) {
+          if (phase.isApplicable(overload, argumentTypes)) {
+            applicableMethods.add(overload);
+          }
+        }
+
+        if (!applicableMethods.isEmpty()) {
+          Method targetMethod = mostSpecific(interfaceMethod, applicableMethods, phase);
+          return MethodMatch.converted(targetMethod, phase == Phase.VARIABLE_ARITY);
+        }
+      }
+      return null;
+    }
+  };
+
+  private static final Map<Class<?>, Class<?>> WRAPPER_TYPES = new HashMap<>();
+  private static final Map<Class<?>, List<Class<?>>> PRIMITIVE_WIDENINGS = new HashMap<>();
+
+  static {
+    WRAPPER_TYPES.put(boolean.class, Boolean.class);
+    WRAPPER_TYPES.put(byte.class, Byte.class);
+    WRAPPER_TYPES.put(short.class, Short.class);
+    WRAPPER_TYPES.put(char.class, Character.class);
+    WRAPPER_TYPES.put(int.class, Integer.class);
+    WRAPPER_TYPES.put(long.class, Long.class);
+    WRAPPER_TYPES.put(float.class, Float.class);
+    WRAPPER_TYPES.put(double.class, Double.class);
+
+    PRIMITIVE_WIDENINGS.put(
+        byte.class, Arrays.asList(short.class, int.class, long.class, float.class, double.class));
+    PRIMITIVE_WIDENINGS.put(
+        short.class, Arrays.asList(int.class, long.class, float.class, double.class));
+    PRIMITIVE_WIDENINGS.put(
+        char.class, Arrays.asList(int.class, long.class, float.class, double.class));
+    PRIMITIVE_WIDENINGS.put(int.class, Arrays.asList(long.class, float.class, double.class));
+    PRIMITIVE_WIDENINGS.put(long.class, Arrays.asList(float.class, double.class));
+    PRIMITIVE_WIDENINGS.put(float.class, Arrays.asList(double.class));
+  }
+
+  /**
+   * Finds the method of the target class matching the interface method.
+   *
+   * @param signatureIndex The index of the methods reachable from the target class.
+   * @param interfaceMethod The method called on the proxy.
+   * @return The matching method, or null if there is none.
+   * @throws NoSuchMethodException if more than one method matches and none is most specific.
+   */
+  abstract MethodMatch match(MethodSignatureIndex signatureIndex, Method interfaceMethod)
+      throws NoSuchMethodException;
+
+  private static Method mostSpecific(
+      Method interfaceMethod, List<Method> applicableMethods, Phase phase)
+      throws NoSuchMethodException {
+    int arity = interfaceMethod.getParameterCount();
+    List<Method> maximalMethods = new ArrayList<>();
+    for (Method candidate : applicableMethods) {
+      boolean mostSpecific = true;
+      for (Method other : applicableMethods) {
+        if (other != candidate
+            && !isMoreSpecific(candidate, other, arity, phase)
+            && isMoreSpecific(other, candidate, arity, phase)) {
+          mostSpecific = false;
+          break;
+        }
+      }
+      if (mostSpecific) {
+        maximalMethods.add(candidate);
+      }
+    }
+
+    if (maximalMethods.size() > 1) {
+      throw new AmbiguousMethodException(
+          interfaceMethod,
+          maximalMethods.stream()
+              .map(Method::toGenericString)
+              .collect(Collectors.joining(", ")));
+    }
+    return maximalMethods.get(0);
+  }
+
+  private static boolean isMoreSpecific(Method method, Method other, int arity, Phase phase) {
+    Class<?>[] parameterTypes = phase.expandedParameterTypes(method, arity);
+    Class<?>[] otherParameterTypes = phase.expandedParameterTypes(other, arity);
+    for (int i = 0; i < parameterTypes.length; i++) {
+      if (!isWideningConvertible(parameterTypes[i], otherParameterTypes[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isWideningConvertible(Class<?> sourceType, Class<?> targetType) {
+    if (sourceType == targetType) {
+      return true;
+    }
+    if (sourceType.isPrimitive() || targetType.isPrimitive()) {
+      return sourceType.isPrimitive()
+          && PRIMITIVE_WIDENINGS.getOrDefault(sourceType, List.of()).contains(targetType);
+    }
+    return targetType.isAssignableFrom(sourceType);
+  }
+
+  /**
+   * Determines whether a primitive value of the source type is widened to the primitive target
+   * type, such as an {@code int} passed as a {@code long}.
+   *
+   * @param sourceType The type of the value.
+   * @param targetType The expected type.
+   * @return Whether both types are primitive and the source type widens to the target type.
+   */
+  static boolean isPrimitiveWidening(Class<?> sourceType, Class<?> targetType) {
+    return sourceType.isPrimitive()
+        && PRIMITIVE_WIDENINGS.getOrDefault(sourceType, List.of()).contains(targetType);
+  }
+
+  /**
+   * Determines whether a value of the source type can be passed where the target type is expected,
+   * by widening, boxing or unboxing.
+   *
+   * @param sourceType The type of the value.
+   * @param targetType The expected type.
+   * @return Whether the value can be converted.
+   */
+  static boolean isBoxingConvertible(Class<?> sourceType, Class<?> targetType) {
+    if (isWideningConvertible(sourceType, targetType)) {
+      return true;
+    }
+    if (sourceType.isPrimitive()) {
+      return !targetType.isPrimitive()
+          && targetType.isAssignableFrom(WRAPPER_TYPES.get(sourceType));
+    }
+    if (targetType.isPrimitive()) {
+      Class<?> unboxedType = unwrap(sourceType);
+      return unboxedType != null && isWideningConvertible(unboxedType, targetType);
+    }
+    return false;
+  }
+
+  private static Class<?> unwrap(Class<?> wrapperType) {
+    for (Map.Entry<Class<?>, Class<?>> wrapperEntry : WRAPPER_TYPES.entrySet()) {
+      if (wrapperEntry.getValue() == wrapperType) {
+        return wrapperEntry.getKey();
+      }
+    }
+    return null;
+  }
+
+  private enum Phase {
+    WIDENING {
+      @Override
+      boolean isApplicable(Method method, Class<?>[] argumentTypes) {
+        return method.getParameterCount() == argumentTypes.length
+            && allConvertible(argumentTypes, method.getParameterTypes(), false);
+      }
+    },
+    BOXING {
+      @Override
+      boolean isApplicable(Method method, Class<?>[] argumentTypes) {
+        return method.getParameterCount() == argumentTypes.length
+            && allConvertible(argumentTypes, method.getParameterTypes(), true);
+      }
+    },
+    VARIABLE_ARITY {
+      @Override
+      boolean isApplicable(Method method, Class<?>[] argumentTypes) {
+        return method.isVarArgs()
+            && argumentTypes.length >= method.getParameterCount() - 1
+            && allConvertible(
+                argumentTypes, expandedParameterTypes(method, argumentTypes.length), true);
+      }
+
+      @Override
+      Class<?>[] expandedParameterTypes(Method method, int arity) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        Class<?>[] expandedTypes = Arrays.copyOf(parameterTypes, arity);
+        Class<?> componentType = parameterTypes[parameterTypes.length - 1].getComponentType();
+        Arrays.fill(expandedTypes, parameterTypes.length - 1, arity, componentType);
+        return expandedTypes;
+      }
+    };
+
+    abstract boolean isApplicable(Method method, Class<?>[] argumentTypes);
+
+    Class<?>[] expandedParameterTypes(Method method, int arity) {
+      return method.getParameterTypes();
+    }
+
+    private static boolean allConvertible(
+        Class<?>[] argumentTypes, Class<?>[] parameterTypes, boolean allowBoxing) {
+      for (int i = 0; i < argumentTypes.length; i++) {
+        boolean convertible =
+            allowBoxing
+                ? isBoxingConvertible(argumentTypes[i], parameterTypes[i])
+                : isWideningConvertible(argumentTypes[i], parameterTypes[i]);
+        if (!convertible) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /** Thrown when more than one method matches an interface method and none is most specific. */
+  static final class AmbiguousMethodException extends NoSuchMethodException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String candidates;
+
+    private AmbiguousMethodException(Method interfaceMethod, String candidates) {
+      super(String.format("%s is ambiguous between %s", interfaceMethod, candidates));
+      this.candidates = candidates;
+    }
+
+    /** @return The methods matching equally well, separated by commas. */
+    String getCandidates() {
+      return candidates;
+    }
+  }
+}
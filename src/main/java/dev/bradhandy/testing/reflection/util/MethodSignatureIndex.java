@@ -0,0 +1,228 @@
+package dev.bradhandy.testing.reflection.util;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Flattened index of every method reachable from a target class, keyed by name and parameter types.
+ * The index is built once per class from the methods declared by the class, its superclasses up to,
+ * but excluding, {@link Object}, and the default and private methods of every interface it
+ * implements.
+ *
+ * <p>A method hides any method with the same signature found later in the search order: the class
+ * itself, then each superclass from the nearest to the farthest, then the interfaces. Private
+ * methods of a superclass are indexed as well, so finding a method is a single map lookup no matter
+ * how deep the hierarchy is.
+ *
+ * <p>The indexed methods are also grouped by name, so every overload reachable from the class can
+ * be searched when an exact signature is not found. Fields declared by the class and its
+ * superclasses are indexed by name, following the same hiding rules. Constructors, which are never
+ * inherited, are indexed for the class itself unless it is abstract.
+ *
+ * @author bhandy
+ */
+final class MethodSignatureIndex {
+
+  private static final String CONSTRUCTOR_NAME = "<init>";
+
+  private static final ClassValue<MethodSignatureIndex> SIGNATURE_INDEXES =
+      new ClassValue<MethodSignatureIndex>() {
+        @Override
+        protected MethodSignatureIndex computeValue(Class<?> targetClass) {
+          return new MethodSignatureIndex(targetClass);
+        }
+      };
+
+  private final Map<MethodSignature, Method> methods;
+  private final Map<String, List<Method>> overloads;
+  private final Map<String, Field> fields;
+  private final Map<MethodSignature, Constructor<?>> constructors;
+
+  private MethodSignatureIndex(Class<?> targetClass) {
+    Map<MethodSignature, Method> indexedMethods = new HashMap<>();
+    for (Class<?> type = targetClass;
+        type != null && type != Object.class;
+        type = type.getSuperclass()) {
+      indexDeclaredMethods(type, indexedMethods);
+    }
+    indexInterfaceMethods(targetClass, indexedMethods);
+    this.methods = Collections.unmodifiableMap(indexedMethods);
+
+    Map<String, List<Method>> groupedMethods = new HashMap<>();
+    for (Method indexedMethod : indexedMethods.values()) {
+      groupedMethods
+          .computeIfAbsent(indexedMethod.getName(), name -> new ArrayList<>())
+          .add(indexedMethod);
+    }
+    groupedMethods.replaceAll((name, namedMethods) -> Collections.unmodifiableList(namedMethods));
+    this.overloads = Collections.unmodifiableMap(groupedMethods);
+
+    Map<String, Field> indexedFields = new HashMap<>();
+    for (Class<?> type = targetClass;
+        type != null && type != Object.class;
+        type = type.getSuperclass()) {
+      for (Field declaredField : type.getDeclaredFields()) {
+        if (!indexedFields.containsKey(declaredField.getName())) {
+          indexedFields.put(declaredField.getName(), declaredField);
+        }
+      }
+    }
+    this.fields = Collections.unmodifiableMap(indexedFields);
+
+    Map<MethodSignature, Constructor<?>> indexedConstructors = new HashMap<>();
+    if (!Modifier.isAbstract(targetClass.getModifiers())) {
+      for (Constructor<?> declaredConstructor : targetClass.getDeclaredConstructors()) {
+        indexedConstructors.put(
+            new MethodSignature(CONSTRUCTOR_NAME, declaredConstructor.getParameterTypes()),
+            declaredConstructor);
+      }
+    }
+    this.constructors = Collections.unmodifiableMap(indexedConstructors);
+  }
+
+  /**
+   * Retrieves the index for the given class. The same index is returned for every call with the
+   * same class.
+   *
+   * @param targetClass The class whose methods are indexed.
+   * @return The index for the class.
+   */
+  static MethodSignatureIndex forClass(Class<?> targetClass) {
+    return SIGNATURE_INDEXES.get(targetClass);
+  }
+
+  /**
+   * Finds the method with the given signature. The returned method is already accessible.
+   *
+   * @param name The name of the method.
+   * @param parameterTypes The parameter types of the method.
+   * @return The method, or null if no accessible method with the signature is reachable.
+   */
+  Method find(String name, Class<?>[] parameterTypes) {
+    return methods.get(new MethodSignature(name, parameterTypes));
+  }
+
+  /**
+   * Finds every method with the given name, regardless of the parameter types.
+   *
+   * @param name The name of the methods.
+   * @return The accessible methods with the name, or an empty list if there are none.
+   */
+  List<Method> overloads(String name) {
+    return overloads.getOrDefault(name, Collections.emptyList());
+  }
+
+  /**
+   * Finds the field with the given name, declared by the class or the nearest superclass.
+   *
+   * @param name The name of the field.
+   * @return The field, or null if no field with the name is declared.
+   */
+  Field findField(String name) {
+    return fields.get(name);
+  }
+
+  /**
+   * Finds the constructor declared by the class with the given parameter types.
+   *
+   * @param parameterTypes The parameter types of the constructor.
+   * @return The constructor, or null if the class declares no such constructor or is abstract.
+   */
+  Constructor<?> findConstructor(Class<?>[] parameterTypes) {
+    return constructors.get(new MethodSignature(CONSTRUCTOR_NAME, parameterTypes));
+  }
+
+  private static void indexInterfaceMethods(
+      Class<?> targetClass, Map<MethodSignature, Method> indexedMethods) {
+    Deque<Class<?>> pendingInterfaces = new ArrayDeque<>();
+    for (Class<?> type = targetClass; type != null; type = type.getSuperclass()) {
+      pendingInterfaces.addAll(Arrays.asList(type.getInterfaces()));
+    }
+
+    // static interface methods are not inherited by the implementing class, so they are skipped.
+    Set<Class<?>> visitedInterfaces = new HashSet<>();
+    while (!pendingInterfaces.isEmpty()) {
+      Class<?> interfaceType = pendingInterfaces.removeFirst();
+      if (visitedInterfaces.add(interfaceType)) {
+        for (Method declaredMethod : interfaceType.getDeclaredMethods()) {
+          if (!Modifier.isStatic(declaredMethod.getModifiers())) {
+            indexMethod(declaredMethod, indexedMethods);
+          }
+        }
+        pendingInterfaces.addAll(Arrays.asList(interfaceType.getInterfaces()));
+      }
+    }
+  }
+
+  private static void indexDeclaredMethods(
+      Class<?> type, Map<MethodSignature, Method> indexedMethods) {
+    for (Method declaredMethod : type.getDeclaredMethods()) {
+      indexMethod(declaredMethod, indexedMethods);
+    }
+  }
+
+  private static void indexMethod(Method method, Map<MethodSignature, Method> indexedMethods) {
+
+    // abstract methods cannot be invoked, and bridge methods duplicate the signature of the method
+    // they bridge to with erased types.
+    if (Modifier.isAbstract(method.getModifiers()) || method.isBridge()) {
+      return;
+    }
+
+    MethodSignature signature = new MethodSignature(method.getName(), method.getParameterTypes());
+    if (indexedMethods.containsKey(signature)) {
+      return;
+    }
+
+    // every indexed method is made accessible up front, so it is never mutated once shared. a
+    // method which cannot be made accessible, such as a private method of a JDK superclass, is
+    // left out of the index.
+    if (method.trySetAccessible()) {
+      indexedMethods.put(signature, method);
+    }
+  }
+
+  private static final class MethodSignature {
+
+    private final String name;
+    private final Class<?>[] parameterTypes;
+    private final int hashCode;
+
+    private MethodSignature(String name, Class<?>[] parameterTypes) {
+      this.name = name;
+      this.parameterTypes = parameterTypes;
+      this.hashCode = 31 * name.hashCode() + Arrays.hashCode(parameterTypes);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof MethodSignature)) {
+        return false;
+      }
+
+      MethodSignature otherSignature = (MethodSignature) other;
+      return name.equals(otherSignature.name)
+          && Arrays.equals(parameterTypes, otherSignature.parameterTypes);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
@@ -1,8 +1,11 @@
 package dev.bradhandy.testing.reflection.util;
 
+import dev.bradhandy.testing.reflection.events.MethodInvocationEvent;
+
 import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * Implementation of {@link InvocationHandler} to locate and execute a method with the same name and
@@ -10,26 +13,59 @@ import java.lang.reflect.Method;
  * execution by code normally unauthorized to call the method. Then the method is executed and any
  * available return value is returned to the caller.
  *
+ * <p>The method is executed using the {@link InvocationStrategy} of the handler's {@link
+ * HandlerConfiguration}, which {@link ProxyFactory} builds. Unless another strategy is configured,
+ * {@link InvocationStrategy#METHOD_HANDLE} is used. When the proxy binds eagerly, the invoker of
+ * each bound interface method is found by the identity of the {@link Method} the proxy class
+ * passes, see {@link MethodBindings#invokersFor}, without consulting the {@link
+ * MethodDispatchTable}. Methods are matched by {@link MethodMatching#EXACT} unless another {@link
+ * MethodMatching} is given.
+ *
+ * <p>Interface methods returning a {@code CompletableFuture} or {@code Future} of the target
+ * method's return type run the target method on the configured {@link Executor}, or on the default
+ * executor described by {@link AsyncMethodInvoker} when none is given.
+ *
  * @author bhandy
  */
 public final class MethodUnderTestInvocationHandler implements InvocationHandler {
 
   private final Object objectUnderTest;
+  private final InvocationStrategy invocationStrategy;
+  private final MethodMatching methodMatching;
+  private final Map<Method, MethodInvoker> boundInvokers;
+  private final Executor asyncExecutor;
 
   public MethodUnderTestInvocationHandler(Object objectUnderTest) {
+    this(objectUnderTest, HandlerConfiguration.DEFAULT);
+  }
+
+  /**
+   * @param objectUnderTest The object, or Class for static methods, receiving the calls.
+   * @param configuration How the members of the object under test are reached.
+   */
+  MethodUnderTestInvocationHandler(Object objectUnderTest, HandlerConfiguration configuration) {
     this.objectUnderTest = objectUnderTest;
+    this.invocationStrategy = configuration.getInvocationStrategy();
+    this.methodMatching = configuration.getMethodMatching();
+    this.boundInvokers = configuration.getBoundInvokers();
+    this.asyncExecutor = configuration.getAsyncExecutor();
   }
 
   /**
    * Called when an interface method for a configured proxy is called.
    *
    * <p>Look up the method identified by {@code method.getName()} and whose arguments have the same
-   * types as returned by {@code method.getParameterTypes()}. The method must be declared by the
-   * target class.
+   * types as returned by {@code method.getParameterTypes()}, or whose parameters accept those types
+   * when matching by {@link MethodMatching#CONVERTIBLE}. The method must be declared by the target
+   * class or one of its superclasses or interfaces. The lookup is cached in the {@link
+   * MethodDispatchTable} for the target class.
    *
    * <p>In the case of static method lookups, the target will be the Class object of the declaring
    * type.
    *
+   * <p>Each call is recorded as a {@link MethodInvocationEvent} while Flight Recorder enables it.
+   * The event is only created for calls made while it is enabled.
+   *
    * @param proxy The object which was the target of the method call within the code.
    * @param method The method called on the proxy.
    * @param args The arguments passed to the called method.
@@ -38,18 +74,40 @@ public final class MethodUnderTestInvocationHandler implements InvocationHandler
    */
   @Override
   public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+    // calls allocate nothing for the event unless a recording has enabled it.
+    if (!MethodInvocationEvent.isRecorded()) {
+      return invokeTarget(method, args);
+    }
+
+    MethodInvocationEvent invocationEvent = new MethodInvocationEvent();
+    invocationEvent.begin();
     try {
-      Class<?> targetClass =
-          (objectUnderTest instanceof Class)
-              ? (Class<?>) objectUnderTest
-              : objectUnderTest.getClass();
-      Method targetMethod =
-          targetClass.getDeclaredMethod(method.getName(), method.getParameterTypes());
-      targetMethod.setAccessible(true);
-
-      return targetMethod.invoke(objectUnderTest, args);
-    } catch (InvocationTargetException e) {
-      throw e.getCause();
+      return invokeTarget(method, args);
+    } finally {
+      invocationEvent.complete(objectUnderTest, method);
+    }
+  }
+
+  private Object invokeTarget(Method method, Object[] args) throws Throwable {
+    MethodInvoker boundInvoker = boundInvokers.get(method);
+    if (boundInvoker != null) {
+      return invoke(boundInvoker, args);
+    }
+
+    Class<?> targetClass =
+        (objectUnderTest instanceof Class) ? (Class<?>) objectUnderTest : objectUnderTest.getClass();
+    MethodInvoker targetInvoker =
+        MethodDispatchTable.forClass(targetClass)
+            .resolveInvoker(method, invocationStrategy, methodMatching);
+
+    return invoke(targetInvoker, args);
+  }
+
+  private Object invoke(MethodInvoker targetInvoker, Object[] args) throws Throwable {
+    if (asyncExecutor != null && targetInvoker instanceof AsyncMethodInvoker) {
+      return ((AsyncMethodInvoker) targetInvoker).invokeOn(asyncExecutor, objectUnderTest, args);
     }
+    return targetInvoker.invoke(objectUnderTest, args);
   }
 }
@@ -0,0 +1,29 @@
+package dev.bradhandy.testing.reflection.util;
+
+import java.util.ServiceLoader;
+
+/**
+ * Creates proxies for a single interface and target class without any runtime lookup. Accessors
+ * are generated at compile time by the object-under-test-builder annotation processor, and
+ * registered through {@link ServiceLoader}. With {@link ProxyEngine#GENERATED_ACCESSOR}, {@link
+ * ProxyFactory} uses the registered accessor for an interface and target class, if there is one,
+ * instead of creating a reflection proxy.
+ *
+ * <p>Implementations must be public, with a public no-argument constructor, and thread safe.
+ *
+ * @author bhandy
+ */
+public interface ProxyAccessor {
+
+  /** @return The exact class of the objects under test wrapped by the accessor's proxies. */
+  Class<?> getTargetClass();
+
+  /** @return The interface implemented by the accessor's proxies. */
+  Class<?> getProxyInterface();
+
+  /**
+   * @param objectUnderTest An instance of the target class.
+   * @return A new proxy implementing the interface by calling the object under test's methods.
+   */
+  Object newProxy(Object objectUnderTest);
+}
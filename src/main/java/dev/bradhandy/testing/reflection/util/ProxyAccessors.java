@@ -0,0 +1,62 @@
+package dev.bradhandy.testing.reflection.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Registry of the {@link ProxyAccessor}s available for each interface. The accessors are loaded
+ * through {@link ServiceLoader} from the interface's class loader, once per interface, since the
+ * annotation processor generates them alongside the interface.
+ *
+ * @author bhandy
+ */
+final class ProxyAccessors {
+
+  private static final ClassValue<Map<Class<?>, ProxyAccessor>> ACCESSORS_BY_TARGET =
+      new ClassValue<Map<Class<?>, ProxyAccessor>>() {
+        @Override
+        protected Map<Class<?>, ProxyAccessor> computeValue(Class<?> proxyInterface) {
+          return loadAccessors(proxyInterface);
+        }
+      };
+
+  private ProxyAccessors() {}
+
+  /**
+   * Finds the accessor creating proxies for the interface around instances of the target class.
+   *
+   * @param targetClass The exact class of the object under test.
+   * @param proxyInterface The interface implemented by the proxy.
+   * @return The accessor, or null if none is registered.
+   */
+  static ProxyAccessor find(Class<?> targetClass, Class<?> proxyInterface) {
+    return ACCESSORS_BY_TARGET.get(proxyInterface).get(targetClass);
+  }
+
+  private static Map<Class<?>, ProxyAccessor> loadAccessors(Class<?> proxyInterface) {
+    Map<Class<?>, ProxyAccessor> accessors = new HashMap<>();
+    Iterator<ProxyAccessor> accessorIterator =
+        ServiceLoader.load(ProxyAccessor.class, proxyInterface.getClassLoader()).iterator();
+    while (true) {
+
+      // an accessor which cannot be loaded, for example after its target class changed without
+      // regenerating it, is skipped so the interface falls back to reflection.
+      try {
+        if (!accessorIterator.hasNext()) {
+          break;
+        }
+        ProxyAccessor accessor = accessorIterator.next();
+        if (accessor.getProxyInterface() == proxyInterface) {
+          accessors.putIfAbsent(accessor.getTargetClass(), accessor);
+        }
+      } catch (ServiceConfigurationError | LinkageError e) {
+        continue;
+      }
+    }
+    return accessors.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(accessors);
+  }
+}
@@ -0,0 +1,35 @@
+package dev.bradhandy.testing.reflection.util;
+
+import java.lang.reflect.Proxy;
+
+/**
+ * Identifies how {@link ProxyFactory} creates the proxies around an object under test.
+ *
+ * @author bhandy
+ */
+public enum ProxyEngine {
+
+  /**
+   * Creates a {@link Proxy} dispatching every call through a {@link
+   * MethodUnderTestInvocationHandler}.
+   */
+  REFLECTION_PROXY,
+
+  /**
+   * Generates a hidden class, nestmate of the object under test's class, whose methods call the
+   * private target methods directly. Requires Java 15 or later. When hidden classes are not
+   * available, or the interfaces cannot be implemented by a direct call to a method declared by the
+   * target class, a {@link #REFLECTION_PROXY} is created instead.
+   */
+  HIDDEN_CLASS,
+
+  /**
+   * Uses the {@link ProxyAccessor} generated by the annotation processor for the interface and the
+   * target class. The generated proxy calls the target methods directly, so its calls record no
+   * {@code MethodInvocation} event, and eager binding relies on the checks the processor made at
+   * compile time. When no accessor is registered, more than one interface is proxied, or the
+   * methods are invoked with {@link InvocationStrategy#REFLECTION}, a {@link #REFLECTION_PROXY} is
+   * created instead.
+   */
+  GENERATED_ACCESSOR
+}
@@ -0,0 +1,446 @@
+package dev.bradhandy.testing.reflection.util;
+
+import dev.bradhandy.testing.reflection.events.ProxyCreationEvent;
+import dev.bradhandy.testing.reflection.events.ProxyDefinitionEvent;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Creates proxies conforming to a fixed set of interfaces, with each proxy wrapping an object under
+ * test in a {@link MethodUnderTestInvocationHandler}.
+ *
+ * <p>The constructor of the proxy class is looked up once per target class and interface list,
+ * then cached. The cache is held by the target class's {@link ClassValue}, so it is released along
+ * with the class of the object under test and never pins that class's loader. Creating a proxy
+ * afterwards only allocates the proxy and its handler.
+ *
+ * <p>The proxy class loader is chosen from the interfaces and the target class alone, never from
+ * the calling thread, so the same proxy class is used no matter which thread creates the proxy.
+ * Factories are immutable and every shared cache is read without locking, so proxies may be
+ * created and invoked from any number of threads at the same time.
+ *
+ * <p>With {@link ProxyEngine#HIDDEN_CLASS}, a hidden class calling the target methods directly is
+ * created instead, whenever the runtime and the interfaces allow it.
+ *
+ * <p>With {@link ProxyEngine#GENERATED_ACCESSOR}, factories for a single interface use the {@link
+ * ProxyAccessor} generated for the interface and the object under test's class, when the
+ * annotation processor has registered one.
+ *
+ * @author bhandy
+ */
+public final class ProxyFactory {
+
+  private static final ClassValue<ConcurrentMap<List<Class<?>>, Constructor<?>>>
+      PROXY_CONSTRUCTORS =
+          new ClassValue<ConcurrentMap<List<Class<?>>, Constructor<?>>>() {
+            @Override
+            protected ConcurrentMap<List<Class<?>>, Constructor<?>> computeValue(Class<?> type) {
+              return new ConcurrentHashMap<>();
+            }
+          };
+
+  private static final InvocationHandler UNSUPPORTED_HANDLER =
+      (proxy, method, args) -> {
+        throw new UnsupportedOperationException();
+      };
+
+  private final Class<?>[] interfaces;
+  private final InvocationStrategy invocationStrategy;
+  private final ProxyEngine proxyEngine;
+  private final MethodMatching methodMatching;
+  private final boolean eagerBinding;
+  private final Executor asyncExecutor;
+
+  private ProxyFactory(
+      Class<?>[] interfaces,
+      InvocationStrategy invocationStrategy,
+      ProxyEngine proxyEngine,
+      MethodMatching methodMatching,
+      boolean eagerBinding,
+      Executor asyncExecutor) {
+    this.interfaces = interfaces;
+    this.invocationStrategy = invocationStrategy;
+    this.proxyEngine = proxyEngine;
+    this.methodMatching = methodMatching;
+    this.eagerBinding = eagerBinding;
+    this.asyncExecutor = asyncExecutor;
+  }
+
+  /**
+   * Creates a factory for proxies conforming to the given interfaces. The proxies are {@link
+   * ProxyEngine#REFLECTION_PROXY} proxies using {@link InvocationStrategy#METHOD_HANDLE} and {@link
+   * MethodMatching#EXACT}, and bind the interface methods lazily.
+   *
+   * @param interfaces The interfaces implemented by the proxies.
+   * @return The proxy factory.
+   */
+  public static ProxyFactory forInterfaces(Class<?>... interfaces) {
+    return new ProxyFactory(
+        Arrays.copyOf(interfaces, interfaces.length),
+        InvocationStrategy.METHOD_HANDLE,
+        ProxyEngine.REFLECTION_PROXY,
+        MethodMatching.EXACT,
+        false,
+        null);
+  }
+
+  /**
+   * @param invocationStrategy The strategy used to invoke the methods of the object under test.
+   * @return A factory using the given strategy.
+   */
+  public ProxyFactory invokedWith(InvocationStrategy invocationStrategy) {
+    return new ProxyFactory(
+        interfaces, invocationStrategy, proxyEngine, methodMatching, eagerBinding, asyncExecutor);
+  }
+
+  /**
+   * @param proxyEngine The engine used to create the proxies.
+   * @return A factory using the given engine.
+   */
+  public ProxyFactory proxiedWith(ProxyEngine proxyEngine) {
+    return new ProxyFactory(
+        interfaces, invocationStrategy, proxyEngine, methodMatching, eagerBinding, asyncExecutor);
+  }
+
+  /**
+   * Hidden class proxies only call methods matched exactly, or by widening primitive and reference
+   * types. Interfaces with a method matched by boxing or variable arity are proxied by {@link
+   * ProxyEngine#REFLECTION_PROXY} instead.
+   *
+   * @param methodMatching How interface methods are matched to the methods of the object under
+   *     test.
+   * @return A factory using the given matching.
+   */
+  public ProxyFactory matchedBy(MethodMatching methodMatching) {
+    return new ProxyFactory(
+        interfaces, invocationStrategy, proxyEngine, methodMatching, eagerBinding, asyncExecutor);
+  }
+
+  /**
+   * Creates a factory binding every interface method to the object under test's class before the
+   * first proxy for the class is created. See {@link MethodBindings}.
+   *
+   * @return A factory binding interface methods eagerly.
+   */
+  public ProxyFactory boundEagerly() {
+    return new ProxyFactory(
+        interfaces, invocationStrategy, proxyEngine, methodMatching, true, asyncExecutor);
+  }
+
+  /**
+   * Interface methods declaring a {@code CompletableFuture} or {@code Future} of a target method's
+   * return type return as soon as the target method is submitted, and the future completes once it
+   * returns. By default, the target methods run on a virtual thread per call on Java 21 and later,
+   * and on the common {@code ForkJoinPool} otherwise.
+   *
+   * @param asyncExecutor The executor running the targets of asynchronous interface methods.
+   * @return A factory running asynchronous interface methods on the given executor.
+   */
+  public ProxyFactory runAsyncOn(Executor asyncExecutor) {
+    return new ProxyFactory(
+        interfaces,
+        invocationStrategy,
+        proxyEngine,
+        methodMatching,
+        eagerBinding,
+        Objects.requireNonNull(asyncExecutor, "asyncExecutor"));
+  }
+
+  /**
+   * Binds every method of the configured interfaces to the class of the object under test.
+   *
+   * @param objectUnderTest The object, or Class for static methods, receiving the proxied calls.
+   * @return The bindings for the object under test's class.
+   * @throws IllegalArgumentException if any interface method cannot be bound.
+   */
+  public MethodBindings bind(Object objectUnderTest) {
+    boolean staticTarget = objectUnderTest instanceof Class;
+    return MethodBindings.bind(
+        targetClassOf(objectUnderTest),
+        staticTarget,
+        invocationStrategy,
+        methodMatching,
+        interfaces);
+  }
+
+  /**
+   * Resolves what the factory needs to create proxies for instances of the target class before any
+   * instance exists: the generated accessor, the proxy class and the target of every interface
+   * method. Everything is published to the same caches used by {@link #newProxy(Object)}, so the
+   * first proxy for the class is created and called without searching the class.
+   *
+   * <p>Interface methods without a target are left to fail when they are called, unless the
+   * factory binds eagerly. Hidden class proxies are still defined when the first proxy is created.
+   *
+   * @param targetClass The exact class of the objects under test.
+   * @throws IllegalArgumentException if binding eagerly and any interface method cannot be bound.
+   */
+  public void prepare(Class<?> targetClass) {
+    if (generatedAccessorFor(targetClass) != null) {
+      return;
+    }
+    if (eagerBinding) {
+      MethodBindings.bind(targetClass, false, invocationStrategy, methodMatching, interfaces);
+    }
+    if (proxyEngine == ProxyEngine.HIDDEN_CLASS) {
+      return;
+    }
+
+    proxyConstructor(targetClass, interfaces);
+    MethodDispatchTable dispatchTable = MethodDispatchTable.forClass(targetClass);
+    for (Class<?> interfaceType : interfaces) {
+      for (Method interfaceMethod : interfaceType.getMethods()) {
+        if (Modifier.isStatic(interfaceMethod.getModifiers())) {
+          continue;
+        }
+
+        try {
+          dispatchTable.resolveInvoker(interfaceMethod, invocationStrategy, methodMatching);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+          // reported by the proxy when the method is called.
+        }
+      }
+    }
+  }
+
+  private static Class<?> targetClassOf(Object objectUnderTest) {
+    if (objectUnderTest == null) {
+      return null;
+    }
+    return (objectUnderTest instanceof Class)
+        ? (Class<?>) objectUnderTest
+        : objectUnderTest.getClass();
+  }
+
+  /**
+   * Creates a proxy conforming to the configured interfaces. The proxy class is defined in the
+   * class loader of a non-public interface if there is one. Otherwise, it is defined in the first
+   * class loader, out of the interfaces' loaders followed by the target class's loader, from which
+   * every interface is visible.
+   *
+   * @param objectUnderTest The object, or Class for static methods, receiving the proxied calls.
+   * @return The new proxy.
+   * @throws IllegalArgumentException if binding eagerly and any interface method cannot be bound.
+   */
+  public Object newProxy(Object objectUnderTest) {
+    ProxyCreationEvent creationEvent = new ProxyCreationEvent();
+    creationEvent.begin();
+    try {
+      return proxyCreatorFor(objectUnderTest).newProxy(objectUnderTest);
+    } finally {
+      creationEvent.complete(targetClassOf(objectUnderTest), interfaces, 1);
+    }
+  }
+
+  /**
+   * Creates a proxy for each of the objects under test, in the same order. The proxy class, and
+   * the bindings when binding eagerly, are resolved once for each distinct class of the objects and
+   * shared by all of their proxies, so the cost of creating the proxies grows with the number of
+   * classes rather than the number of objects.
+   *
+   * @param objectsUnderTest The objects, or Classes for static methods, receiving the proxied
+   *     calls.
+   * @return The new proxies.
+   * @throws IllegalArgumentException if binding eagerly and any interface method cannot be bound.
+   */
+  public List<Object> newProxies(Collection<?> objectsUnderTest) {
+    ProxyCreationEvent creationEvent = new ProxyCreationEvent();
+    creationEvent.begin();
+    Map<Class<?>, ProxyCreator> instanceCreators = new HashMap<>();
+    Map<Class<?>, ProxyCreator> staticCreators = new HashMap<>();
+    List<Object> proxies = new ArrayList<>(objectsUnderTest.size());
+    for (Object objectUnderTest : objectsUnderTest) {
+      Map<Class<?>, ProxyCreator> proxyCreators =
+          (objectUnderTest instanceof Class) ? staticCreators : instanceCreators;
+      Class<?> targetClass = targetClassOf(objectUnderTest);
+      ProxyCreator proxyCreator = proxyCreators.get(targetClass);
+      if (proxyCreator == null) {
+        proxyCreator = proxyCreatorFor(objectUnderTest);
+        proxyCreators.put(targetClass, proxyCreator);
+      }
+      proxies.add(proxyCreator.newProxy(objectUnderTest));
+    }
+
+    creationEvent.complete(
+        objectsUnderTest.isEmpty() ? null : targetClassOf(objectsUnderTest.iterator().next()),
+        interfaces,
+        proxies.size());
+    return proxies;
+  }
+
+  private ProxyCreator proxyCreatorFor(Object objectUnderTest) {
+    ProxyAccessor proxyAccessor = generatedAccessorFor(objectUnderTest);
+    if (proxyAccessor != null) {
+      return proxyAccessor::newProxy;
+    }
+
+    MethodBindings methodBindings = eagerBinding ? bind(objectUnderTest) : null;
+    if (proxyEngine == ProxyEngine.HIDDEN_CLASS) {
+      MethodHandle hiddenProxyFactory =
+          HiddenClassProxies.proxyFactoryFor(objectUnderTest, interfaces, methodMatching);
+      if (hiddenProxyFactory != null) {
+        return target -> newHiddenProxy(hiddenProxyFactory, target);
+      }
+    }
+
+    Class<?> targetClass = targetClassOf(objectUnderTest);
+    Constructor<?> proxyConstructor = proxyConstructor(targetClass, interfaces);
+    HandlerConfiguration handlerConfiguration =
+        new HandlerConfiguration(
+            invocationStrategy,
+            methodMatching,
+            (methodBindings != null)
+                ? methodBindings.invokersFor(proxyConstructor)
+                : Collections.emptyMap(),
+            asyncExecutor);
+    return target -> {
+      try {
+        return proxyConstructor.newInstance(
+            new MethodUnderTestInvocationHandler(target, handlerConfiguration));
+      } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+        throw new IllegalStateException(
+            String.format("Unable to create proxy for %s.", Arrays.toString(interfaces)), e);
+      }
+    };
+  }
+
+  // generated accessors call exactly matching methods through method handles, so they are only
+  // used when asked for. the processor has already checked every method.
+  private ProxyAccessor generatedAccessorFor(Object objectUnderTest) {
+    if (objectUnderTest == null || objectUnderTest instanceof Class) {
+      return null;
+    }
+    return generatedAccessorFor(objectUnderTest.getClass());
+  }
+
+  private ProxyAccessor generatedAccessorFor(Class<?> targetClass) {
+    if (proxyEngine != ProxyEngine.GENERATED_ACCESSOR
+        || interfaces.length != 1
+        || invocationStrategy != InvocationStrategy.METHOD_HANDLE) {
+      return null;
+    }
+    return ProxyAccessors.find(targetClass, interfaces[0]);
+  }
+
+  private static Object newHiddenProxy(MethodHandle hiddenProxyFactory, Object objectUnderTest) {
+    try {
+      return (Object) hiddenProxyFactory.invokeExact(objectUnderTest);
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      // the generated constructor only assigns a field, so it declares nothing to be thrown.
+      throw new IllegalStateException("Unable to create hidden class proxy.", e);
+    }
+  }
+
+  private static Constructor<?> proxyConstructor(Class<?> targetClass, Class<?>[] interfaces) {
+
+    // the proxy class loader is chosen from the interfaces and the target class, so the target
+    // class keeps the cache. proxies without a target only depend on the interfaces.
+    Class<?> cacheOwner = targetClass;
+    if (cacheOwner == null) {
+      cacheOwner = (interfaces.length > 0) ? interfaces[0] : Object.class;
+    }
+    ConcurrentMap<List<Class<?>>, Constructor<?>> constructors = PROXY_CONSTRUCTORS.get(cacheOwner);
+    List<Class<?>> proxyClassKey = Arrays.asList(interfaces);
+
+    Constructor<?> proxyConstructor = constructors.get(proxyClassKey);
+    if (proxyConstructor != null) {
+      return proxyConstructor;
+    }
+
+    // the lookup happens outside of the map so no lock is held while the proxy class is defined.
+    // Proxy caches its classes as well, so two threads racing here find the same constructor.
+    Constructor<?> resolvedConstructor =
+        lookUpProxyConstructor(
+            proxyClassLoader(targetClass, interfaces), targetClass, interfaces);
+    Constructor<?> publishedConstructor =
+        constructors.putIfAbsent(proxyClassKey, resolvedConstructor);
+    return (publishedConstructor != null) ? publishedConstructor : resolvedConstructor;
+  }
+
+  private static ClassLoader proxyClassLoader(Class<?> targetClass, Class<?>[] interfaces) {
+
+    // Proxy defines the class in the package of a non-public interface, which requires the
+    // interface's own loader.
+    for (Class<?> interfaceType : interfaces) {
+      if (!Modifier.isPublic(interfaceType.getModifiers())) {
+        return interfaceType.getClassLoader();
+      }
+    }
+
+    List<ClassLoader> candidateLoaders = new ArrayList<>();
+    for (Class<?> interfaceType : interfaces) {
+      candidateLoaders.add(interfaceType.getClassLoader());
+    }
+    if (targetClass != null) {
+      candidateLoaders.add(targetClass.getClassLoader());
+    }
+
+    for (ClassLoader candidateLoader : candidateLoaders) {
+      if (allVisibleFrom(candidateLoader, interfaces)) {
+        return candidateLoader;
+      }
+    }
+
+    throw new IllegalArgumentException(
+        String.format(
+            "No class loader of %s or the object under test can see every interface.",
+            Arrays.toString(interfaces)));
+  }
+
+  private static boolean allVisibleFrom(ClassLoader classLoader, Class<?>[] interfaces) {
+    for (Class<?> interfaceType : interfaces) {
+      try {
+        if (Class.forName(interfaceType.getName(), false, classLoader) != interfaceType) {
+          return false;
+        }
+      } catch (ClassNotFoundException e) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static Constructor<?> lookUpProxyConstructor(
+      ClassLoader classLoader, Class<?> targetClass, Class<?>[] interfaces) {
+
+    // Proxy offers no supported way to retrieve the proxy class without an instance, so a
+    // throw-away instance is created once to discover the class for the loader and interfaces.
+    ProxyDefinitionEvent definitionEvent = new ProxyDefinitionEvent();
+    definitionEvent.begin();
+    Class<?> proxyClass =
+        Proxy.newProxyInstance(classLoader, interfaces, UNSUPPORTED_HANDLER).getClass();
+    definitionEvent.complete(targetClass, interfaces, ProxyEngine.REFLECTION_PROXY.name(), true);
+    try {
+      Constructor<?> proxyConstructor = proxyClass.getConstructor(InvocationHandler.class);
+      proxyConstructor.setAccessible(true);
+      return proxyConstructor;
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException(
+          String.format("Proxy class %s has no InvocationHandler constructor.", proxyClass), e);
+    }
+  }
+
+  /** Creates proxies for objects under test of a single class. */
+  private interface ProxyCreator {
+    Object newProxy(Object objectUnderTest);
+  }
+}
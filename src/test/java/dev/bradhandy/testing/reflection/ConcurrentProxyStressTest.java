@@ -0,0 +1,172 @@
+package dev.bradhandy.testing.reflection;
+
+import dev.bradhandy.testing.reflection.util.FieldAccessor;
+import dev.bradhandy.testing.reflection.util.InvocationStrategy;
+import dev.bradhandy.testing.reflection.util.MethodBindings;
+import dev.bradhandy.testing.reflection.util.ProxyEngine;
+import dev.bradhandy.testing.reflection.util.ProxyFactory;
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrentProxyStressTest {
+
+  private static final int THREAD_COUNT = 64;
+  private static final int ITERATIONS = 200;
+
+  @Test
+  void concurrentProxiesOnlyCallTheirOwnObjectUnderTest() throws Exception {
+    runConcurrently(
+        threadIndex -> {
+          for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+            String identity = threadIndex + ":" + iteration;
+            SomeClass someInstance = new SomeClass(identity);
+            IdentifyingInterface objectUnderTest =
+                ObjectUnderTestBuilder.using(someInstance)
+                    .invokedWith(InvocationStrategy.values()[iteration % 2])
+                    .proxiedWith(ProxyEngine.values()[(iteration / 2) % 2])
+                    .conformingTo(IdentifyingInterface.class)
+                    .build();
+
+            assertThat(objectUnderTest.identify()).isEqualTo(identity);
+            assertThat(objectUnderTest.increment()).isEqualTo(1);
+            assertThat(objectUnderTest.increment()).isEqualTo(2);
+          }
+        });
+  }
+
+  @Test
+  void sharedMetadataIsPublishedOnce() throws Exception {
+    Set<Object> proxyClasses = ConcurrentHashMap.newKeySet();
+    Set<Object> methodBindings = ConcurrentHashMap.newKeySet();
+    Set<Object> fieldAccessors = ConcurrentHashMap.newKeySet();
+
+    runConcurrently(
+        threadIndex -> {
+          ProxyFactory proxyFactory = ProxyFactory.forInterfaces(IdentifyingInterface.class);
+          SomeClass someInstance = new SomeClass(String.valueOf(threadIndex));
+
+          proxyClasses.add(proxyFactory.newProxy(someInstance).getClass());
+          methodBindings.add(proxyFactory.bind(someInstance));
+          fieldAccessors.add(FieldAccessor.forField(SomeClass.class, "identity"));
+        });
+
+    assertThat(proxyClasses).hasSize(1);
+    assertThat(methodBindings)
+        .hasSize(1)
+        .allSatisfy(bindings -> assertThat(((MethodBindings) bindings).size()).isEqualTo(2));
+    assertThat(fieldAccessors).hasSize(1);
+  }
+
+  @Test
+  void proxyClassLoaderIgnoresContextClassLoader() throws Exception {
+    Class<?> expectedProxyClass =
+        ProxyFactory.forInterfaces(PublicIdentifyingInterface.class)
+            .newProxy(new SomeClass("expected"))
+            .getClass();
+    Set<Object> proxyClasses = ConcurrentHashMap.newKeySet();
+
+    try (URLClassLoader isolatedClassLoader = new URLClassLoader(new URL[0], null)) {
+      runConcurrently(
+          threadIndex -> {
+            Thread currentThread = Thread.currentThread();
+            ClassLoader originalClassLoader = currentThread.getContextClassLoader();
+
+            // a context class loader unable to see the interface would fail to define the proxy
+            // class if it were used.
+            currentThread.setContextClassLoader(isolatedClassLoader);
+            try {
+              PublicIdentifyingInterface objectUnderTest =
+                  ObjectUnderTestBuilder.using(new SomeClass(String.valueOf(threadIndex)))
+                      .conformingTo(PublicIdentifyingInterface.class)
+                      .build();
+
+              assertThat(objectUnderTest.identify()).isEqualTo(String.valueOf(threadIndex));
+              proxyClasses.add(objectUnderTest.getClass());
+            } finally {
+              currentThread.setContextClassLoader(originalClassLoader);
+            }
+          });
+    }
+
+    assertThat(proxyClasses).containsExactly(expectedProxyClass);
+  }
+
+  private static void runConcurrently(ConcurrentTask concurrentTask) throws Exception {
+    ExecutorService executorService = Executors.newFixedThreadPool(THREAD_COUNT);
+    CyclicBarrier startingLine = new CyclicBarrier(THREAD_COUNT);
+    try {
+      List<Future<?>> taskResults = new ArrayList<>();
+      for (int threadIndex = 0; threadIndex < THREAD_COUNT; threadIndex++) {
+        final int currentThreadIndex = threadIndex;
+        taskResults.add(
+            executorService.submit(
+                () -> {
+                  // every thread starts at the same time to maximize contention on the caches.
+                  startingLine.await();
+                  concurrentTask.run(currentThreadIndex);
+                  return null;
+                }));
+      }
+
+      for (Future<?> taskResult : taskResults) {
+        try {
+          taskResult.get(60, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof Error) {
+            throw (Error) e.getCause();
+          }
+          throw e;
+        }
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @FunctionalInterface
+  private interface ConcurrentTask {
+    void run(int threadIndex) throws Exception;
+  }
+
+  private interface IdentifyingInterface {
+    String identify();
+
+    int increment();
+  }
+
+  public interface PublicIdentifyingInterface {
+    String identify();
+  }
+
+  private static class SomeClass {
+
+    private final String identity;
+    private int counter;
+
+    SomeClass(String identity) {
+      this.identity = identity;
+    }
+
+    private String identify() {
+      return identity;
+    }
+
+    private int increment() {
+      return ++counter;
+    }
+  }
+}
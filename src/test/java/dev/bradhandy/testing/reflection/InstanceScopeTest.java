@@ -0,0 +1,145 @@
+package dev.bradhandy.testing.reflection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InstanceScopeTest {
+
+  @Test
+  void perBuildSuppliesNewObjectEveryBuild() {
+    AtomicInteger suppliedCount = new AtomicInteger();
+    ObjectUnderTestBuilder objectUnderTestBuilder =
+        ObjectUnderTestBuilder.suppliedBy(() -> newCounter(suppliedCount))
+            .scopedTo(InstanceScope.perBuild())
+            .conformingTo(CounterInterface.class);
+
+    CounterInterface firstCounter = objectUnderTestBuilder.build();
+    CounterInterface secondCounter = objectUnderTestBuilder.build();
+
+    assertThat(firstCounter).isNotSameAs(secondCounter);
+    assertThat(suppliedCount).hasValue(2);
+  }
+
+  @Test
+  void singletonSuppliesOneProxyForEveryBuild() {
+    AtomicInteger suppliedCount = new AtomicInteger();
+    ObjectUnderTestBuilder objectUnderTestBuilder =
+        ObjectUnderTestBuilder.suppliedBy(() -> newCounter(suppliedCount))
+            .scopedTo(InstanceScope.singleton())
+            .conformingTo(CounterInterface.class);
+
+    CounterInterface firstCounter = objectUnderTestBuilder.build();
+    CounterInterface secondCounter = objectUnderTestBuilder.build();
+
+    assertThat(firstCounter).isSameAs(secondCounter);
+    assertThat(firstCounter.increment()).isEqualTo(1);
+    assertThat(secondCounter.increment()).isEqualTo(2);
+    assertThat(suppliedCount).hasValue(1);
+  }
+
+  @Test
+  void singletonIsNotSharedBetweenBuilders() {
+    ObjectUnderTestBuilder objectUnderTestBuilder =
+        ObjectUnderTestBuilder.suppliedBy(() -> new Counter())
+            .scopedTo(InstanceScope.singleton());
+
+    assertThat(objectUnderTestBuilder.<Object>build())
+        .isNotSameAs(objectUnderTestBuilder.conformingTo(CounterInterface.class).build());
+  }
+
+  @Test
+  void perThreadSuppliesOneObjectForEachThread() throws Exception {
+    ObjectUnderTestBuilder objectUnderTestBuilder =
+        ObjectUnderTestBuilder.suppliedBy(() -> new Counter())
+            .scopedTo(InstanceScope.perThread())
+            .conformingTo(CounterInterface.class);
+
+    Object mainThreadCounter = objectUnderTestBuilder.build();
+    Object otherThreadCounter =
+        CompletableFuture.supplyAsync(objectUnderTestBuilder::build).get();
+
+    assertThat(objectUnderTestBuilder.<Object>build()).isSameAs(mainThreadCounter);
+    assertThat(otherThreadCounter).isNotSameAs(mainThreadCounter);
+  }
+
+  @Test
+  void pooledObjectsAreResetAndReused() {
+    AtomicInteger suppliedCount = new AtomicInteger();
+    ObjectUnderTestBuilder objectUnderTestBuilder =
+        ObjectUnderTestBuilder.suppliedBy(() -> newCounter(suppliedCount))
+            .scopedTo(InstanceScope.<Counter>pooled(1, counter -> counter.count = 0))
+            .conformingTo(CounterInterface.class);
+
+    CounterInterface firstCounter = objectUnderTestBuilder.build();
+    firstCounter.increment();
+    objectUnderTestBuilder.release(firstCounter);
+    CounterInterface reusedCounter = objectUnderTestBuilder.build();
+
+    assertThat(reusedCounter).isSameAs(firstCounter);
+    assertThat(reusedCounter.increment()).isEqualTo(1);
+    assertThat(suppliedCount).hasValue(1);
+  }
+
+  @Test
+  void poolKeepsAtMostMaximumIdleObjects() {
+    AtomicInteger suppliedCount = new AtomicInteger();
+    ObjectUnderTestBuilder objectUnderTestBuilder =
+        ObjectUnderTestBuilder.suppliedBy(() -> newCounter(suppliedCount))
+            .scopedTo(InstanceScope.pooled(2));
+
+    List<Object> builtObjects = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      builtObjects.add(objectUnderTestBuilder.build());
+    }
+    builtObjects.forEach(objectUnderTestBuilder::release);
+    for (int i = 0; i < 3; i++) {
+      objectUnderTestBuilder.build();
+    }
+
+    assertThat(suppliedCount).hasValue(4);
+  }
+
+  @Test
+  void releasingUnknownObjectFails() {
+    ObjectUnderTestBuilder objectUnderTestBuilder =
+        ObjectUnderTestBuilder.suppliedBy(() -> new Counter()).scopedTo(InstanceScope.pooled(1));
+    Object builtObject = objectUnderTestBuilder.build();
+    objectUnderTestBuilder.release(builtObject);
+
+    assertThatThrownBy(() -> objectUnderTestBuilder.release(builtObject))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> objectUnderTestBuilder.release(new Counter()))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void negativeMaximumIdleIsRejected() {
+    assertThatThrownBy(() -> InstanceScope.pooled(-1))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static Counter newCounter(AtomicInteger suppliedCount) {
+    suppliedCount.incrementAndGet();
+    return new Counter();
+  }
+
+  private interface CounterInterface {
+    int increment();
+  }
+
+  private static class Counter {
+
+    private int count;
+
+    private int increment() {
+      return ++count;
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package dev.bradhandy.testing.reflection;
+
+import dev.bradhandy.testing.reflection.util.ProxyEngine;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ObjectUnderTestBatchBuilderTest {
+
+  @Test
+  void proxyBuiltForEveryObject() {
+    for (ProxyEngine proxyEngine : ProxyEngine.values()) {
+      List<Row> rows =
+          IntStream.range(0, 100).mapToObj(Row::new).collect(Collectors.toList());
+
+      List<RowInterface> proxies =
+          ObjectUnderTestBuilder.forEach(rows)
+              .proxiedWith(proxyEngine)
+              .conformingTo(RowInterface.class)
+              .buildAll();
+
+      assertThat(proxies).hasSize(100);
+      assertThat(proxies.get(42).index()).isEqualTo(42);
+      assertThat(proxies.get(99).index()).isEqualTo(99);
+    }
+  }
+
+  @Test
+  void objectsOfDifferentClassesAreProxied() {
+    List<RowInterface> proxies =
+        ObjectUnderTestBuilder.forEach(Stream.of(new Row(1), new OtherRow(2), StaticRow.class))
+            .boundEagerly()
+            .conformingTo(RowInterface.class)
+            .buildAll();
+
+    assertThat(proxies).extracting(RowInterface::index).containsExactly(1, 2, -1);
+  }
+
+  @Test
+  void objectsReturnedWithoutInterfaces() {
+    Row row = new Row(1);
+
+    assertThat(ObjectUnderTestBuilder.forEach(Arrays.asList(row)).<Object>buildAll())
+        .containsExactly(row);
+  }
+
+  @Test
+  void eagerBindingReportsUnboundClass() {
+    ObjectUnderTestBatchBuilder batchBuilder =
+        ObjectUnderTestBuilder.forEach(Arrays.asList(new Row(1), new WideRow(2L)))
+            .boundEagerly()
+            .conformingTo(RowInterface.class);
+
+    assertThatThrownBy(batchBuilder::buildAll)
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining(WideRow.class.getName());
+  }
+
+  private interface RowInterface {
+    int index();
+  }
+
+  private static class Row {
+
+    private final int index;
+
+    private Row(int index) {
+      this.index = index;
+    }
+
+    private int index() {
+      return index;
+    }
+  }
+
+  private static class OtherRow {
+
+    private final int index;
+
+    private OtherRow(int index) {
+      this.index = index;
+    }
+
+    private int index() {
+      return index;
+    }
+  }
+
+  private static class StaticRow {
+
+    private static int index() {
+      return -1;
+    }
+  }
+
+  private static class WideRow {
+
+    private final long index;
+
+    private WideRow(long index) {
+      this.index = index;
+    }
+
+    private long index() {
+      return index;
+    }
+  }
+}
@@ -1,10 +1,14 @@
 package dev.bradhandy.testing.reflection;
 
+import dev.bradhandy.testing.reflection.util.InvocationStrategy;
+import dev.bradhandy.testing.reflection.util.MethodMatching;
+import dev.bradhandy.testing.reflection.util.ProxyEngine;
 import org.junit.jupiter.api.Test;
 
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class ObjectUnderTestBuilderTest {
 
@@ -59,6 +63,167 @@ class ObjectUnderTestBuilderTest {
         .isEqualTo("someValueAltered");
   }
 
+  @Test
+  void ruleCanCreateProxyUsingReflectionStrategy() {
+    MethodExposingInterface objectUnderTest =
+        ObjectUnderTestBuilder.using(new SomeClass("test"))
+            .invokedWith(InvocationStrategy.REFLECTION)
+            .conformingTo(MethodExposingInterface.class)
+            .build();
+
+    assertThat(objectUnderTest.privateMethodToInvoke()).isEqualTo("invokedPrivateMethod");
+    assertThat(objectUnderTest.privateStaticMethodToInvoke("someValue"))
+        .isEqualTo("someValueAltered");
+  }
+
+  @Test
+  void ruleCanCreateProxyUsingHiddenClassEngine() {
+    MethodExposingInterface objectUnderTest =
+        ObjectUnderTestBuilder.using(new SomeClass("test"))
+            .proxiedWith(ProxyEngine.HIDDEN_CLASS)
+            .conformingTo(MethodExposingInterface.class)
+            .build();
+
+    assertThat(objectUnderTest.privateMethodToInvoke()).isEqualTo("invokedPrivateMethod");
+  }
+
+  @Test
+  void eagerBindingReportsEveryUnboundMethodWhenConforming() {
+    ObjectUnderTestBuilder objectUnderTestBuilder =
+        ObjectUnderTestBuilder.using(new SomeClass("test")).boundEagerly();
+
+    assertThatThrownBy(() -> objectUnderTestBuilder.conformingTo(MismatchedInterface.class))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("missingMethod()")
+        .hasMessageContaining("otherMissingMethod(String)");
+  }
+
+  @Test
+  void eagerBindingOfSuppliedObjectsHappensOnBuild() {
+    ObjectUnderTestBuilder objectUnderTestBuilder =
+        ObjectUnderTestBuilder.suppliedBy(() -> new SomeClass("test"))
+            .boundEagerly()
+            .conformingTo(MismatchedInterface.class);
+
+    assertThatThrownBy(objectUnderTestBuilder::build)
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("missingMethod()");
+  }
+
+  @Test
+  void eagerlyBoundProxyInvokesPrivateMethods() {
+    MethodExposingInterface objectUnderTest =
+        ObjectUnderTestBuilder.using(new SomeClass("test"))
+            .boundEagerly()
+            .conformingTo(InstanceMethodExposingInterface.class)
+            .build();
+
+    assertThat(objectUnderTest.privateMethodToInvoke()).isEqualTo("invokedPrivateMethod");
+  }
+
+  @Test
+  void convertibleMatchingWidensArguments() {
+    for (ProxyEngine proxyEngine : ProxyEngine.values()) {
+      WideningInterface objectUnderTest =
+          ObjectUnderTestBuilder.using(new SomeClass("test"))
+              .proxiedWith(proxyEngine)
+              .matchedBy(MethodMatching.CONVERTIBLE)
+              .conformingTo(WideningInterface.class)
+              .build();
+
+      assertThat(objectUnderTest.repeat(2)).isEqualTo("testtest");
+    }
+  }
+
+  @Test
+  void constructorAccessCreatesInstancesThroughPrivateConstructors() {
+    for (ProxyEngine proxyEngine : ProxyEngine.values()) {
+      SomeClassFactory someClassFactory =
+          ObjectUnderTestBuilder.using(PrivatelyConstructedClass.class)
+              .proxiedWith(proxyEngine)
+              .boundEagerly()
+              .conformingTo(SomeClassFactory.class)
+              .build();
+
+      Object firstInstance = someClassFactory.newInstance("first");
+      PrivatelyConstructedClass secondInstance = someClassFactory.newTypedInstance("second", 2);
+
+      assertThat(firstInstance).isInstanceOf(PrivatelyConstructedClass.class);
+      assertThat(((PrivatelyConstructedClass) firstInstance).value).isEqualTo("first");
+      assertThat(secondInstance.value).isEqualTo("secondsecond");
+      assertThat(someClassFactory.newInstance("first")).isNotSameAs(firstInstance);
+    }
+  }
+
+  @Test
+  void missingConstructorIsReportedWhenBoundEagerly() {
+    assertThatThrownBy(
+            () ->
+                ObjectUnderTestBuilder.using(PrivatelyConstructedClass.class)
+                    .boundEagerly()
+                    .conformingTo(MismatchedFactory.class))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Object newInstance(Integer) has no matching constructor")
+        .hasMessageContaining("SomeClass newSomeClass(String) has no matching constructor")
+        .hasMessageContaining("cannot return the " + PrivatelyConstructedClass.class.getName());
+  }
+
+  @Test
+  void mismatchedConstructorIsReportedWhenCalled() throws Exception {
+    MismatchedFactory mismatchedFactory =
+        ObjectUnderTestBuilder.using(PrivatelyConstructedClass.class)
+            .conformingTo(MismatchedFactory.class)
+            .build();
+
+    assertThatThrownBy(() -> mismatchedFactory.newSomeClass("value"))
+        .hasRootCauseInstanceOf(NoSuchMethodException.class)
+        .hasRootCauseMessage(
+            "%s cannot return the %s it constructs",
+            MismatchedFactory.class.getMethod("newSomeClass", String.class),
+            PrivatelyConstructedClass.class.getName());
+  }
+
+  private interface SomeClassFactory {
+    @ConstructorAccess
+    Object newInstance(String value);
+
+    @ConstructorAccess
+    PrivatelyConstructedClass newTypedInstance(String value, int repetitions);
+  }
+
+  private interface MismatchedFactory {
+    @ConstructorAccess
+    Object newInstance(Integer value);
+
+    @ConstructorAccess
+    SomeClass newSomeClass(String value);
+  }
+
+  private static class PrivatelyConstructedClass {
+
+    private final String value;
+
+    private PrivatelyConstructedClass(String value) {
+      this.value = value;
+    }
+
+    private PrivatelyConstructedClass(String value, int repetitions) {
+      this(value.repeat(repetitions));
+    }
+  }
+
+  private interface WideningInterface {
+    String repeat(int count);
+  }
+
+  private interface InstanceMethodExposingInterface extends MethodExposingInterface {}
+
+  private interface MismatchedInterface {
+    void missingMethod();
+
+    void otherMissingMethod(String value);
+  }
+
   private interface MethodExposingInterface {
     String privateMethodToInvoke();
 
@@ -84,5 +249,13 @@ class ObjectUnderTestBuilderTest {
     private String privateMethodToInvoke() {
       return "invokedPrivateMethod";
     }
+
+    private String repeat(long count) {
+      StringBuilder repeatedValue = new StringBuilder();
+      for (long i = 0; i < count; i++) {
+        repeatedValue.append(value);
+      }
+      return repeatedValue.toString();
+    }
   }
 }
@@ -0,0 +1,139 @@
+package dev.bradhandy.testing.reflection.events;
+
+import dev.bradhandy.testing.reflection.ObjectUnderTestBuilder;
+import dev.bradhandy.testing.reflection.TestProxy;
+import dev.bradhandy.testing.reflection.runner.InvokeMethodWithParametersStatement;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.runners.model.FrameworkMethod;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FlightRecorderEventsTest {
+
+  @TempDir Path recordingDirectory;
+
+  @Test
+  void proxyLifecycleIsRecorded() throws Exception {
+    List<RecordedEvent> recordedEvents;
+    try (Recording recording = new Recording()) {
+      recording.enable(ProxyDefinitionEvent.class).withoutThreshold();
+      recording.enable(ProxyCreationEvent.class).withoutThreshold();
+      recording.enable(MethodResolutionEvent.class).withoutThreshold();
+      recording.enable(MethodInvocationEvent.class).withoutThreshold();
+      recording.start();
+
+      RecordedInterface proxy =
+          ObjectUnderTestBuilder.using(new RecordedClass())
+              .conformingTo(RecordedInterface.class)
+              .build();
+      proxy.recordedMethod();
+
+      recording.stop();
+      Path recordingFile = recordingDirectory.resolve("events.jfr");
+      recording.dump(recordingFile);
+      recordedEvents =
+          RecordingFile.readAllEvents(recordingFile).stream()
+              .filter(event -> event.getEventType().getName().startsWith("dev.bradhandy"))
+              .collect(Collectors.toList());
+    }
+
+    assertThat(recordedEvents)
+        .extracting(event -> event.getEventType().getName())
+        .contains(
+            "dev.bradhandy.testing.reflection.ProxyDefinition",
+            "dev.bradhandy.testing.reflection.ProxyCreation",
+            "dev.bradhandy.testing.reflection.MethodResolution",
+            "dev.bradhandy.testing.reflection.MethodInvocation");
+
+    RecordedEvent invocationEvent =
+        recordedEvents.stream()
+            .filter(event -> event.getEventType().getName().endsWith("MethodInvocation"))
+            .findFirst()
+            .orElseThrow(AssertionError::new);
+    assertThat(invocationEvent.getString("methodName")).isEqualTo("recordedMethod");
+    assertThat(invocationEvent.getClass("targetClass").getName())
+        .isEqualTo(RecordedClass.class.getName());
+  }
+
+  @Test
+  void failedFieldResolutionIsRecorded() throws Exception {
+    InvokeMethodWithParametersStatement statement =
+        new InvokeMethodWithParametersStatement(
+            new FrameworkMethod(
+                RecordedTestCase.class.getDeclaredMethod("recordedTest", RecordedInterface.class)),
+            new RecordedTestCase());
+
+    List<RecordedEvent> recordedEvents;
+    try (Recording recording = new Recording()) {
+      recording.enable(FieldResolutionEvent.class).withoutThreshold();
+      recording.start();
+
+      assertThatThrownBy(statement::evaluate).isInstanceOf(NullPointerException.class);
+
+      recording.stop();
+      Path recordingFile = recordingDirectory.resolve("resolution.jfr");
+      recording.dump(recordingFile);
+      recordedEvents =
+          RecordingFile.readAllEvents(recordingFile).stream()
+              .filter(event -> event.getEventType().getName().endsWith("FieldResolution"))
+              .collect(Collectors.toList());
+    }
+
+    assertThat(recordedEvents)
+        .singleElement()
+        .satisfies(event -> assertThat(event.getString("fieldName")).isEqualTo("holder.target"));
+  }
+
+  @Test
+  void invocationEventIsOnlyRecordedWhileEnabled() {
+    assertThat(MethodInvocationEvent.isRecorded()).isFalse();
+
+    try (Recording recording = new Recording()) {
+      recording.enable(MethodInvocationEvent.class).withoutThreshold();
+      recording.start();
+      assertThat(MethodInvocationEvent.isRecorded()).isTrue();
+    }
+    assertThat(MethodInvocationEvent.isRecorded()).isFalse();
+  }
+
+  @Test
+  void eventsAreNotCommittedWithoutRecording() {
+    MethodInvocationEvent invocationEvent = new MethodInvocationEvent();
+    invocationEvent.begin();
+    invocationEvent.complete(new RecordedClass(), RecordedInterface.class.getMethods()[0]);
+
+    assertThat(invocationEvent.isEnabled()).isFalse();
+  }
+
+  interface RecordedInterface {
+    String recordedMethod();
+  }
+
+  static class RecordedClass {
+
+    private String recordedMethod() {
+      return "recorded";
+    }
+  }
+
+  static class RecordedHolder {
+
+    private RecordedClass target = new RecordedClass();
+  }
+
+  static class RecordedTestCase {
+
+    private RecordedHolder holder;
+
+    public void recordedTest(@TestProxy("holder.target") RecordedInterface proxy) {}
+  }
+}
@@ -0,0 +1,275 @@
+package dev.bradhandy.testing.reflection.extension;
+
+import dev.bradhandy.testing.reflection.TestProxy;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.ExtensionConfigurationException;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+import org.junit.platform.launcher.listeners.SummaryGeneratingListener;
+import org.junit.platform.launcher.listeners.TestExecutionSummary;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+
+class ObjectUnderTestProxyInjectorTest {
+
+  private static final List<Object> INJECTED_PROXIES = new CopyOnWriteArrayList<>();
+  private static final List<Object> TEST_INSTANCES = new CopyOnWriteArrayList<>();
+  private static final List<Boolean> RETAINED_INSTANCES = new CopyOnWriteArrayList<>();
+
+  @Test
+  void proxiesAreInjectedIntoEachTestInstance() {
+    TestExecutionSummary summary = execute(PerMethodTest.class);
+
+    assertThat(summary.getTestsSucceededCount()).isEqualTo(2);
+    assertThat(summary.getTestsFailedCount()).isZero();
+  }
+
+  @Test
+  void proxiesAreInjectedOncePerClassInstance() {
+    INJECTED_PROXIES.clear();
+    TestExecutionSummary summary = execute(PerClassTest.class);
+
+    assertThat(summary.getTestsSucceededCount()).isEqualTo(3);
+    assertThat(INJECTED_PROXIES).hasSize(3);
+    assertThat(INJECTED_PROXIES)
+        .allSatisfy(proxy -> assertThat(proxy).isSameAs(INJECTED_PROXIES.get(0)));
+  }
+
+  @Test
+  void perMethodInstancesAreReleasedAfterTheirTest() {
+    TEST_INSTANCES.clear();
+    RETAINED_INSTANCES.clear();
+    TestExecutionSummary summary = execute(RepeatedPerMethodTest.class);
+
+    assertThat(summary.getTestsSucceededCount()).isEqualTo(3);
+    assertThat(TEST_INSTANCES).hasSize(3);
+    assertThat(RETAINED_INSTANCES).containsExactly(false, false, false);
+  }
+
+  @Test
+  void perClassInstanceIsKeptUntilTheClassFinishes() {
+    TEST_INSTANCES.clear();
+    RETAINED_INSTANCES.clear();
+    TestExecutionSummary summary = execute(RepeatedPerClassTest.class);
+
+    assertThat(summary.getTestsSucceededCount()).isEqualTo(3);
+    assertThat(RETAINED_INSTANCES).containsExactly(true);
+  }
+
+  @Test
+  void proxiesOfReassignedObjectsAreReplaced() {
+    TestExecutionSummary summary = execute(ReassignedObjectTest.class);
+
+    assertThat(summary.getTestsSucceededCount()).isEqualTo(2);
+    assertThat(summary.getTestsFailedCount()).isZero();
+  }
+
+  @Test
+  void nonInterfaceFieldIsRejected() {
+    TestExecutionSummary summary = execute(NonInterfaceFieldTest.class);
+
+    assertThat(summary.getTestsSucceededCount()).isZero();
+    assertThat(summary.getFailures())
+        .singleElement()
+        .satisfies(
+            failure ->
+                assertThat(failure.getException())
+                    .isInstanceOf(ExtensionConfigurationException.class)
+                    .hasMessage("@TestProxy field objectUnderTest must be an interface."));
+  }
+
+  @Test
+  void missingObjectUnderTestIsRejected() {
+    TestExecutionSummary summary = execute(MissingObjectUnderTestTest.class);
+
+    assertThat(summary.getFailures())
+        .singleElement()
+        .satisfies(
+            failure ->
+                assertThat(failure.getException())
+                    .isInstanceOf(ExtensionConfigurationException.class)
+                    .hasMessage("Unable to resolve field missing on MissingObjectUnderTestTest."));
+  }
+
+  private static TestExecutionSummary execute(Class<?> testClass) {
+    SummaryGeneratingListener summaryListener = new SummaryGeneratingListener();
+    LauncherFactory.create()
+        .execute(
+            LauncherDiscoveryRequestBuilder.request().selectors(selectClass(testClass)).build(),
+            summaryListener);
+    return summaryListener.getSummary();
+  }
+
+  interface CounterMethods {
+    int increment();
+  }
+
+  static class Counter {
+
+    private int count;
+
+    private int increment() {
+      return ++count;
+    }
+  }
+
+  @ExtendWith(ObjectUnderTestProxyInjector.class)
+  static class PerMethodTest {
+
+    private Counter counter = new Counter();
+
+    @TestProxy("counter")
+    private CounterMethods counterMethods;
+
+    @Test
+    void incrementsOnce() {
+      assertThat(counterMethods.increment()).isEqualTo(1);
+    }
+
+    @Test
+    void incrementsFromZero() {
+      assertThat(counterMethods.increment()).isEqualTo(1);
+      assertThat(counter.count).isEqualTo(1);
+    }
+  }
+
+  @ExtendWith(ObjectUnderTestProxyInjector.class)
+  @TestInstance(TestInstance.Lifecycle.PER_CLASS)
+  static class PerClassTest {
+
+    private final Counter counter = new Counter();
+
+    @TestProxy("counter")
+    private CounterMethods counterMethods;
+
+    @Test
+    void first() {
+      record();
+    }
+
+    @Test
+    void second() {
+      record();
+    }
+
+    @Test
+    void third() {
+      record();
+    }
+
+    private void record() {
+      INJECTED_PROXIES.add(counterMethods);
+      counterMethods.increment();
+    }
+  }
+
+  @ExtendWith(ObjectUnderTestProxyInjector.class)
+  @TestInstance(TestInstance.Lifecycle.PER_CLASS)
+  static class ReassignedObjectTest {
+
+    private Counter counter;
+
+    @TestProxy("counter")
+    private CounterMethods counterMethods;
+
+    @BeforeEach
+    void createCounter() {
+      counter = new Counter();
+    }
+
+    @Test
+    void first() {
+      assertThat(counterMethods.increment()).isEqualTo(1);
+      assertThat(counter.count).isEqualTo(1);
+    }
+
+    @Test
+    void second() {
+      assertThat(counterMethods.increment()).isEqualTo(1);
+      assertThat(counter.count).isEqualTo(1);
+    }
+  }
+
+  /** Records whether the injector still holds each recorded test instance once the class ends. */
+  static class RetainedInstanceRecorder implements AfterAllCallback {
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+      for (Object testInstance : TEST_INSTANCES) {
+        RETAINED_INSTANCES.add(
+            context
+                    .getStore(ExtensionContext.Namespace.create(ObjectUnderTestProxyInjector.class))
+                    .get(new ObjectUnderTestProxyInjector.InstanceKey(testInstance))
+                != null);
+      }
+    }
+  }
+
+  @ExtendWith({ObjectUnderTestProxyInjector.class, RetainedInstanceRecorder.class})
+  static class RepeatedPerMethodTest {
+
+    private Counter counter = new Counter();
+
+    @TestProxy("counter")
+    private CounterMethods counterMethods;
+
+    @RepeatedTest(3)
+    void increments() {
+      TEST_INSTANCES.add(this);
+      assertThat(counterMethods.increment()).isEqualTo(1);
+    }
+  }
+
+  @ExtendWith({ObjectUnderTestProxyInjector.class, RetainedInstanceRecorder.class})
+  @TestInstance(TestInstance.Lifecycle.PER_CLASS)
+  static class RepeatedPerClassTest {
+
+    private final Counter counter = new Counter();
+
+    @TestProxy("counter")
+    private CounterMethods counterMethods;
+
+    @BeforeAll
+    void recordInstance() {
+      TEST_INSTANCES.add(this);
+    }
+
+    @RepeatedTest(3)
+    void increments() {
+      counterMethods.increment();
+    }
+  }
+
+  @ExtendWith(ObjectUnderTestProxyInjector.class)
+  static class NonInterfaceFieldTest {
+
+    private Counter counter = new Counter();
+
+    @TestProxy("counter")
+    private Counter objectUnderTest;
+
+    @Test
+    void neverRuns() {}
+  }
+
+  @ExtendWith(ObjectUnderTestProxyInjector.class)
+  static class MissingObjectUnderTestTest {
+
+    @TestProxy("missing")
+    private CounterMethods counterMethods;
+
+    @Test
+    void neverRuns() {}
+  }
+}
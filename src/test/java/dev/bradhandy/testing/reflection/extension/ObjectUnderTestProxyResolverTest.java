@@ -146,6 +146,34 @@ class ObjectUnderTestProxyResolverTest {
         "The method should have been invoked.");
   }
 
+  @Test
+  void repeatedResolutionUsesCurrentFieldValue(
+      @Mock ParameterContext parameterContext, @Mock ExtensionContext extensionContext)
+      throws NoSuchMethodException {
+    TestClassWithValidSetup testInstance = new TestClassWithValidSetup();
+    setUpMockParameterContextForTestAndMethod(
+        parameterContext,
+        testInstance,
+        "parameterMissingAnnotation",
+        SomeTestMethodInterface.class);
+    setUpMockExecutionContextForTestClassAndMethod(
+        extensionContext,
+        testInstance,
+        "parameterMissingAnnotation",
+        SomeTestMethodInterface.class);
+
+    objectUnderTestProxyResolver.resolveParameter(parameterContext, extensionContext);
+    testInstance.objectUnderTest = new SomeClass();
+    SomeTestMethodInterface someTestMethodInterface =
+        (SomeTestMethodInterface)
+            objectUnderTestProxyResolver.resolveParameter(parameterContext, extensionContext);
+    someTestMethodInterface.inaccessibleMethodToInvoke();
+
+    assertTrue(
+        testInstance.getObjectUnderTest().wasMethodInvoked(),
+        "The method should have been invoked on the current field value.");
+  }
+
   private void setUpMockParameterContextForTestAndMethod(
       ParameterContext parameterContext,
       Object testInstance,
@@ -0,0 +1,112 @@
+package dev.bradhandy.testing.reflection.extension;
+
+import dev.bradhandy.testing.reflection.BenchmarkProxy;
+import dev.bradhandy.testing.reflection.Blackhole;
+import dev.bradhandy.testing.reflection.TestProxy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.platform.engine.reporting.ReportEntry;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+import org.junit.platform.launcher.listeners.SummaryGeneratingListener;
+import org.junit.platform.launcher.listeners.TestExecutionSummary;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+
+class ProxyBenchmarkExtensionTest {
+
+  private static final AtomicInteger OPERATIONS = new AtomicInteger();
+
+  @Test
+  void bodyIsRunForEveryWarmUpAndMeasuredOperation() {
+    OPERATIONS.set(0);
+    List<ReportEntry> reportEntries = new CopyOnWriteArrayList<>();
+    TestExecutionSummary summary = execute(MeasuredTest.class, reportEntries);
+
+    assertThat(summary.getTestsSucceededCount()).isEqualTo(1);
+    assertThat(OPERATIONS.get()).isEqualTo((2 + 3) * 100);
+    assertThat(reportEntries)
+        .singleElement()
+        .satisfies(
+            reportEntry ->
+                assertThat(reportEntry.getKeyValuePairs())
+                    .containsKeys("benchmark.opsPerSecond", "benchmark.nanosPerOperation"));
+  }
+
+  @Test
+  void exceededBudgetsFailTheTest() {
+    TestExecutionSummary summary = execute(OverBudgetTest.class, new CopyOnWriteArrayList<>());
+
+    assertThat(summary.getTestsFailedCount()).isEqualTo(2);
+    assertThat(summary.getFailures())
+        .extracting(failure -> failure.getException().getMessage())
+        .anySatisfy(message -> assertThat(message).matches("sleeps took .* ns per operation,.*"))
+        .anySatisfy(message -> assertThat(message).matches("allocates allocated .* bytes.*"));
+  }
+
+  private static TestExecutionSummary execute(
+      Class<?> testClass, List<ReportEntry> reportEntries) {
+    SummaryGeneratingListener summaryListener = new SummaryGeneratingListener();
+    TestExecutionListener reportListener =
+        new TestExecutionListener() {
+          @Override
+          public void reportingEntryPublished(TestIdentifier testIdentifier, ReportEntry entry) {
+            reportEntries.add(entry);
+          }
+        };
+    LauncherFactory.create()
+        .execute(
+            LauncherDiscoveryRequestBuilder.request().selectors(selectClass(testClass)).build(),
+            summaryListener,
+            reportListener);
+    return summaryListener.getSummary();
+  }
+
+  interface CounterMethods {
+    int increment();
+  }
+
+  static class Counter {
+
+    private int count;
+
+    private int increment() {
+      OPERATIONS.incrementAndGet();
+      return ++count;
+    }
+  }
+
+  @ExtendWith(ObjectUnderTestProxyResolver.class)
+  static class MeasuredTest {
+
+    private Counter counter = new Counter();
+
+    @Test
+    @BenchmarkProxy(warmup = 2, iterations = 3, operations = 100)
+    void increments(@TestProxy("counter") CounterMethods counterMethods, Blackhole blackhole) {
+      blackhole.consume(counterMethods.increment());
+    }
+  }
+
+  static class OverBudgetTest {
+
+    @Test
+    @BenchmarkProxy(warmup = 0, iterations = 1, operations = 2, maxNanosPerOperation = 1)
+    void sleeps() throws InterruptedException {
+      Thread.sleep(1);
+    }
+
+    @Test
+    @BenchmarkProxy(warmup = 0, iterations = 1, operations = 10, maxBytesPerOperation = 0)
+    void allocates(Blackhole blackhole) {
+      blackhole.consume(new byte[1024]);
+    }
+  }
+}
@@ -0,0 +1,123 @@
+package dev.bradhandy.testing.reflection.extension;
+
+import dev.bradhandy.testing.reflection.ObjectUnderTestBuilder;
+import dev.bradhandy.testing.reflection.TestProxy;
+import dev.bradhandy.testing.reflection.util.MethodDispatchTable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.platform.launcher.TestPlan;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+
+class ProxyWarmUpListenerTest {
+
+  @Test
+  void discoveredTestProxiesArePreparedBeforeExecution() {
+    MethodDispatchTable dispatchTable = MethodDispatchTable.forClass(WarmedObject.class);
+    assertThat(dispatchTable.missCount()).isZero();
+
+    new ProxyWarmUpListener().testPlanExecutionStarted(discover(WarmedTest.class));
+    assertThat(dispatchTable.missCount()).isEqualTo(1);
+
+    WarmedInterface proxy =
+        ObjectUnderTestBuilder.using(new WarmedObject())
+            .conformingTo(WarmedInterface.class)
+            .build();
+    assertThat(proxy.greeting()).isEqualTo("warmed");
+    assertThat(dispatchTable.missCount()).isEqualTo(1);
+    assertThat(dispatchTable.hitCount()).isEqualTo(1);
+  }
+
+  @Test
+  void nothingIsPreparedUnlessEnabled() {
+    MethodDispatchTable dispatchTable = MethodDispatchTable.forClass(DisabledObject.class);
+
+    new ProxyWarmUpListener().testPlanExecutionStarted(discover(DisabledTest.class, false));
+
+    assertThat(dispatchTable.missCount()).isZero();
+  }
+
+  @Test
+  void classesWithoutTestProxiesAreNotPrepared() {
+    assertThat(ProxyWarmUpListener.usesTestProxy(WarmedTest.class)).isTrue();
+    assertThat(ProxyWarmUpListener.usesTestProxy(ProxyWarmUpListenerTest.class)).isFalse();
+  }
+
+  @Test
+  void unresolvableTestProxiesAreSkipped() {
+    MethodDispatchTable dispatchTable = MethodDispatchTable.forClass(UnwarmedObject.class);
+
+    new ProxyWarmUpListener().testPlanExecutionStarted(discover(MismatchedTest.class));
+
+    // the missing field is left for the resolver to report, and the missing method is still
+    // reported when it is called.
+    assertThat(dispatchTable.missCount()).isEqualTo(1);
+  }
+
+  private static TestPlan discover(Class<?> testClass) {
+    return discover(testClass, true);
+  }
+
+  private static TestPlan discover(Class<?> testClass, boolean warmUpEnabled) {
+    return LauncherFactory.create()
+        .discover(
+            LauncherDiscoveryRequestBuilder.request()
+                .selectors(selectClass(testClass))
+                .configurationParameter(
+                    ProxyWarmUpListener.ENABLED_PARAMETER, String.valueOf(warmUpEnabled))
+                .build());
+  }
+
+  interface WarmedInterface {
+    String greeting();
+  }
+
+  static class WarmedObject {
+
+    private String greeting() {
+      return "warmed";
+    }
+  }
+
+  static class UnwarmedObject {}
+
+  static class DisabledObject {
+
+    private String greeting() {
+      return "disabled";
+    }
+  }
+
+  @ExtendWith(ObjectUnderTestProxyResolver.class)
+  static class WarmedTest {
+
+    private WarmedObject warmedObject = new WarmedObject();
+
+    @Test
+    void greets(@TestProxy("warmedObject") WarmedInterface objectUnderTest) {}
+  }
+
+  @ExtendWith(ObjectUnderTestProxyResolver.class)
+  static class DisabledTest {
+
+    private DisabledObject disabledObject = new DisabledObject();
+
+    @Test
+    void greets(@TestProxy("disabledObject") WarmedInterface objectUnderTest) {}
+  }
+
+  @ExtendWith(ObjectUnderTestProxyResolver.class)
+  static class MismatchedTest {
+
+    private UnwarmedObject unwarmedObject = new UnwarmedObject();
+
+    @Test
+    void missingField(@TestProxy("missingObject") WarmedInterface objectUnderTest) {}
+
+    @Test
+    void missingMethod(@TestProxy("unwarmedObject") WarmedInterface objectUnderTest) {}
+  }
+}
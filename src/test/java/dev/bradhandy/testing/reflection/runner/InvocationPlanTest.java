@@ -0,0 +1,82 @@
+package dev.bradhandy.testing.reflection.runner;
+
+import dev.bradhandy.testing.reflection.TestProxy;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.assertThrows;
+
+public class InvocationPlanTest {
+
+  @Test
+  public void planCreatesProxyForCurrentObjectUnderTest() throws Exception {
+    TestCase testCase = new TestCase();
+    Method testMethod = TestCase.class.getDeclaredMethod("proxiedMethod", UpdateResult.class);
+    InvocationPlan invocationPlan = InvocationPlan.compile(testMethod, TestCase.class);
+
+    testCase.classUnderTest = new ClassUnderTest();
+    Object[] arguments = invocationPlan.arguments(testCase);
+    ((UpdateResult) arguments[0]).updateResult("newResult");
+
+    assertThat(arguments).hasSize(1);
+    assertThat(testCase.classUnderTest.getResult()).isEqualTo("newResult");
+  }
+
+  @Test
+  public void planWithoutParametersCreatesNoArguments() throws Exception {
+    Method testMethod = TestCase.class.getDeclaredMethod("methodWithoutParameters");
+    InvocationPlan invocationPlan = InvocationPlan.compile(testMethod, TestCase.class);
+
+    assertThat(invocationPlan.arguments(new TestCase())).isEmpty();
+  }
+
+  @Test
+  public void parameterWithoutAnnotationFailsCompilation() throws Exception {
+    Method testMethod =
+        TestCase.class.getDeclaredMethod("methodWithoutAnnotation", UpdateResult.class);
+
+    assertThrows(
+        IllegalArgumentException.class, () -> InvocationPlan.compile(testMethod, TestCase.class));
+  }
+
+  @Test
+  public void missingFieldFailsCompilation() throws Exception {
+    Method testMethod =
+        TestCase.class.getDeclaredMethod("methodWithMissingField", UpdateResult.class);
+
+    assertThrows(
+        NoSuchFieldException.class, () -> InvocationPlan.compile(testMethod, TestCase.class));
+  }
+
+  private interface UpdateResult {
+    void updateResult(String value);
+  }
+
+  static class TestCase {
+
+    private ClassUnderTest classUnderTest = new ClassUnderTest();
+
+    public void proxiedMethod(@TestProxy("classUnderTest") UpdateResult updateResult) {}
+
+    public void methodWithoutParameters() {}
+
+    public void methodWithoutAnnotation(UpdateResult updateResult) {}
+
+    public void methodWithMissingField(@TestProxy("missingField") UpdateResult updateResult) {}
+  }
+
+  static class ClassUnderTest {
+
+    private String result;
+
+    public String getResult() {
+      return result;
+    }
+
+    private void updateResult(String value) {
+      result = value;
+    }
+  }
+}
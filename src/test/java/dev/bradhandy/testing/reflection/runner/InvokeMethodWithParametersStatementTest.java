@@ -33,6 +33,18 @@ public class InvokeMethodWithParametersStatementTest {
     statement.evaluate();
   }
 
+  @Test
+  public void evaluationWithCompiledPlanCompletesSuccessfully() throws Throwable {
+    TestCase testCase = new TestCase();
+    Method testMethod = testCase.getClass().getDeclaredMethod("assertResult", UpdateResult.class);
+    InvokeMethodWithParametersStatement statement =
+        new InvokeMethodWithParametersStatement(
+            new FrameworkMethod(testMethod),
+            testCase,
+            InvocationPlan.compile(testMethod, TestCase.class));
+    statement.evaluate();
+  }
+
   private interface UpdateResult {
     void updateResult(String value);
   }
@@ -2,12 +2,20 @@ package dev.bradhandy.testing.reflection.runner;
 
 import dev.bradhandy.testing.reflection.TestProxy;
 import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Request;
+import org.junit.runner.Result;
+import org.junit.runners.model.InitializationError;
 import org.junit.runners.model.InvalidTestClassError;
 
 import java.util.EventListener;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 
 public class ObjectUnderTestProxyRunnerTest {
 
@@ -57,6 +65,46 @@ public class ObjectUnderTestProxyRunnerTest {
             "Test Class TestCaseWithNonExistentTestTarget has no field with name nonExistent.");
   }
 
+  @Test
+  public void dottedPathReachesNestedObjectUnderTest() throws Exception {
+    Result result =
+        new JUnitCore()
+            .run(Request.runner(new ObjectUnderTestProxyRunner(TestCaseWithDottedPath.class)));
+
+    assertTrue("Every test method should pass.", result.wasSuccessful());
+    assertEquals(1, result.getRunCount());
+  }
+
+  @Test
+  public void methodsWithNonExistentNestedObjectUnderTestFailValidation() {
+    InvalidTestClassError validationError =
+        assertThrows(
+            InvalidTestClassError.class,
+            () -> new ObjectUnderTestProxyRunner(TestCaseWithNonExistentNestedTarget.class));
+
+    assertThat(validationError.getCauses())
+        .hasSize(1)
+        .element(0)
+        .hasFieldOrPropertyWithValue(
+            "message",
+            "Test Class TestCaseWithNonExistentNestedTarget has no field with name fixture.missing.");
+  }
+
+  @Test
+  public void methodsWithInaccessibleObjectUnderTestFailValidation() {
+    InvalidTestClassError validationError =
+        assertThrows(
+            InvalidTestClassError.class,
+            () -> new ObjectUnderTestProxyRunner(TestCaseWithInaccessibleTarget.class));
+
+    assertThat(validationError.getCauses())
+        .hasSize(1)
+        .element(0)
+        .hasFieldOrPropertyWithValue(
+            "message",
+            "Test Class TestCaseWithInaccessibleTarget cannot access field with name name.value.");
+  }
+
   @Test
   public void methodsWithNonInterfaceParametersFailValidation() {
     InvalidTestClassError validationError =
@@ -77,6 +125,44 @@ public class ObjectUnderTestProxyRunnerTest {
     new ObjectUnderTestProxyRunner(TestCaseWithNoArguments.class);
   }
 
+  @Test
+  public void parallelExecutionRunsMethodsConcurrently() throws Exception {
+    Result result =
+        new JUnitCore()
+            .run(Request.runner(new ObjectUnderTestProxyRunner(ParallelTestCase.class)));
+
+    assertTrue("Every test method should pass.", result.wasSuccessful());
+    assertEquals(3, result.getRunCount());
+  }
+
+  @Test
+  public void parallelismDefaultsToSerialExecution() throws Exception {
+    assertEquals(1, ObjectUnderTestProxyRunner.parallelismFor(TestCaseWithNoArguments.class));
+  }
+
+  @Test
+  public void systemPropertyEnablesParallelExecution() throws Exception {
+    System.setProperty(ObjectUnderTestProxyRunner.PARALLELISM_PROPERTY, "3");
+    try {
+      assertEquals(3, ObjectUnderTestProxyRunner.parallelismFor(TestCaseWithNoArguments.class));
+      assertEquals(2, ObjectUnderTestProxyRunner.parallelismFor(ParallelTestCase.class));
+    } finally {
+      System.clearProperty(ObjectUnderTestProxyRunner.PARALLELISM_PROPERTY);
+    }
+  }
+
+  @Test
+  public void invalidSystemPropertyFailsInitialization() {
+    System.setProperty(ObjectUnderTestProxyRunner.PARALLELISM_PROPERTY, "several");
+    try {
+      assertThrows(
+          InitializationError.class,
+          () -> new ObjectUnderTestProxyRunner(TestCaseWithNoArguments.class));
+    } finally {
+      System.clearProperty(ObjectUnderTestProxyRunner.PARALLELISM_PROPERTY);
+    }
+  }
+
   public static class TestCaseWithMultipleParameters {
 
     private Object objectUnderTest;
@@ -101,6 +187,49 @@ public class ObjectUnderTestProxyRunnerTest {
         @TestProxy("nonExistent") EventListener eventListener) {}
   }
 
+  public static class TestCaseWithDottedPath {
+
+    private final Fixture fixture = new Fixture();
+
+    @Test
+    public void testMethodWithDottedPath(@TestProxy("fixture.greeter") GreeterMethods greeter) {
+      assertEquals("hello", greeter.greet());
+    }
+  }
+
+  public static class TestCaseWithNonExistentNestedTarget {
+
+    private final Fixture fixture = new Fixture();
+
+    @Test
+    public void testMethodWithNonExistentNestedTarget(
+        @TestProxy("fixture.missing") GreeterMethods greeter) {}
+  }
+
+  public static class TestCaseWithInaccessibleTarget {
+
+    private final String name = "name";
+
+    @Test
+    public void testMethodWithInaccessibleTarget(@TestProxy("name.value") GreeterMethods greeter) {}
+  }
+
+  public interface GreeterMethods {
+    String greet();
+  }
+
+  static class Fixture {
+
+    private final Greeter greeter = new Greeter();
+  }
+
+  static class Greeter {
+
+    private String greet() {
+      return "hello";
+    }
+  }
+
   public static class TestCaseWithNonInterfaceArgument {
 
     private Object objectUnderTest;
@@ -114,4 +243,41 @@ public class ObjectUnderTestProxyRunnerTest {
     @Test
     public void testMethodWithoutArguments() {}
   }
+
+  @ParallelExecution(parallelism = 2)
+  public static class ParallelTestCase {
+
+    // each proxied method waits for the other, so the test case only passes if both run at the
+    // same time.
+    private static final CountDownLatch CONCURRENT_METHODS = new CountDownLatch(2);
+
+    private final ClassUnderTest objectUnderTest = new ClassUnderTest();
+
+    @Test
+    public void firstConcurrentMethod(@TestProxy("objectUnderTest") AwaitOther proxy)
+        throws InterruptedException {
+      assertTrue("The other method should run concurrently.", proxy.awaitOther());
+    }
+
+    @Test
+    public void secondConcurrentMethod(@TestProxy("objectUnderTest") AwaitOther proxy)
+        throws InterruptedException {
+      assertTrue("The other method should run concurrently.", proxy.awaitOther());
+    }
+
+    @Test
+    public void methodWithoutArguments() {}
+
+    private static class ClassUnderTest {
+
+      private boolean awaitOther() throws InterruptedException {
+        CONCURRENT_METHODS.countDown();
+        return CONCURRENT_METHODS.await(10, TimeUnit.SECONDS);
+      }
+    }
+  }
+
+  public interface AwaitOther {
+    boolean awaitOther() throws InterruptedException;
+  }
 }
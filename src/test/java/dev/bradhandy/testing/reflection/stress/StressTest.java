@@ -0,0 +1,178 @@
+package dev.bradhandy.testing.reflection.stress;
+
+import dev.bradhandy.testing.reflection.InstanceScope;
+import dev.bradhandy.testing.reflection.ObjectUnderTestBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StressTest {
+
+  @Test
+  void everyThreadCallsTheSharedProxy() throws Exception {
+    Counter counter = new Counter();
+    CounterMethods proxy =
+        ObjectUnderTestBuilder.using(counter).conformingTo(CounterMethods.class).build();
+
+    StressResult<Integer> result =
+        Stress.of(proxy).threads(8).iterations(1_000).run(CounterMethods::increment);
+
+    result.assertNoFailures();
+    assertThat(result.callCount()).isEqualTo(8_000);
+    assertThat(result.results()).hasSize(8_000).doesNotHaveDuplicates();
+    assertThat(counter.count).isEqualTo(8_000);
+    assertThat(result.throughput()).isPositive();
+    assertThat(result.latencyPercentile(50)).isLessThanOrEqualTo(result.latencyPercentile(99));
+    assertThat(result.latencyPercentile(99)).isLessThanOrEqualTo(result.maxLatency());
+    assertThat(result.toString())
+        .startsWith("8 threads x 1000 iterations: 8000 calls, 0 failed, 0 threads without a proxy");
+  }
+
+  @Test
+  void exceptionsAreCollectedWithoutStoppingTheRun() throws Exception {
+    CounterMethods proxy =
+        ObjectUnderTestBuilder.using(new Counter()).conformingTo(CounterMethods.class).build();
+
+    StressResult<Integer> result =
+        Stress.of(proxy).threads(4).iterations(250).run(CounterMethods::incrementOddOnly);
+
+    assertThat(result.callCount()).isEqualTo(1_000);
+    assertThat(result.results()).hasSize(500).allSatisfy(value -> assertThat(value % 2).isOne());
+    assertThat(result.failures())
+        .hasSize(500)
+        .allSatisfy(failure -> assertThat(failure).isInstanceOf(IllegalStateException.class));
+    assertThatThrownBy(result::assertNoFailures)
+        .isInstanceOf(AssertionError.class)
+        .hasMessage("500 of 1000 calls failed.")
+        .hasCauseInstanceOf(IllegalStateException.class)
+        .satisfies(failure -> assertThat(failure.getSuppressed()).hasSize(499));
+  }
+
+  @Test
+  void builderScopeDecidesWhetherThreadsShareTheObjectUnderTest() throws Exception {
+    ObjectUnderTestBuilder counterBuilder =
+        ObjectUnderTestBuilder.suppliedBy(Counter::new).conformingTo(CounterMethods.class);
+
+    StressResult<Integer> ownCounters =
+        Stress.<CounterMethods>of(counterBuilder)
+            .threads(4)
+            .iterations(10)
+            .run(CounterMethods::increment);
+    StressResult<Integer> sharedCounter =
+        Stress.<CounterMethods>of(counterBuilder.scopedTo(InstanceScope.singleton()))
+            .threads(4)
+            .iterations(10)
+            .run(CounterMethods::increment);
+
+    assertThat(ownCounters.results().stream().distinct().sorted().collect(Collectors.toList()))
+        .isEqualTo(IntStream.rangeClosed(1, 10).boxed().collect(Collectors.toList()));
+    assertThat(sharedCounter.results())
+        .containsExactlyInAnyOrderElementsOf(
+            IntStream.rangeClosed(1, 40).boxed().collect(Collectors.toList()));
+  }
+
+  @Test
+  void actionsWithoutResultsAreCounted() throws Exception {
+    Counter counter = new Counter();
+    CounterMethods proxy =
+        ObjectUnderTestBuilder.using(counter).conformingTo(CounterMethods.class).build();
+
+    StressResult<Void> result =
+        Stress.of(proxy).threads(3).iterations(5).execute(CounterMethods::add);
+
+    assertThat(result.callCount()).isEqualTo(15);
+    assertThat(counter.count).isEqualTo(15);
+  }
+
+  @Test
+  void failureToAcquireProxyIsCollected() throws Exception {
+    ObjectUnderTestBuilder failingBuilder =
+        ObjectUnderTestBuilder.suppliedBy(
+            () -> {
+              throw new IllegalStateException("unavailable");
+            });
+
+    StressResult<Object> result = Stress.of(failingBuilder).threads(2).run(target -> target);
+
+    assertThat(result.callCount()).isZero();
+    assertThat(result.failures()).hasSize(2);
+    assertThat(result.acquisitionFailures()).isEqualTo(result.failures());
+    assertThat(result.latencyPercentile(99)).isZero();
+    assertThatThrownBy(result::assertNoFailures)
+        .isInstanceOf(AssertionError.class)
+        .hasMessage("2 of 2 threads could not acquire their proxy.");
+  }
+
+  @Test
+  void acquisitionFailuresAreCountedApartFromCalls() throws Exception {
+    AtomicInteger acquisitions = new AtomicInteger();
+    ObjectUnderTestBuilder partlyFailingBuilder =
+        ObjectUnderTestBuilder.suppliedBy(
+                () -> {
+                  if (acquisitions.incrementAndGet() == 1) {
+                    throw new IllegalStateException("unavailable");
+                  }
+                  return new Counter();
+                })
+            .conformingTo(CounterMethods.class);
+
+    StressResult<Integer> result =
+        Stress.<CounterMethods>of(partlyFailingBuilder)
+            .threads(3)
+            .iterations(2)
+            .run(CounterMethods::incrementOddOnly);
+
+    assertThat(result.callCount()).isEqualTo(4);
+    assertThat(result.acquisitionFailures()).hasSize(1);
+    assertThat(result.failures()).hasSize(3);
+    assertThatThrownBy(result::assertNoFailures)
+        .hasMessage("2 of 4 calls failed, and 1 of 3 threads could not acquire their proxy.")
+        .hasCauseInstanceOf(IllegalStateException.class)
+        .hasRootCauseMessage("unavailable");
+  }
+
+  @Test
+  void invalidConfigurationIsRejected() {
+    Stress<Object> stress = Stress.of(new Object());
+
+    assertThatThrownBy(() -> stress.threads(0))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("At least one thread is required, not 0.");
+    assertThatThrownBy(() -> stress.iterations(-1))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("At least one iteration is required, not -1.");
+  }
+
+  interface CounterMethods {
+    int increment();
+
+    int incrementOddOnly();
+
+    void add();
+  }
+
+  static class Counter {
+
+    private int count;
+
+    private synchronized int increment() {
+      return ++count;
+    }
+
+    private synchronized int incrementOddOnly() {
+      if (++count % 2 == 0) {
+        throw new IllegalStateException("even");
+      }
+      return count;
+    }
+
+    private synchronized void add() {
+      count++;
+    }
+  }
+}
@@ -0,0 +1,178 @@
+package dev.bradhandy.testing.reflection.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AsyncMethodInvokerTest {
+
+  @Test
+  void targetRunsOnConfiguredExecutor() throws Exception {
+    ExecutorService executor =
+        Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "async-target"));
+    try {
+      AsyncCounter proxy =
+          (AsyncCounter)
+              ProxyFactory.forInterfaces(AsyncCounter.class)
+                  .runAsyncOn(executor)
+                  .newProxy(new Counter());
+
+      assertThat(proxy.threadName().get(5, TimeUnit.SECONDS)).isEqualTo("async-target");
+      assertThat(proxy.increment().get(5, TimeUnit.SECONDS)).isEqualTo(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void rejectedCallCompletesFutureExceptionally() {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    executor.shutdown();
+    Counter counter = new Counter();
+    AsyncCounter proxy =
+        (AsyncCounter)
+            ProxyFactory.forInterfaces(AsyncCounter.class).runAsyncOn(executor).newProxy(counter);
+
+    CompletableFuture<Integer> increment = proxy.increment();
+
+    assertThat(increment).isCompletedExceptionally();
+    assertThatThrownBy(() -> increment.get(5, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseExactlyInstanceOf(RejectedExecutionException.class);
+    assertThat(counter.count).isZero();
+  }
+
+  @Test
+  void thrownExceptionCompletesFutureExceptionally() {
+    AsyncCounter proxy =
+        (AsyncCounter) ProxyFactory.forInterfaces(AsyncCounter.class).newProxy(new Counter());
+
+    assertThatThrownBy(() -> proxy.fail().get(5, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseExactlyInstanceOf(IllegalStateException.class)
+        .hasRootCauseMessage("failed");
+  }
+
+  @Test
+  void concurrentCallsAllComplete() {
+    Counter counter = new Counter();
+    AsyncCounter proxy =
+        (AsyncCounter) ProxyFactory.forInterfaces(AsyncCounter.class).newProxy(counter);
+
+    List<CompletableFuture<Integer>> increments = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      increments.add(proxy.increment());
+    }
+    CompletableFuture.allOf(increments.toArray(new CompletableFuture<?>[0])).join();
+
+    assertThat(counter.count).isEqualTo(1000);
+    assertThat(increments).extracting(CompletableFuture::join).doesNotHaveDuplicates();
+  }
+
+  @Test
+  void everyEngineAndMatchingRunsAsynchronously() throws Exception {
+    for (ProxyEngine proxyEngine : ProxyEngine.values()) {
+      for (MethodMatching methodMatching : MethodMatching.values()) {
+        AsyncCounter proxy =
+            (AsyncCounter)
+                ProxyFactory.forInterfaces(AsyncCounter.class)
+                    .proxiedWith(proxyEngine)
+                    .matchedBy(methodMatching)
+                    .boundEagerly()
+                    .newProxy(new Counter());
+
+        assertThat(proxy.reset().get(5, TimeUnit.SECONDS)).isNull();
+        assertThat(proxy.increment().get(5, TimeUnit.SECONDS)).isEqualTo(1);
+      }
+    }
+  }
+
+  @Test
+  void widenedArgumentsAreConvertedBeforeRunning() throws Exception {
+    AsyncAdder proxy =
+        (AsyncAdder)
+            ProxyFactory.forInterfaces(AsyncAdder.class)
+                .matchedBy(MethodMatching.CONVERTIBLE)
+                .newProxy(new Counter());
+
+    assertThat(proxy.add(3).get(5, TimeUnit.SECONDS)).isEqualTo(3L);
+  }
+
+  @Test
+  void returnedFutureIsNotWrapped() throws Exception {
+    AsyncCounter proxy =
+        (AsyncCounter) ProxyFactory.forInterfaces(AsyncCounter.class).newProxy(new Counter());
+
+    assertThat(proxy.completed().get(5, TimeUnit.SECONDS)).isEqualTo("completed");
+  }
+
+  @Test
+  void mismatchedFutureTypeIsNotBound() {
+    ProxyFactory proxyFactory =
+        ProxyFactory.forInterfaces(MismatchedCounter.class).boundEagerly();
+
+    assertThatThrownBy(() -> proxyFactory.newProxy(new Counter()))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("CompletableFuture increment() cannot return int");
+  }
+
+  interface AsyncCounter {
+    CompletableFuture<Integer> increment();
+
+    Future<Void> reset();
+
+    CompletableFuture<String> threadName();
+
+    CompletableFuture<Object> fail();
+
+    CompletableFuture<String> completed();
+  }
+
+  interface AsyncAdder {
+    CompletableFuture<Long> add(int amount);
+  }
+
+  interface MismatchedCounter {
+    CompletableFuture<String> increment();
+  }
+
+  static class Counter {
+
+    private int count;
+
+    private synchronized int increment() {
+      return ++count;
+    }
+
+    private synchronized void reset() {
+      count = 0;
+    }
+
+    private long add(long amount) {
+      return count += amount;
+    }
+
+    private String threadName() {
+      return Thread.currentThread().getName();
+    }
+
+    private Object fail() {
+      throw new IllegalStateException("failed");
+    }
+
+    private CompletableFuture<String> completed() {
+      return CompletableFuture.completedFuture("completed");
+    }
+  }
+}
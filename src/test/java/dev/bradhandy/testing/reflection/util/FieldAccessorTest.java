@@ -0,0 +1,110 @@
+package dev.bradhandy.testing.reflection.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FieldAccessorTest {
+
+  @Test
+  void sameAccessorReturnedForSameField() throws Exception {
+    assertThat(FieldAccessor.forField(SomeTestClass.class, "objectUnderTest"))
+        .isSameAs(FieldAccessor.forField(SomeTestClass.class, "objectUnderTest"));
+  }
+
+  @Test
+  void privateFieldIsRead() throws Exception {
+    SomeTestClass testInstance = new SomeTestClass();
+    FieldAccessor fieldAccessor = FieldAccessor.forField(SomeTestClass.class, "objectUnderTest");
+
+    assertThat(fieldAccessor.get(testInstance)).isEqualTo("objectUnderTest");
+    assertThat(fieldAccessor.getField().getName()).isEqualTo("objectUnderTest");
+  }
+
+  @Test
+  void fieldValueIsReadOnEveryCall() throws Exception {
+    SomeTestClass testInstance = new SomeTestClass();
+    FieldAccessor fieldAccessor = FieldAccessor.forField(SomeTestClass.class, "objectUnderTest");
+
+    testInstance.objectUnderTest = "replacedObjectUnderTest";
+
+    assertThat(fieldAccessor.get(testInstance)).isEqualTo("replacedObjectUnderTest");
+  }
+
+  @Test
+  void primitiveAndStaticFieldsAreRead() throws Exception {
+    assertThat(FieldAccessor.forField(SomeTestClass.class, "counter").get(new SomeTestClass()))
+        .isEqualTo(42);
+    assertThat(FieldAccessor.forField(SomeTestClass.class, "SHARED_OBJECT_UNDER_TEST").get(null))
+        .isEqualTo("sharedObjectUnderTest");
+  }
+
+  @Test
+  void missingFieldThrowsNoSuchFieldException() {
+    assertThatThrownBy(() -> FieldAccessor.forField(SomeTestClass.class, "missingField"))
+        .isInstanceOf(NoSuchFieldException.class);
+  }
+
+  @Test
+  void dottedPathIsFollowed() throws Exception {
+    SomeTestClass testInstance = new SomeTestClass();
+    FieldAccessor fieldAccessor = FieldAccessor.forField(SomeTestClass.class, "fixture.inner.name");
+
+    assertThat(fieldAccessor.get(testInstance)).isEqualTo("nested");
+    assertThat(fieldAccessor.getPath()).isEqualTo("fixture.inner.name");
+    assertThat(fieldAccessor.getField().getName()).isEqualTo("name");
+    assertThat(FieldAccessor.forField(SomeTestClass.class, "fixture.inner.name"))
+        .isSameAs(fieldAccessor);
+  }
+
+  @Test
+  void dottedPathFollowsInheritedFields() throws Exception {
+    FieldAccessor fieldAccessor = FieldAccessor.forField(SomeTestClass.class, "fixture.label");
+
+    assertThat(fieldAccessor.get(new SomeTestClass())).isEqualTo("inherited");
+  }
+
+  @Test
+  void nullLinkInDottedPathIsReported() throws Exception {
+    SomeTestClass testInstance = new SomeTestClass();
+    testInstance.fixture.inner = null;
+    FieldAccessor fieldAccessor = FieldAccessor.forField(SomeTestClass.class, "fixture.inner.name");
+
+    assertThatThrownBy(() -> fieldAccessor.get(testInstance))
+        .isInstanceOf(NullPointerException.class)
+        .hasMessage("Unable to read fixture.inner.name, because fixture.inner is null.");
+  }
+
+  @Test
+  void missingNestedFieldThrowsNoSuchFieldException() {
+    assertThatThrownBy(() -> FieldAccessor.forField(SomeTestClass.class, "fixture.missing"))
+        .isInstanceOf(NoSuchFieldException.class)
+        .hasMessageContaining("missing of fixture.missing");
+  }
+
+  static class BaseFixture {
+
+    private String label = "inherited";
+  }
+
+  static class Fixture extends BaseFixture {
+
+    private Inner inner = new Inner();
+  }
+
+  static class Inner {
+
+    private String name = "nested";
+  }
+
+  static class SomeTestClass {
+
+    private Fixture fixture = new Fixture();
+
+    private static final String SHARED_OBJECT_UNDER_TEST = "sharedObjectUnderTest";
+
+    private String objectUnderTest = "objectUnderTest";
+    private int counter = 42;
+  }
+}
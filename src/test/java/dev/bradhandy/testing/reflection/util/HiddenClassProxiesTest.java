@@ -0,0 +1,262 @@
+package dev.bradhandy.testing.reflection.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class HiddenClassProxiesTest {
+
+  private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  @BeforeEach
+  void requireHiddenClasses() {
+    assumeTrue(HiddenClassProxies.isSupported(), "Hidden classes require Java 15 or later.");
+  }
+
+  @Test
+  void hiddenProxyCallsPrivateInstanceMethods() {
+    SomeClass someInstance = new SomeClass();
+    MethodExposingInterface proxy =
+        (MethodExposingInterface)
+            ProxyFactory.forInterfaces(MethodExposingInterface.class)
+                .proxiedWith(ProxyEngine.HIDDEN_CLASS)
+                .newProxy(someInstance);
+
+    assertThat(Proxy.isProxyClass(proxy.getClass())).isFalse();
+    assertThat(proxy.getClass().getName())
+        .startsWith(SomeClass.class.getName() + "$$ObjectUnderTestProxy/");
+
+    proxy.setValue("someValue");
+    assertThat(someInstance.value).isEqualTo("someValue");
+    assertThat(proxy.concatenate("prefix", 4, 2L)).isEqualTo("prefix42");
+    assertThat(proxy.scale(2.5d, 4L)).isEqualTo(10.0d);
+    assertThat(proxy.negate(true)).isFalse();
+  }
+
+  @Test
+  void hiddenProxyCallsPrivateStaticMethods() {
+    StaticMethodExposingInterface proxy =
+        (StaticMethodExposingInterface)
+            ProxyFactory.forInterfaces(StaticMethodExposingInterface.class)
+                .proxiedWith(ProxyEngine.HIDDEN_CLASS)
+                .newProxy(SomeClass.class);
+
+    assertThat(Proxy.isProxyClass(proxy.getClass())).isFalse();
+    assertThat(proxy.staticMethod(20, 22)).isEqualTo(42);
+  }
+
+  @Test
+  void hiddenProxyClassReusedForSameTargetClass() {
+    ProxyFactory proxyFactory =
+        ProxyFactory.forInterfaces(MethodExposingInterface.class)
+            .proxiedWith(ProxyEngine.HIDDEN_CLASS);
+
+    Object firstProxy = proxyFactory.newProxy(new SomeClass());
+    Object secondProxy = proxyFactory.newProxy(new SomeClass());
+
+    assertThat(firstProxy).isNotSameAs(secondProxy);
+    assertThat(firstProxy.getClass()).isSameAs(secondProxy.getClass());
+  }
+
+  @Test
+  void exceptionsPropagateWithoutWrapping() {
+    MethodExposingInterface proxy =
+        (MethodExposingInterface)
+            ProxyFactory.forInterfaces(MethodExposingInterface.class)
+                .proxiedWith(ProxyEngine.HIDDEN_CLASS)
+                .newProxy(new SomeClass());
+
+    assertThatThrownBy(proxy::methodThrowingException)
+        .isExactlyInstanceOf(UnsupportedOperationException.class);
+  }
+
+  @Test
+  void unresolvedMethodFallsBackToReflectionProxy() {
+    Object proxy =
+        ProxyFactory.forInterfaces(MethodExposingInterface.class, UnresolvedMethodInterface.class)
+            .proxiedWith(ProxyEngine.HIDDEN_CLASS)
+            .newProxy(new SomeClass());
+
+    assertThat(Proxy.isProxyClass(proxy.getClass())).isTrue();
+    assertThat(((MethodExposingInterface) proxy).concatenate("prefix", 1, 2L))
+        .isEqualTo("prefix12");
+  }
+
+  @Test
+  void inheritedPrivateMethodFallsBackToReflectionProxy() {
+    InheritedMethodInterface proxy =
+        (InheritedMethodInterface)
+            ProxyFactory.forInterfaces(InheritedMethodInterface.class)
+                .proxiedWith(ProxyEngine.HIDDEN_CLASS)
+                .newProxy(new SomeSubclass());
+
+    assertThat(Proxy.isProxyClass(proxy.getClass())).isTrue();
+    assertThat(proxy.negate(false)).isTrue();
+  }
+
+  @Test
+  void widenedPrimitivesAreConvertedWithoutReflectionProxy() {
+    NumericInterface proxy =
+        (NumericInterface)
+            ProxyFactory.forInterfaces(NumericInterface.class)
+                .proxiedWith(ProxyEngine.HIDDEN_CLASS)
+                .matchedBy(MethodMatching.CONVERTIBLE)
+                .newProxy(new NumericClass());
+
+    assertThat(Proxy.isProxyClass(proxy.getClass())).isFalse();
+    assertThat(proxy.half(5)).isEqualTo(2.5d);
+    assertThat(proxy.combine((byte) 1, 2, 3L, 4.0f)).isEqualTo(10.0d);
+    assertThat(proxy.twice(21)).isEqualTo(42L);
+  }
+
+  @Test
+  void boxedArgumentsFallBackToReflectionProxy() {
+    Object proxy =
+        ProxyFactory.forInterfaces(BoxingInterface.class)
+            .proxiedWith(ProxyEngine.HIDDEN_CLASS)
+            .matchedBy(MethodMatching.CONVERTIBLE)
+            .newProxy(new NumericClass());
+
+    assertThat(Proxy.isProxyClass(proxy.getClass())).isTrue();
+    assertThat(((BoxingInterface) proxy).half(Double.valueOf(3.0d))).isEqualTo(1.5d);
+  }
+
+  @Test
+  void primitiveCallsDoNotAllocate() {
+    assumeTrue(THREAD_MX_BEAN.isThreadAllocatedMemorySupported());
+    THREAD_MX_BEAN.setThreadAllocatedMemoryEnabled(true);
+    NumericInterface proxy =
+        (NumericInterface)
+            ProxyFactory.forInterfaces(NumericInterface.class)
+                .proxiedWith(ProxyEngine.HIDDEN_CLASS)
+                .matchedBy(MethodMatching.CONVERTIBLE)
+                .newProxy(new NumericClass());
+
+    // the first rounds give the JIT a chance to compile the loop before it is measured.
+    double total = callRepeatedly(proxy, 50_000);
+    long threadId = Thread.currentThread().getId();
+    long allocatedBefore = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId);
+    total += callRepeatedly(proxy, 100_000);
+    long allocatedBytes = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+    // boxing the arguments of 500,000 calls would allocate megabytes. the bound only leaves room
+    // for the measurement itself.
+    assertThat(total).isPositive();
+    assertThat(allocatedBytes).isLessThan(4096L);
+  }
+
+  private static double callRepeatedly(NumericInterface proxy, int iterations) {
+    double total = 0.0d;
+    for (int i = 0; i < iterations; i++) {
+      total += proxy.count();
+      total += proxy.twice(i);
+      total += proxy.half(i);
+      total += proxy.exactHalf(i);
+      total += proxy.combine((byte) 1, i, 3L, 4.0f);
+    }
+    return total;
+  }
+
+  interface MethodExposingInterface {
+
+    void setValue(String value);
+
+    String concatenate(String prefix, int first, long second);
+
+    double scale(double value, long factor);
+
+    boolean negate(boolean value);
+
+    void methodThrowingException();
+  }
+
+  interface StaticMethodExposingInterface {
+    int staticMethod(int first, int second);
+  }
+
+  interface UnresolvedMethodInterface {
+    void unresolvedMethod();
+  }
+
+  interface InheritedMethodInterface {
+    boolean negate(boolean value);
+  }
+
+  interface NumericInterface {
+
+    long count();
+
+    long twice(int value);
+
+    double half(int value);
+
+    double exactHalf(double value);
+
+    double combine(byte first, int second, long third, float fourth);
+  }
+
+  interface BoxingInterface {
+    double half(Double value);
+  }
+
+  static class NumericClass {
+
+    private long count() {
+      return 7L;
+    }
+
+    private int twice(long value) {
+      return (int) (value * 2);
+    }
+
+    private double half(double value) {
+      return value / 2;
+    }
+
+    private double exactHalf(double value) {
+      return value / 2;
+    }
+
+    private double combine(int first, long second, float third, double fourth) {
+      return first + second + third + fourth;
+    }
+  }
+
+  static class SomeClass {
+
+    private String value;
+
+    private static int staticMethod(int first, int second) {
+      return first + second;
+    }
+
+    private void setValue(String value) {
+      this.value = value;
+    }
+
+    private String concatenate(String prefix, int first, long second) {
+      return prefix + first + second;
+    }
+
+    private double scale(double value, long factor) {
+      return value * factor;
+    }
+
+    private boolean negate(boolean value) {
+      return !value;
+    }
+
+    private void methodThrowingException() {
+      throw new UnsupportedOperationException("Ima exception.");
+    }
+  }
+
+  static class SomeSubclass extends SomeClass {}
+}
@@ -0,0 +1,142 @@
+package dev.bradhandy.testing.reflection.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MethodBindingsTest {
+
+  @Test
+  void everyInterfaceMethodIsBound() throws Throwable {
+    MethodBindings methodBindings =
+        MethodBindings.bind(
+            SomeClass.class, false, InvocationStrategy.METHOD_HANDLE, MethodExposingInterface.class);
+
+    assertThat(methodBindings.size()).isEqualTo(2);
+    assertThat(methodBindings.getTargetClass()).isSameAs(SomeClass.class);
+
+    Method interfaceMethod = MethodExposingInterface.class.getMethod("concatenate", String.class);
+    int bindingIndex = methodBindings.indexOf(interfaceMethod);
+    assertThat(methodBindings.interfaceMethod(bindingIndex)).isEqualTo(interfaceMethod);
+    assertThat(methodBindings.invoker(bindingIndex).invoke(new SomeClass(), new Object[] {"a"}))
+        .isEqualTo("aa");
+  }
+
+  @Test
+  void proxyClassMethodsAreMappedToTheirInvokersByIdentity() throws Throwable {
+    MethodBindings methodBindings =
+        MethodBindings.bind(
+            SomeClass.class, false, InvocationStrategy.METHOD_HANDLE, MethodExposingInterface.class);
+    List<Method> passedMethods = new ArrayList<>();
+    MethodExposingInterface recordingProxy =
+        (MethodExposingInterface)
+            Proxy.newProxyInstance(
+                MethodExposingInterface.class.getClassLoader(),
+                new Class<?>[] {MethodExposingInterface.class},
+                (proxy, method, args) -> {
+                  passedMethods.add(method);
+                  return null;
+                });
+    recordingProxy.concatenate("a");
+
+    Constructor<?> proxyConstructor =
+        recordingProxy.getClass().getConstructor(InvocationHandler.class);
+    Map<Method, MethodInvoker> invokers = methodBindings.invokersFor(proxyConstructor);
+
+    Method concatenate = MethodExposingInterface.class.getMethod("concatenate", String.class);
+    assertThat(invokers).hasSize(2);
+    assertThat(invokers.get(passedMethods.get(0)))
+        .isSameAs(methodBindings.invoker(methodBindings.indexOf(concatenate)));
+    assertThat(methodBindings.invokersFor(proxyConstructor)).isSameAs(invokers);
+  }
+
+  @Test
+  void bindingsAreCachedPerTargetClass() {
+    MethodBindings methodBindings =
+        MethodBindings.bind(
+            SomeClass.class, false, InvocationStrategy.METHOD_HANDLE, MethodExposingInterface.class);
+
+    assertThat(
+            MethodBindings.bind(
+                SomeClass.class,
+                false,
+                InvocationStrategy.METHOD_HANDLE,
+                MethodExposingInterface.class))
+        .isSameAs(methodBindings);
+  }
+
+  @Test
+  void unboundMethodHasNoIndex() throws NoSuchMethodException {
+    MethodBindings methodBindings =
+        MethodBindings.bind(
+            SomeClass.class, false, InvocationStrategy.METHOD_HANDLE, MethodExposingInterface.class);
+
+    assertThat(methodBindings.indexOf(Object.class.getMethod("toString"))).isEqualTo(-1);
+  }
+
+  @Test
+  void everyMismatchIsReported() {
+    assertThatThrownBy(
+            () ->
+                MethodBindings.bind(
+                    SomeClass.class,
+                    false,
+                    InvocationStrategy.METHOD_HANDLE,
+                    MismatchedInterface.class))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("void missingMethod() has no matching method")
+        .hasMessageContaining("void otherMissingMethod(int) has no matching method")
+        .hasMessageContaining("int concatenate(String) cannot return java.lang.String");
+  }
+
+  @Test
+  void staticTargetRequiresStaticMethods() {
+    assertThatThrownBy(
+            () ->
+                MethodBindings.bind(
+                    SomeClass.class,
+                    true,
+                    InvocationStrategy.METHOD_HANDLE,
+                    MethodExposingInterface.class))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("String concatenate(String) matches a method which is not static");
+  }
+
+  interface MethodExposingInterface {
+
+    String concatenate(String value);
+
+    int count();
+  }
+
+  interface MismatchedInterface {
+
+    void missingMethod();
+
+    void otherMissingMethod(int value);
+
+    int concatenate(String value);
+  }
+
+  static class SomeClass {
+
+    private int counter;
+
+    private String concatenate(String value) {
+      return value + value;
+    }
+
+    private int count() {
+      return ++counter;
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package dev.bradhandy.testing.reflection.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MethodDispatchTableTest {
+
+  @Test
+  void sameTableReturnedForSameClass() {
+    assertThat(MethodDispatchTable.forClass(SomeClass.class))
+        .isSameAs(MethodDispatchTable.forClass(SomeClass.class));
+  }
+
+  @Test
+  void resolvedMethodIsAccessibleAndCached() throws Exception {
+    MethodDispatchTable dispatchTable = MethodDispatchTable.forClass(CachedClass.class);
+    Method interfaceMethod = MethodExposingInterface.class.getMethod("privateMethod", String.class);
+
+    Method firstResolution = dispatchTable.resolve(interfaceMethod);
+    Method secondResolution = dispatchTable.resolve(interfaceMethod);
+
+    assertThat(firstResolution).isSameAs(secondResolution);
+    assertThat(firstResolution.canAccess(new CachedClass())).isTrue();
+    assertThat(dispatchTable.missCount()).isEqualTo(1);
+    assertThat(dispatchTable.hitCount()).isEqualTo(1);
+  }
+
+  @Test
+  void totalsIncludeEveryTable() throws Exception {
+    long totalHits = MethodDispatchTable.totalHitCount();
+    long totalMisses = MethodDispatchTable.totalMissCount();
+
+    MethodDispatchTable dispatchTable = MethodDispatchTable.forClass(TotaledClass.class);
+    Method interfaceMethod = MethodExposingInterface.class.getMethod("privateMethod", String.class);
+    dispatchTable.resolve(interfaceMethod);
+    dispatchTable.resolve(interfaceMethod);
+
+    assertThat(MethodDispatchTable.totalHitCount()).isGreaterThanOrEqualTo(totalHits + 1);
+    assertThat(MethodDispatchTable.totalMissCount()).isGreaterThanOrEqualTo(totalMisses + 1);
+  }
+
+  @Test
+  void invokerCachedPerStrategy() throws Throwable {
+    MethodDispatchTable dispatchTable = MethodDispatchTable.forClass(SomeClass.class);
+    Method interfaceMethod = MethodExposingInterface.class.getMethod("privateMethod", String.class);
+
+    MethodInvoker methodHandleInvoker =
+        dispatchTable.resolveInvoker(interfaceMethod, InvocationStrategy.METHOD_HANDLE);
+    MethodInvoker reflectionInvoker =
+        dispatchTable.resolveInvoker(interfaceMethod, InvocationStrategy.REFLECTION);
+
+    assertThat(dispatchTable.resolveInvoker(interfaceMethod, InvocationStrategy.METHOD_HANDLE))
+        .isSameAs(methodHandleInvoker);
+    assertThat(reflectionInvoker).isNotSameAs(methodHandleInvoker);
+    assertThat(methodHandleInvoker.invoke(new SomeClass(), new Object[] {"value"}))
+        .isEqualTo("value");
+    assertThat(reflectionInvoker.invoke(new SomeClass(), new Object[] {"value"}))
+        .isEqualTo("value");
+  }
+
+  @Test
+  void missingMethodThrowsNoSuchMethodException() throws Exception {
+    MethodDispatchTable dispatchTable = MethodDispatchTable.forClass(SomeClass.class);
+    Method interfaceMethod = MethodExposingInterface.class.getMethod("missingMethod");
+
+    assertThatThrownBy(() -> dispatchTable.resolve(interfaceMethod))
+        .isInstanceOf(NoSuchMethodException.class);
+  }
+
+  @Test
+  void privateMethodOfSuperclassIsResolved() throws Throwable {
+    MethodDispatchTable dispatchTable = MethodDispatchTable.forClass(SomeSubclass.class);
+    Method interfaceMethod = MethodExposingInterface.class.getMethod("privateMethod", String.class);
+
+    MethodInvoker methodInvoker =
+        dispatchTable.resolveInvoker(interfaceMethod, InvocationStrategy.METHOD_HANDLE);
+
+    assertThat(dispatchTable.resolve(interfaceMethod).getDeclaringClass())
+        .isEqualTo(SomeClass.class);
+    assertThat(methodInvoker.invoke(new SomeSubclass(), new Object[] {"value"}))
+        .isEqualTo("value");
+  }
+
+  interface MethodExposingInterface {
+
+    String privateMethod(String value);
+
+    void missingMethod();
+  }
+
+  static class SomeClass {
+
+    private String privateMethod(String value) {
+      return value;
+    }
+  }
+
+  static class SomeSubclass extends SomeClass {}
+
+  static class CachedClass {
+
+    private String privateMethod(String value) {
+      return value;
+    }
+  }
+
+  static class TotaledClass {
+
+    private String privateMethod(String value) {
+      return value;
+    }
+  }
+}
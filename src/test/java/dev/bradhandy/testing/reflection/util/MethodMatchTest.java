@@ -0,0 +1,175 @@
+package dev.bradhandy.testing.reflection.util;
+
+import dev.bradhandy.testing.reflection.FieldAccess;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MethodMatchTest {
+
+  @Test
+  void privateFieldsAreReadAndWritten() {
+    for (FieldAccessingInterface proxy : proxiesFor(new SomeClass())) {
+      proxy.setName("newName");
+
+      assertThat(proxy.name()).isEqualTo("newName");
+      assertThat(proxy.describe()).isEqualTo("newName");
+    }
+  }
+
+  @Test
+  void accessModesReadAndWriteFields() {
+    for (FieldAccessingInterface proxy : proxiesFor(new SomeClass())) {
+      proxy.setCountVolatile(1);
+      assertThat(proxy.countVolatile()).isEqualTo(1);
+
+      proxy.setCountRelease(2);
+      assertThat(proxy.countAcquire()).isEqualTo(2);
+
+      proxy.setCountOpaque(3);
+      assertThat(proxy.countOpaque()).isEqualTo(3L);
+    }
+  }
+
+  @Test
+  void superclassFieldIsAccessed() {
+    FieldAccessingInterface proxy =
+        (FieldAccessingInterface)
+            ProxyFactory.forInterfaces(FieldAccessingInterface.class).newProxy(new SomeClass());
+
+    assertThat(proxy.inheritedValue()).isEqualTo("inherited");
+  }
+
+  @Test
+  void staticFieldIsAccessedThroughClass() {
+    StaticFieldInterface proxy =
+        (StaticFieldInterface)
+            ProxyFactory.forInterfaces(StaticFieldInterface.class).newProxy(SomeClass.class);
+
+    proxy.setInstanceCount(42);
+    assertThat(proxy.instanceCount()).isEqualTo(42);
+  }
+
+  @Test
+  void fieldAccessFallsBackFromHiddenClassProxies() {
+    Object proxy =
+        ProxyFactory.forInterfaces(FieldAccessingInterface.class)
+            .proxiedWith(ProxyEngine.HIDDEN_CLASS)
+            .newProxy(new SomeClass());
+
+    assertThat(Proxy.isProxyClass(proxy.getClass())).isTrue();
+  }
+
+  @Test
+  void invalidFieldAccessIsReportedWhenBinding() {
+    assertThatThrownBy(
+            () ->
+                MethodBindings.bind(
+                    SomeClass.class,
+                    false,
+                    InvocationStrategy.METHOD_HANDLE,
+                    InvalidInterface.class))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("String missing() has no matching field")
+        .hasMessageContaining("void finalName(String) is not accessible")
+        .hasMessageContaining("String name(String) has no matching field");
+  }
+
+  @Test
+  void instanceFieldIsReportedForStaticTarget() {
+    assertThatThrownBy(
+            () ->
+                MethodBindings.bind(
+                    SomeClass.class,
+                    true,
+                    InvocationStrategy.METHOD_HANDLE,
+                    FieldAccessingInterface.class))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("String name() matches a field which is not static");
+  }
+
+  private static FieldAccessingInterface[] proxiesFor(SomeClass someInstance) {
+    return new FieldAccessingInterface[] {
+      (FieldAccessingInterface)
+          ProxyFactory.forInterfaces(FieldAccessingInterface.class).newProxy(someInstance),
+      (FieldAccessingInterface)
+          ProxyFactory.forInterfaces(FieldAccessingInterface.class)
+              .boundEagerly()
+              .newProxy(someInstance)
+    };
+  }
+
+  interface FieldAccessingInterface {
+
+    @FieldAccess("name")
+    String name();
+
+    @FieldAccess("name")
+    void setName(String name);
+
+    @FieldAccess(value = "count", mode = FieldAccess.Mode.VOLATILE)
+    int countVolatile();
+
+    @FieldAccess(value = "count", mode = FieldAccess.Mode.VOLATILE)
+    void setCountVolatile(int count);
+
+    @FieldAccess(value = "count", mode = FieldAccess.Mode.ACQUIRE_RELEASE)
+    int countAcquire();
+
+    @FieldAccess(value = "count", mode = FieldAccess.Mode.ACQUIRE_RELEASE)
+    void setCountRelease(int count);
+
+    @FieldAccess(value = "count", mode = FieldAccess.Mode.OPAQUE)
+    long countOpaque();
+
+    @FieldAccess(value = "count", mode = FieldAccess.Mode.OPAQUE)
+    void setCountOpaque(int count);
+
+    @FieldAccess("inheritedValue")
+    String inheritedValue();
+
+    String describe();
+  }
+
+  interface StaticFieldInterface {
+
+    @FieldAccess("instanceCount")
+    int instanceCount();
+
+    @FieldAccess("instanceCount")
+    void setInstanceCount(int instanceCount);
+  }
+
+  interface InvalidInterface {
+
+    @FieldAccess("missing")
+    String missing();
+
+    @FieldAccess("finalName")
+    void finalName(String finalName);
+
+    @FieldAccess("name")
+    String name(String argument);
+  }
+
+  static class SomeSuperclass {
+
+    private final String inheritedValue = "inherited";
+  }
+
+  static class SomeClass extends SomeSuperclass {
+
+    private static int instanceCount;
+
+    private final String finalName = "final";
+    private String name = "name";
+    private volatile int count;
+
+    private String describe() {
+      return name;
+    }
+  }
+}
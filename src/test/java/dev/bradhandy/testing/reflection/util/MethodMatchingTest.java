@@ -0,0 +1,230 @@
+package dev.bradhandy.testing.reflection.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MethodMatchingTest {
+
+  @Test
+  void exactMatchingRequiresIdenticalParameterTypes() throws Exception {
+    Method interfaceMethod = ConvertingInterface.class.getMethod("widen", int.class);
+
+    assertThatThrownBy(
+            () -> MethodDispatchTable.forClass(SomeClass.class).resolve(interfaceMethod))
+        .isInstanceOf(NoSuchMethodException.class);
+  }
+
+  @Test
+  void primitiveArgumentIsWidened() throws Throwable {
+    for (InvocationStrategy invocationStrategy : InvocationStrategy.values()) {
+      assertThat(invoke("widen", invocationStrategy, new Class<?>[] {int.class}, 21))
+          .isEqualTo(42L);
+    }
+  }
+
+  @Test
+  void primitiveArgumentIsBoxed() throws Throwable {
+    for (InvocationStrategy invocationStrategy : InvocationStrategy.values()) {
+      assertThat(invoke("box", invocationStrategy, new Class<?>[] {int.class}, 42))
+          .isEqualTo("Integer:42");
+    }
+  }
+
+  @Test
+  void wrapperArgumentIsUnboxedAndWidened() throws Throwable {
+    for (InvocationStrategy invocationStrategy : InvocationStrategy.values()) {
+      assertThat(invoke("unbox", invocationStrategy, new Class<?>[] {Integer.class}, 21))
+          .isEqualTo(42.0d);
+    }
+  }
+
+  @Test
+  void trailingArgumentsAreCollectedForVariableArity() throws Throwable {
+    for (InvocationStrategy invocationStrategy : InvocationStrategy.values()) {
+      assertThat(
+              invoke(
+                  "join",
+                  invocationStrategy,
+                  new Class<?>[] {String.class, String.class, String.class},
+                  "-",
+                  "a",
+                  "b"))
+          .isEqualTo("a-b");
+      assertThat(invoke("join", invocationStrategy, new Class<?>[] {String.class}, "-"))
+          .isEqualTo("");
+    }
+  }
+
+  @Test
+  void wideningIsPreferredOverBoxing() throws Exception {
+    Method targetMethod =
+        MethodDispatchTable.forClass(SomeClass.class)
+            .resolve(
+                ConvertingInterface.class.getMethod("prefer", int.class),
+                MethodMatching.CONVERTIBLE);
+
+    assertThat(targetMethod.getParameterTypes()).containsExactly(long.class);
+  }
+
+  @Test
+  void mostSpecificMethodIsChosen() throws Exception {
+    Method targetMethod =
+        MethodDispatchTable.forClass(SomeClass.class)
+            .resolve(
+                ConvertingInterface.class.getMethod("specific", Integer.class),
+                MethodMatching.CONVERTIBLE);
+
+    assertThat(targetMethod.getParameterTypes()).containsExactly(Number.class);
+  }
+
+  @Test
+  void ambiguousMatchIsRejected() throws Exception {
+    Method interfaceMethod = ConvertingInterface.class.getMethod("ambiguous", int.class, int.class);
+
+    assertThatThrownBy(
+            () ->
+                MethodDispatchTable.forClass(SomeClass.class)
+                    .resolve(interfaceMethod, MethodMatching.CONVERTIBLE))
+        .isInstanceOf(MethodMatching.AmbiguousMethodException.class)
+        .hasMessageContaining("ambiguous(long,int)")
+        .hasMessageContaining("ambiguous(int,long)");
+  }
+
+  @Test
+  void staticVariableArityMethodIsAdapted() throws Throwable {
+    Method interfaceMethod = ConvertingInterface.class.getMethod("sum", int.class, int.class);
+    MethodInvoker methodInvoker =
+        MethodDispatchTable.forClass(SomeClass.class)
+            .resolveInvoker(
+                interfaceMethod, InvocationStrategy.METHOD_HANDLE, MethodMatching.CONVERTIBLE);
+
+    assertThat(methodInvoker.invoke(SomeClass.class, new Object[] {20, 22})).isEqualTo(42L);
+  }
+
+  @Test
+  void convertedMatchWithIncompatibleReturnTypeIsRejected() throws Exception {
+    Method interfaceMethod = ConvertingInterface.class.getMethod("describe", int.class);
+
+    for (InvocationStrategy invocationStrategy : InvocationStrategy.values()) {
+      assertThatThrownBy(
+              () ->
+                  MethodDispatchTable.forClass(SomeClass.class)
+                      .resolveInvoker(
+                          interfaceMethod, invocationStrategy, MethodMatching.CONVERTIBLE))
+          .isInstanceOf(NoSuchMethodException.class)
+          .hasMessageContaining("cannot return java.lang.String");
+    }
+  }
+
+  @Test
+  void bindingsReportAmbiguousMethods() {
+    assertThatThrownBy(
+            () ->
+                MethodBindings.bind(
+                    SomeClass.class,
+                    false,
+                    InvocationStrategy.METHOD_HANDLE,
+                    MethodMatching.CONVERTIBLE,
+                    AmbiguousInterface.class))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("int ambiguous(int, int) is ambiguous between");
+  }
+
+  private static Object invoke(
+      String methodName,
+      InvocationStrategy invocationStrategy,
+      Class<?>[] parameterTypes,
+      Object... arguments)
+      throws Throwable {
+    Method interfaceMethod = ConvertingInterface.class.getMethod(methodName, parameterTypes);
+    return MethodDispatchTable.forClass(SomeClass.class)
+        .resolveInvoker(interfaceMethod, invocationStrategy, MethodMatching.CONVERTIBLE)
+        .invoke(new SomeClass(), arguments);
+  }
+
+  interface ConvertingInterface {
+
+    long widen(int value);
+
+    String box(int value);
+
+    double unbox(Integer value);
+
+    String join(String delimiter, String first, String second);
+
+    String join(String delimiter);
+
+    String prefer(int value);
+
+    String specific(Integer value);
+
+    int ambiguous(int first, int second);
+
+    long sum(int first, int second);
+
+    int describe(int value);
+  }
+
+  interface AmbiguousInterface {
+    int ambiguous(int first, int second);
+  }
+
+  static class SomeClass {
+
+    private static long sum(int... values) {
+      long sum = 0;
+      for (int value : values) {
+        sum += value;
+      }
+      return sum;
+    }
+
+    private long widen(long value) {
+      return value * 2;
+    }
+
+    private String box(Object value) {
+      return value.getClass().getSimpleName() + ":" + value;
+    }
+
+    private double unbox(double value) {
+      return value * 2;
+    }
+
+    private String join(String delimiter, String... values) {
+      return String.join(delimiter, values);
+    }
+
+    private String prefer(long value) {
+      return "long";
+    }
+
+    private String prefer(Integer value) {
+      return "Integer";
+    }
+
+    private String specific(Object value) {
+      return "Object";
+    }
+
+    private String describe(long value) {
+      return "long:" + value;
+    }
+
+    private String specific(Number value) {
+      return "Number";
+    }
+
+    private int ambiguous(long first, int second) {
+      return 1;
+    }
+
+    private int ambiguous(int first, long second) {
+      return 2;
+    }
+  }
+}
@@ -0,0 +1,128 @@
+package dev.bradhandy.testing.reflection.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MethodSignatureIndexTest {
+
+  @Test
+  void sameIndexReturnedForSameClass() {
+    assertThat(MethodSignatureIndex.forClass(ConcreteClass.class))
+        .isSameAs(MethodSignatureIndex.forClass(ConcreteClass.class));
+  }
+
+  @Test
+  void constructorsOfConcreteClassesAreFound() {
+    assertThat(MethodSignatureIndex.forClass(ConcreteClass.class).findConstructor(new Class<?>[0]))
+        .isNotNull();
+    assertThat(
+            MethodSignatureIndex.forClass(ConcreteClass.class)
+                .findConstructor(new Class<?>[] {String.class}))
+        .isNull();
+    assertThat(MethodSignatureIndex.forClass(BaseClass.class).findConstructor(new Class<?>[0]))
+        .isNull();
+  }
+
+  @Test
+  void privateMethodOfDistantSuperclassIsFound() throws Exception {
+    Method method =
+        MethodSignatureIndex.forClass(ConcreteClass.class)
+            .find("baseMethod", new Class<?>[] {String.class});
+
+    assertThat(method.getDeclaringClass()).isEqualTo(BaseClass.class);
+    assertThat(method.invoke(new ConcreteClass(), "value")).isEqualTo("base:value");
+  }
+
+  @Test
+  void nearestDeclarationShadowsSuperclassDeclarations() {
+    Method method =
+        MethodSignatureIndex.forClass(ConcreteClass.class)
+            .find("shadowedMethod", new Class<?>[0]);
+
+    assertThat(method.getDeclaringClass()).isEqualTo(IntermediateClass.class);
+  }
+
+  @Test
+  void abstractMethodResolvesToImplementation() {
+    Method method =
+        MethodSignatureIndex.forClass(ConcreteClass.class)
+            .find("abstractMethod", new Class<?>[0]);
+
+    assertThat(method.getDeclaringClass()).isEqualTo(ConcreteClass.class);
+  }
+
+  @Test
+  void interfaceDefaultAndPrivateMethodsAreFound() throws Exception {
+    MethodSignatureIndex signatureIndex = MethodSignatureIndex.forClass(ConcreteClass.class);
+
+    assertThat(signatureIndex.find("defaultMethod", new Class<?>[0]).invoke(new ConcreteClass()))
+        .isEqualTo("default");
+    assertThat(signatureIndex.find("privateInterfaceMethod", new Class<?>[0]).getDeclaringClass())
+        .isEqualTo(SomeInterface.class);
+  }
+
+  @Test
+  void classMethodHidesInterfaceDefaultMethod() {
+    Method method =
+        MethodSignatureIndex.forClass(OverridingClass.class)
+            .find("defaultMethod", new Class<?>[0]);
+
+    assertThat(method.getDeclaringClass()).isEqualTo(OverridingClass.class);
+  }
+
+  @Test
+  void objectMethodsAndMissingMethodsAreNotFound() {
+    MethodSignatureIndex signatureIndex = MethodSignatureIndex.forClass(ConcreteClass.class);
+
+    assertThat(signatureIndex.find("hashCode", new Class<?>[0])).isNull();
+    assertThat(signatureIndex.find("baseMethod", new Class<?>[] {Object.class})).isNull();
+  }
+
+  interface SomeInterface {
+
+    default String defaultMethod() {
+      return privateInterfaceMethod();
+    }
+
+    private String privateInterfaceMethod() {
+      return "default";
+    }
+  }
+
+  abstract static class BaseClass implements SomeInterface {
+
+    private String baseMethod(String value) {
+      return "base:" + value;
+    }
+
+    private String shadowedMethod() {
+      return "base";
+    }
+
+    abstract void abstractMethod();
+  }
+
+  abstract static class IntermediateClass extends BaseClass {
+
+    private String shadowedMethod() {
+      return "intermediate";
+    }
+  }
+
+  static class ConcreteClass extends IntermediateClass {
+
+    @Override
+    void abstractMethod() {}
+  }
+
+  static class OverridingClass implements SomeInterface {
+
+    @Override
+    public String defaultMethod() {
+      return "overridden";
+    }
+  }
+}
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Proxy;
+import java.util.Collections;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -78,6 +79,55 @@ class MethodUnderTestInvocationHandlerTest {
         .isNotOfAnyClassIn(InvocationTargetException.class);
   }
 
+  @Test
+  void reflectionStrategyInvokesPrivateInstanceMethod() {
+    SomeClass someInstance = new SomeClass();
+    MethodExposingInterface objectUnderTest =
+        (MethodExposingInterface)
+            Proxy.newProxyInstance(
+                Thread.currentThread().getContextClassLoader(),
+                new Class[] {MethodExposingInterface.class},
+                new MethodUnderTestInvocationHandler(
+                    someInstance, configuredWith(InvocationStrategy.REFLECTION)));
+
+    objectUnderTest.instanceMethodWithArguments("someValue");
+    assertThat(someInstance.getValue()).isEqualTo("someValue");
+    assertThat(objectUnderTest.instanceMethodWithReturnValue()).isEqualTo("someReturnValue");
+  }
+
+  @Test
+  void reflectionStrategyShouldUnwrapInvocationTargetException() {
+    MethodExposingInterface objectUnderTest =
+        (MethodExposingInterface)
+            Proxy.newProxyInstance(
+                Thread.currentThread().getContextClassLoader(),
+                new Class[] {MethodExposingInterface.class},
+                new MethodUnderTestInvocationHandler(
+                    new SomeClass(), configuredWith(InvocationStrategy.REFLECTION)));
+
+    assertThatThrownBy(objectUnderTest::methodThrowingException)
+        .isOfAnyClassIn(UnsupportedOperationException.class)
+        .isNotOfAnyClassIn(InvocationTargetException.class);
+  }
+
+  @Test
+  void methodHandleStrategyInvokesPrimitiveMethods() {
+    MethodExposingInterface objectUnderTest =
+        (MethodExposingInterface)
+            Proxy.newProxyInstance(
+                Thread.currentThread().getContextClassLoader(),
+                new Class[] {MethodExposingInterface.class},
+                new MethodUnderTestInvocationHandler(
+                    new SomeClass(), configuredWith(InvocationStrategy.METHOD_HANDLE)));
+
+    assertThat(objectUnderTest.primitiveMethod(20, 22L)).isEqualTo(42L);
+  }
+
+  private static HandlerConfiguration configuredWith(InvocationStrategy invocationStrategy) {
+    return new HandlerConfiguration(
+        invocationStrategy, MethodMatching.EXACT, Collections.emptyMap(), null);
+  }
+
   interface MethodExposingInterface {
 
     void instanceMethodWithoutArguments();
@@ -89,6 +139,8 @@ class MethodUnderTestInvocationHandlerTest {
     void privateStaticMethod();
 
     void methodThrowingException();
+
+    long primitiveMethod(int first, long second);
   }
 
   static class SomeClass {
@@ -129,5 +181,9 @@ class MethodUnderTestInvocationHandlerTest {
     private void methodThrowingException() {
       throw new UnsupportedOperationException("Ima exception.");
     }
+
+    private long primitiveMethod(int first, long second) {
+      return first + second;
+    }
   }
 }
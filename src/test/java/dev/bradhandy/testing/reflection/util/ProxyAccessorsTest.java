@@ -0,0 +1,112 @@
+package dev.bradhandy.testing.reflection.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProxyAccessorsTest {
+
+  @Test
+  void registeredAccessorIsFound() {
+    assertThat(ProxyAccessors.find(AccessedClass.class, AccessedInterface.class))
+        .isInstanceOf(AccessedClassAccessor.class);
+    assertThat(ProxyAccessors.find(OtherClass.class, AccessedInterface.class)).isNull();
+    assertThat(ProxyAccessors.find(AccessedClass.class, Runnable.class)).isNull();
+  }
+
+  @Test
+  void generatedAccessorEngineUsesRegisteredAccessor() {
+    Object proxy =
+        ProxyFactory.forInterfaces(AccessedInterface.class)
+            .proxiedWith(ProxyEngine.GENERATED_ACCESSOR)
+            .newProxy(new AccessedClass());
+
+    assertThat(proxy).isInstanceOf(AccessedClassAccessor.AccessedProxy.class);
+    assertThat(((AccessedInterface) proxy).value()).isEqualTo("accessor:accessed");
+  }
+
+  @Test
+  void defaultFactoryIgnoresRegisteredAccessor() {
+    Object proxy =
+        ProxyFactory.forInterfaces(AccessedInterface.class).newProxy(new AccessedClass());
+
+    assertThat(Proxy.isProxyClass(proxy.getClass())).isTrue();
+    assertThat(((AccessedInterface) proxy).value()).isEqualTo("accessed");
+  }
+
+  @Test
+  void reflectionStrategyIgnoresRegisteredAccessor() {
+    Object proxy =
+        ProxyFactory.forInterfaces(AccessedInterface.class)
+            .proxiedWith(ProxyEngine.GENERATED_ACCESSOR)
+            .invokedWith(InvocationStrategy.REFLECTION)
+            .newProxy(new AccessedClass());
+
+    assertThat(Proxy.isProxyClass(proxy.getClass())).isTrue();
+    assertThat(((AccessedInterface) proxy).value()).isEqualTo("accessed");
+  }
+
+  @Test
+  void unregisteredClassFallsBackToReflection() {
+    Object proxy =
+        ProxyFactory.forInterfaces(AccessedInterface.class)
+            .proxiedWith(ProxyEngine.GENERATED_ACCESSOR)
+            .newProxy(new OtherClass());
+
+    assertThat(Proxy.isProxyClass(proxy.getClass())).isTrue();
+    assertThat(((AccessedInterface) proxy).value()).isEqualTo("other");
+  }
+
+  public interface AccessedInterface {
+    String value();
+  }
+
+  static class AccessedClass {
+
+    private String value() {
+      return "accessed";
+    }
+  }
+
+  static class OtherClass {
+
+    private String value() {
+      return "other";
+    }
+  }
+
+  /** Stands in for an accessor generated by the annotation processor. */
+  public static final class AccessedClassAccessor implements ProxyAccessor {
+
+    @Override
+    public Class<?> getTargetClass() {
+      return AccessedClass.class;
+    }
+
+    @Override
+    public Class<?> getProxyInterface() {
+      return AccessedInterface.class;
+    }
+
+    @Override
+    public Object newProxy(Object objectUnderTest) {
+      return new AccessedProxy((AccessedClass) objectUnderTest);
+    }
+
+    static final class AccessedProxy implements AccessedInterface {
+
+      private final AccessedClass objectUnderTest;
+
+      AccessedProxy(AccessedClass objectUnderTest) {
+        this.objectUnderTest = objectUnderTest;
+      }
+
+      @Override
+      public String value() {
+        return "accessor:" + objectUnderTest.value();
+      }
+    }
+  }
+}
@@ -0,0 +1,183 @@
+package dev.bradhandy.testing.reflection.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProxyFactoryTest {
+
+  @Test
+  void proxyInvokesPrivateMethod() {
+    ProxyFactory proxyFactory =
+        ProxyFactory.forInterfaces(MethodExposingInterface.class);
+
+    MethodExposingInterface proxy =
+        (MethodExposingInterface) proxyFactory.newProxy(new SomeClass("someValue"));
+
+    assertThat(Proxy.isProxyClass(proxy.getClass())).isTrue();
+    assertThat(proxy.privateMethod()).isEqualTo("someValue");
+  }
+
+  @Test
+  void proxyClassReusedAcrossProxiesAndFactories() {
+    ProxyFactory proxyFactory =
+        ProxyFactory.forInterfaces(MethodExposingInterface.class);
+    ProxyFactory otherProxyFactory =
+        ProxyFactory.forInterfaces(MethodExposingInterface.class)
+            .invokedWith(InvocationStrategy.REFLECTION);
+
+    Object firstProxy = proxyFactory.newProxy(new SomeClass("first"));
+    Object secondProxy = proxyFactory.newProxy(new SomeClass("second"));
+    Object thirdProxy = otherProxyFactory.newProxy(new SomeClass("third"));
+
+    assertThat(firstProxy).isNotSameAs(secondProxy);
+    assertThat(firstProxy.getClass()).isSameAs(secondProxy.getClass());
+    assertThat(thirdProxy.getClass()).isSameAs(firstProxy.getClass());
+    assertThat(((MethodExposingInterface) secondProxy).privateMethod()).isEqualTo("second");
+    assertThat(((MethodExposingInterface) thirdProxy).privateMethod()).isEqualTo("third");
+  }
+
+  @Test
+  void proxyConformsToEveryInterface() {
+    ProxyFactory proxyFactory =
+        ProxyFactory.forInterfaces(
+            MethodExposingInterface.class,
+            OtherMethodExposingInterface.class);
+
+    Object proxy = proxyFactory.newProxy(new SomeClass("someValue"));
+
+    assertThat(proxy)
+        .isInstanceOf(MethodExposingInterface.class)
+        .isInstanceOf(OtherMethodExposingInterface.class);
+    assertThat(((OtherMethodExposingInterface) proxy).otherPrivateMethod()).isEqualTo(9);
+  }
+
+  @Test
+  void proxiesCreatedForEveryObjectInOrder() {
+    for (ProxyEngine proxyEngine : ProxyEngine.values()) {
+      ProxyFactory proxyFactory =
+          ProxyFactory.forInterfaces(MethodExposingInterface.class)
+              .proxiedWith(proxyEngine)
+              .boundEagerly();
+
+      List<Object> proxies =
+          proxyFactory.newProxies(
+              Arrays.asList(
+                  new SomeClass("first"), new OtherClass("second"), new SomeClass("third")));
+
+      assertThat(proxies)
+          .extracting(proxy -> ((MethodExposingInterface) proxy).privateMethod())
+          .containsExactly("first", "second", "third");
+      assertThat(proxies.get(0).getClass()).isSameAs(proxies.get(2).getClass());
+    }
+  }
+
+  @Test
+  void cachedProxyClassDoesNotPinTheTargetClassLoader() throws Exception {
+    WeakReference<ClassLoader> targetClassLoader = createProxyInIsolatedClassLoader();
+
+    for (int i = 0; i < 50 && targetClassLoader.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertThat(targetClassLoader.get()).isNull();
+  }
+
+  private static WeakReference<ClassLoader> createProxyInIsolatedClassLoader() throws Exception {
+    IsolatingClassLoader classLoader = new IsolatingClassLoader(IsolatedClass.class);
+    Constructor<?> constructor =
+        classLoader.loadClass(IsolatedClass.class.getName()).getDeclaredConstructor();
+    constructor.setAccessible(true);
+
+    Object proxy =
+        ProxyFactory.forInterfaces(MethodExposingInterface.class)
+            .newProxy(constructor.newInstance());
+    assertThat(((MethodExposingInterface) proxy).privateMethod()).isEqualTo("isolated");
+    return new WeakReference<>(classLoader);
+  }
+
+  interface MethodExposingInterface {
+    String privateMethod();
+  }
+
+  interface OtherMethodExposingInterface {
+    int otherPrivateMethod();
+  }
+
+  static class SomeClass {
+
+    private final String value;
+
+    SomeClass(String value) {
+      this.value = value;
+    }
+
+    private String privateMethod() {
+      return value;
+    }
+
+    private int otherPrivateMethod() {
+      return value.length();
+    }
+  }
+
+  static class OtherClass {
+
+    private final String value;
+
+    OtherClass(String value) {
+      this.value = value;
+    }
+
+    private String privateMethod() {
+      return value;
+    }
+  }
+
+  static class IsolatedClass {
+
+    private String privateMethod() {
+      return "isolated";
+    }
+  }
+
+  /** Defines its own copy of a single class, loading every other class from its parent. */
+  private static final class IsolatingClassLoader extends ClassLoader {
+
+    private final String isolatedClassName;
+
+    private IsolatingClassLoader(Class<?> isolatedClass) {
+      super(isolatedClass.getClassLoader());
+      this.isolatedClassName = isolatedClass.getName();
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (!name.equals(isolatedClassName)) {
+        return super.loadClass(name, resolve);
+      }
+
+      synchronized (getClassLoadingLock(name)) {
+        Class<?> loadedClass = findLoadedClass(name);
+        if (loadedClass == null) {
+          String resourceName = name.replace('.', '/') + ".class";
+          try (InputStream classBytes = getParent().getResourceAsStream(resourceName)) {
+            byte[] bytes = classBytes.readAllBytes();
+            loadedClass = defineClass(name, bytes, 0, bytes.length);
+          } catch (IOException e) {
+            throw new ClassNotFoundException(name, e);
+          }
+        }
+        return loadedClass;
+      }
+    }
+  }
+}